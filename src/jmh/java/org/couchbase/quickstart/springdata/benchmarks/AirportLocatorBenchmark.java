@@ -0,0 +1,85 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.models.NearbyAirport;
+import org.couchbase.quickstart.springdata.services.AirportLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Nearby and k-nearest airport searches and snapshot rebuild on about as many
+ * airports as travel-sample, clustered around a few dozen metro areas like
+ * real airports are. {@code scan} is the full scan with a distance expression
+ * that the grid replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AirportLocatorBenchmark {
+
+    private static final int AIRPORTS = 2000;
+    private static final int METROS = 40;
+
+    @Param({ "50", "500" })
+    public double radiusKm;
+
+    private List<AirportLocator.Location> locations;
+    private AirportLocator locator;
+    private double lat;
+    private double lon;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double[][] metros = new double[METROS][];
+        for (int i = 0; i < METROS; i++) {
+            metros[i] = new double[] { -50 + random.nextDouble() * 110, -180 + random.nextDouble() * 360 };
+        }
+        locations = new ArrayList<>(AIRPORTS);
+        for (int i = 0; i < AIRPORTS; i++) {
+            double[] metro = metros[random.nextInt(METROS)];
+            locations.add(new AirportLocator.Location("airport_" + i, "A" + i, "Airport " + i, "City", "Country",
+                    Math.max(-90, Math.min(90, metro[0] + random.nextGaussian() * 3)),
+                    Math.max(-180, Math.min(180, metro[1] + random.nextGaussian() * 3))));
+        }
+        locator = AirportLocator.build(locations);
+        lat = metros[0][0];
+        lon = metros[0][1];
+    }
+
+    @Benchmark
+    public List<NearbyAirport> findWithin() {
+        return locator.findWithin(lat, lon, radiusKm, 20);
+    }
+
+    @Benchmark
+    public List<NearbyAirport> findNearest() {
+        return locator.findNearest(lat, lon, 10);
+    }
+
+    @Benchmark
+    public int scan() {
+        int found = 0;
+        for (AirportLocator.Location location : locations) {
+            if (AirportLocator.distanceKm(lat, lon, location.lat(), location.lon()) <= radiusKm) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public AirportLocator rebuild() {
+        return AirportLocator.build(locations);
+    }
+}
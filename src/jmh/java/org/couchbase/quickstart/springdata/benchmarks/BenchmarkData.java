@@ -0,0 +1,74 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Airport.Geo;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.Route.Schedule;
+
+/**
+ * Representative travel-sample documents shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Airport airport() {
+        return Airport.builder()
+                .id("airport_1254")
+                .type("airport")
+                .airportName("Calais Dunkerque")
+                .city("Calais")
+                .country("France")
+                .faa("CQF")
+                .icao("LFAC")
+                .tz("Europe/Paris")
+                .geo(new Geo(12.0, 50.962097, 1.954764))
+                .build();
+    }
+
+    static Airline airline() {
+        return Airline.builder()
+                .id("airline_10")
+                .type("airline")
+                .name("40-Mile Air")
+                .iata("Q5")
+                .icao("MLA")
+                .callsign("MILE-AIR")
+                .country("United States")
+                .build();
+    }
+
+    static Route route(int scheduleSize) {
+        List<Schedule> schedule = new ArrayList<>(scheduleSize);
+        for (int i = 0; i < scheduleSize; i++) {
+            schedule.add(new Schedule(i % 7, "AF" + (100 + i), String.format("%02d:%02d:00", i % 24, i % 60)));
+        }
+        return Route.builder()
+                .id("route_10000")
+                .type("route")
+                .airline("AF")
+                .airlineId("airline_137")
+                .sourceAirport("TLV")
+                .destinationAirport("MRS")
+                .stops(0)
+                .equipment("320")
+                .schedule(schedule)
+                .distance(2881.617376098415)
+                .build();
+    }
+
+    static List<Route> routes(int count, int scheduleSize) {
+        List<Route> routes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Route route = route(scheduleSize);
+            route.setId("route_" + (10000 + i));
+            routes.add(route);
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,113 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.controller.AirportController;
+import org.couchbase.quickstart.springdata.controller.RouteController;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.TotalMode;
+import org.couchbase.quickstart.springdata.services.AirportService;
+import org.couchbase.quickstart.springdata.services.BatchWriter;
+import org.couchbase.quickstart.springdata.services.RouteService;
+import org.couchbase.quickstart.springdata.services.Versioned;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Full controller invocations (routing, argument resolution, JSON rendering)
+ * against stubbed services, so the numbers exclude Couchbase round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ControllerBenchmark {
+
+    private static final long AIRPORT_CAS = 0x17a4c3b2d1e0f000L;
+    private static final long ROUTE_CAS = 0x17a4c3b2d1e0f100L;
+
+    private MockMvc airportMvc;
+    private MockMvc routeMvc;
+
+    @Setup
+    public void setUp() {
+        Airport airport = BenchmarkData.airport();
+        List<Route> routes = BenchmarkData.routes(10, 10);
+
+        AirportService airportService = mock(AirportService.class);
+        when(airportService.getVersionedAirport("airport_1254"))
+                .thenReturn(Optional.of(new Versioned<>(airport, AIRPORT_CAS)));
+        when(airportService.getAllAirports(any(Pageable.class), eq(TotalMode.EXACT)))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(airport, airport, airport, airport, airport,
+                        airport, airport, airport, airport, airport), invocation.getArgument(0), 1968));
+        when(airportService.getDirectConnections(eq("SFO"), any(Pageable.class)))
+                .thenAnswer(invocation -> new SliceImpl<>(routes, invocation.getArgument(1), true));
+
+        RouteService routeService = mock(RouteService.class);
+        when(routeService.getVersionedRoute("route_10000"))
+                .thenReturn(Optional.of(new Versioned<>(routes.get(0), ROUTE_CAS)));
+        when(routeService.getAllRoutes(any(Pageable.class), eq(TotalMode.EXACT)))
+                .thenAnswer(invocation -> new PageImpl<>(routes, PageRequest.of(0, 10), 24024));
+
+        BatchWriter batchWriter = mock(BatchWriter.class);
+        airportMvc = MockMvcBuilders.standaloneSetup(new AirportController(airportService, batchWriter)).build();
+        routeMvc = MockMvcBuilders.standaloneSetup(new RouteController(routeService, batchWriter)).build();
+    }
+
+    @Benchmark
+    public byte[] getAirport() throws Exception {
+        return airportMvc.perform(get("/api/v1/airport/airport_1254")).andReturn().getResponse()
+                .getContentAsByteArray();
+    }
+
+    @Benchmark
+    public int getAirportNotModified() throws Exception {
+        return airportMvc.perform(get("/api/v1/airport/airport_1254")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + Long.toHexString(AIRPORT_CAS) + "\""))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public byte[] listAirports() throws Exception {
+        return airportMvc.perform(get("/api/v1/airport/list").param("page", "0").param("size", "10")).andReturn()
+                .getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] listDirectConnections() throws Exception {
+        return airportMvc.perform(get("/api/v1/airport/direct-connections").param("airportCode", "SFO"))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] getRoute() throws Exception {
+        return routeMvc.perform(get("/api/v1/route/route_10000")).andReturn().getResponse()
+                .getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] listRoutes() throws Exception {
+        return routeMvc.perform(get("/api/v1/route/list").param("page", "0").param("size", "10")).andReturn()
+                .getResponse().getContentAsByteArray();
+    }
+}
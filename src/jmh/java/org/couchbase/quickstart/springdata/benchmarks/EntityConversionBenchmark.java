@@ -0,0 +1,93 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.couchbase.core.convert.MappingCouchbaseConverter;
+import org.springframework.data.couchbase.core.mapping.CouchbaseDocument;
+import org.springframework.data.couchbase.core.mapping.CouchbaseMappingContext;
+
+/**
+ * Spring Data's entity conversion between the models and the stored document
+ * tree, which every repository read and write goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntityConversionBenchmark {
+
+    @Param({ "0", "10", "250" })
+    public int scheduleSize;
+
+    private MappingCouchbaseConverter converter;
+    private Airport airport;
+    private Airline airline;
+    private Route route;
+    private CouchbaseDocument airportDocument;
+    private CouchbaseDocument airlineDocument;
+    private CouchbaseDocument routeDocument;
+
+    @Setup
+    public void setUp() throws Exception {
+        CouchbaseMappingContext mappingContext = new CouchbaseMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(Airport.class, Airline.class, Route.class));
+        mappingContext.afterPropertiesSet();
+        // Same type key as CouchbaseConfiguration
+        converter = new MappingCouchbaseConverter(mappingContext, "type");
+        converter.afterPropertiesSet();
+
+        airport = BenchmarkData.airport();
+        airline = BenchmarkData.airline();
+        route = BenchmarkData.route(scheduleSize);
+        airportDocument = write(airport);
+        airlineDocument = write(airline);
+        routeDocument = write(route);
+    }
+
+    private CouchbaseDocument write(Object entity) {
+        CouchbaseDocument document = new CouchbaseDocument();
+        converter.write(entity, document);
+        return document;
+    }
+
+    @Benchmark
+    public CouchbaseDocument writeAirport() {
+        return write(airport);
+    }
+
+    @Benchmark
+    public Airport readAirport() {
+        return converter.read(Airport.class, airportDocument);
+    }
+
+    @Benchmark
+    public CouchbaseDocument writeAirline() {
+        return write(airline);
+    }
+
+    @Benchmark
+    public Airline readAirline() {
+        return converter.read(Airline.class, airlineDocument);
+    }
+
+    @Benchmark
+    public CouchbaseDocument writeRoute() {
+        return write(route);
+    }
+
+    @Benchmark
+    public Route readRoute() {
+        return converter.read(Route.class, routeDocument);
+    }
+}
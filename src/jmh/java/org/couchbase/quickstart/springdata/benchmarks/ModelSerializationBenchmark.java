@@ -0,0 +1,78 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Jackson (de)serialization of the models as done by the REST layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelSerializationBenchmark {
+
+    @Param({ "0", "10", "250" })
+    public int scheduleSize;
+
+    private JsonMapper jsonMapper;
+    private Airport airport;
+    private Airline airline;
+    private Route route;
+    private byte[] airportJson;
+    private byte[] airlineJson;
+    private byte[] routeJson;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        airport = BenchmarkData.airport();
+        airline = BenchmarkData.airline();
+        route = BenchmarkData.route(scheduleSize);
+        airportJson = jsonMapper.writeValueAsBytes(airport);
+        airlineJson = jsonMapper.writeValueAsBytes(airline);
+        routeJson = jsonMapper.writeValueAsBytes(route);
+    }
+
+    @Benchmark
+    public byte[] serializeAirport() {
+        return jsonMapper.writeValueAsBytes(airport);
+    }
+
+    @Benchmark
+    public Airport deserializeAirport() {
+        return jsonMapper.readValue(airportJson, Airport.class);
+    }
+
+    @Benchmark
+    public byte[] serializeAirline() {
+        return jsonMapper.writeValueAsBytes(airline);
+    }
+
+    @Benchmark
+    public Airline deserializeAirline() {
+        return jsonMapper.readValue(airlineJson, Airline.class);
+    }
+
+    @Benchmark
+    public byte[] serializeRoute() {
+        return jsonMapper.writeValueAsBytes(route);
+    }
+
+    @Benchmark
+    public Route deserializeRoute() {
+        return jsonMapper.readValue(routeJson, Route.class);
+    }
+}
@@ -0,0 +1,93 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.models.RestResponsePage;
+import org.couchbase.quickstart.springdata.models.RestResponseSlice;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Round trips of the page and slice payloads returned by the list endpoints,
+ * serialized as the server does and decoded as the Java clients do, in each
+ * of the formats the API can respond with. The payload sizes are printed
+ * during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    private static final TypeReference<RestResponsePage<Route>> PAGE_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<RestResponseSlice<Route>> SLICE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({ "10", "100" })
+    public int pageSize;
+
+    @Param({ "10" })
+    public int scheduleSize;
+
+    @Param({ "json", "smile", "cbor" })
+    public String format;
+
+    private ObjectMapper mapper;
+    private PageImpl<Route> page;
+    private SliceImpl<Route> slice;
+    private byte[] pageBytes;
+    private byte[] sliceBytes;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "smile" -> SmileMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            default -> JsonMapper.builder().build();
+        };
+        List<Route> routes = BenchmarkData.routes(pageSize, scheduleSize);
+        page = new PageImpl<>(routes, PageRequest.of(0, pageSize), 24024);
+        slice = new SliceImpl<>(routes, PageRequest.of(0, pageSize), true);
+        pageBytes = mapper.writeValueAsBytes(page);
+        sliceBytes = mapper.writeValueAsBytes(slice);
+        System.out.printf("%n%s page of %d routes: %d bytes, slice: %d bytes%n", format, pageSize,
+                pageBytes.length, sliceBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public RestResponsePage<Route> deserializePage() {
+        return mapper.readValue(pageBytes, PAGE_TYPE);
+    }
+
+    @Benchmark
+    public byte[] serializeSlice() {
+        return mapper.writeValueAsBytes(slice);
+    }
+
+    @Benchmark
+    public RestResponseSlice<Route> deserializeSlice() {
+        return mapper.readValue(sliceBytes, SLICE_TYPE);
+    }
+}
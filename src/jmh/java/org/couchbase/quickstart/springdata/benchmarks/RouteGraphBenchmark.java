@@ -0,0 +1,72 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.models.Itinerary;
+import org.couchbase.quickstart.springdata.services.RouteGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Itinerary search and snapshot rebuild on a synthetic network the size of
+ * travel-sample (about 3,000 airports and 24,000 routes), with a few hubs
+ * holding most of the connections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteGraphBenchmark {
+
+    private static final int AIRPORTS = 3000;
+    private static final int ROUTES = 24000;
+    private static final int HUBS = 50;
+
+    @Param({ "0", "1", "2" })
+    public int maxStops;
+
+    private List<RouteGraph.Edge> edges;
+    private RouteGraph graph;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        edges = new ArrayList<>(ROUTES);
+        for (int i = 0; i < ROUTES; i++) {
+            // Every route touches a hub at least at one end
+            int hub = random.nextInt(HUBS);
+            int other = random.nextInt(AIRPORTS);
+            boolean outbound = random.nextBoolean();
+            edges.add(new RouteGraph.Edge("route_" + i, code(outbound ? hub : other), code(outbound ? other : hub),
+                    100 + random.nextInt(5000)));
+        }
+        graph = RouteGraph.build(edges);
+    }
+
+    @Benchmark
+    public List<Itinerary> findPathsBetweenSpokes() {
+        return graph.findPaths(code(HUBS + 1), code(AIRPORTS - 1), maxStops, 5);
+    }
+
+    @Benchmark
+    public List<Itinerary> findPathsBetweenHubs() {
+        return graph.findPaths(code(0), code(1), maxStops, 5);
+    }
+
+    @Benchmark
+    public RouteGraph rebuild() {
+        return RouteGraph.build(edges);
+    }
+
+    private static String code(int airport) {
+        return "A" + airport;
+    }
+}
@@ -0,0 +1,87 @@
+package org.couchbase.quickstart.springdata.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.couchbase.quickstart.springdata.models.Suggestion;
+import org.couchbase.quickstart.springdata.services.SuggestIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Suggestions, a full snapshot rebuild and the incremental update one write
+ * makes, for about as many airports and airlines as travel-sample, with random
+ * names made of a few syllables. One-letter queries match the most keys and
+ * are the slowest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SuggestIndexBenchmark {
+
+    private static final int AIRPORTS = 2000;
+    private static final int AIRLINES = 200;
+    private static final String[] SYLLABLES = { "sa", "an", "fra", "ci", "to", "ber", "lin", "mon", "ré", "al",
+            "port", "ville", "new", "york", "ka", "ra", "chi", "lo", "ma", "dri" };
+
+    @Param({ "s", "sa", "san fr" })
+    public String query;
+
+    private List<SuggestIndex.Entry> entries;
+    private SuggestIndex index;
+    private List<SuggestIndex.Entry> renamed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        entries = new ArrayList<>(AIRPORTS + AIRLINES);
+        for (int i = 0; i < AIRPORTS; i++) {
+            String name = name(random) + " " + name(random) + " Intl";
+            String city = name(random);
+            entries.add(new SuggestIndex.Entry("airport", "airport_" + i, name, "A" + i, city, "Country",
+                    random.nextInt(200), List.of(name, city, "A" + i)));
+        }
+        for (int i = 0; i < AIRLINES; i++) {
+            String name = name(random) + " Airlines";
+            entries.add(new SuggestIndex.Entry("airline", "airline_" + i, name, "L" + i, null, "Country",
+                    random.nextInt(2000), List.of(name, "L" + i)));
+        }
+        index = SuggestIndex.build(entries);
+        SuggestIndex.Entry airport = entries.get(AIRPORTS / 2);
+        String name = name(random) + " Intl";
+        renamed = List.of(new SuggestIndex.Entry(airport.type(), airport.id(), name, airport.code(), airport.city(),
+                airport.country(), airport.routes(), List.of(name, airport.city(), airport.code())));
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest() {
+        return index.suggest(query, 10);
+    }
+
+    @Benchmark
+    public SuggestIndex rebuild() {
+        return SuggestIndex.build(entries);
+    }
+
+    @Benchmark
+    public SuggestIndex update() {
+        return index.apply(renamed, List.of());
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0, syllables = 2 + random.nextInt(2); i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package org.couchbase.quickstart.springdata.benchmarks.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.couchbase.quickstart.springdata.config.CouchbaseEnvironmentProfile;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ClusterOptions;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.Scope;
+import com.couchbase.client.java.env.ClusterEnvironment;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+
+/**
+ * Closed-loop KV and N1QL load against a cluster, once per
+ * {@link CouchbaseEnvironmentProfile}, so the profiles can be compared on the
+ * same hardware. Any cluster with travel-sample loaded will do, a local
+ * single-node container being the usual stand-in for production.
+ * <p>
+ * Usage: {@code ./gradlew environmentBenchmark -PenvironmentBenchmark.profiles=default,high-throughput
+ * -PenvironmentBenchmark.concurrency=64 -PenvironmentBenchmark.duration=PT20S}. The connection string and
+ * credentials are read from {@code DB_CONN_STR}, {@code DB_USERNAME} and {@code DB_PASSWORD}.
+ */
+public final class EnvironmentProfileBenchmark {
+
+    private static final String BUCKET = "travel-sample";
+    private static final String SCOPE = "inventory";
+    private static final String QUERY = "SELECT airport.* FROM airport WHERE airport.faa = $1";
+
+    private EnvironmentProfileBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String connectionString = System.getenv().getOrDefault("DB_CONN_STR", "couchbase://localhost");
+        String username = System.getenv().getOrDefault("DB_USERNAME", "Administrator");
+        String password = System.getenv().getOrDefault("DB_PASSWORD", "password");
+        List<CouchbaseEnvironmentProfile> profiles = options.containsKey("profiles")
+                ? Arrays.stream(options.get("profiles").split(",")).map(CouchbaseEnvironmentProfile::of).toList()
+                : List.of(CouchbaseEnvironmentProfile.values());
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT20S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT5S"));
+
+        System.out.printf("Environment profiles against %s with %d concurrent clients%n", connectionString,
+                concurrency);
+        for (CouchbaseEnvironmentProfile profile : profiles) {
+            ClusterEnvironment.Builder builder = ClusterEnvironment.builder();
+            profile.apply(builder);
+            ClusterEnvironment environment = builder.build();
+            Cluster cluster = Cluster.connect(connectionString,
+                    ClusterOptions.clusterOptions(username, password).environment(environment));
+            try {
+                cluster.bucket(BUCKET).waitUntilReady(Duration.ofSeconds(30));
+                Scope scope = cluster.bucket(BUCKET).scope(SCOPE);
+                Collection airports = scope.collection("airport");
+                List<JsonObject> sample = scope.query("SELECT META(airport).id AS id, airport.faa FROM airport "
+                        + "WHERE airport.faa IS VALUED LIMIT 1000").rowsAsObject();
+                String[] ids = sample.stream().map(row -> row.getString("id")).toArray(String[]::new);
+                String[] codes = sample.stream().map(row -> row.getString("faa")).toArray(String[]::new);
+
+                Consumer<ThreadLocalRandom> kv = random -> airports.get(ids[random.nextInt(ids.length)]);
+                Consumer<ThreadLocalRandom> n1ql = random -> scope.query(QUERY,
+                        QueryOptions.queryOptions().parameters(JsonArray.from(codes[random.nextInt(codes.length)])));
+                run(kv, concurrency, warmup);
+                run(kv, concurrency, duration).print(profile + " kv", duration);
+                run(n1ql, concurrency, warmup);
+                run(n1ql, concurrency, duration).print(profile + " n1ql", duration);
+            } finally {
+                cluster.disconnect();
+                environment.shutdown();
+            }
+        }
+    }
+
+    private static Result run(Consumer<ThreadLocalRandom> operation, int concurrency, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            operation.accept(random);
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            List<long[]> perWorker = new ArrayList<>(concurrency);
+            for (Future<long[]> future : futures) {
+                perWorker.add(future.get());
+            }
+            long[] all = perWorker.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(all, errors.get());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private record Result(long[] sortedLatencies, long errors) {
+
+        void print(String label, Duration duration) {
+            int count = sortedLatencies.length;
+            System.out.printf("%-22s %10.1f ops/s, %d failed", label, count / (duration.toMillis() / 1000.0),
+                    errors);
+            if (count > 0) {
+                System.out.printf(", latency ms p50 %.2f, p99 %.2f", percentile(0.50), percentile(0.99));
+            }
+            System.out.println();
+        }
+
+        double percentile(double p) {
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.couchbase.quickstart.springdata.benchmarks.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application jar several times and reports, for each start, the
+ * time from launching the JVM to {@code ApplicationReadyEvent} and to the first
+ * successful {@code GET /api/v1/airport/{id}}. The same runs can be repeated
+ * with and without Spring AOT and the class data sharing archive to compare
+ * them.
+ * <p>
+ * Usage: {@code ./gradlew startupBenchmark -PstartupBenchmark.jar=application/app.jar
+ * -PstartupBenchmark.jvmArgs='-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true'
+ * -PstartupBenchmark.runs=5}
+ */
+public final class StartupBenchmark {
+
+    // Logged by Application once it is ready
+    private static final Pattern READY = Pattern.compile("Application ready (\\d+) ms after JVM start");
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Path jar = Path.of(options.getOrDefault("jar", "build/libs/java-springdata-quickstart-0.0.1-SNAPSHOT.jar"));
+        List<String> jvmArgs = options.containsKey("jvmArgs")
+                ? Arrays.asList(options.get("jvmArgs").trim().split("\\s+"))
+                : List.of();
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        Duration timeout = Duration.parse(options.getOrDefault("timeout", "PT120S"));
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/airport/"
+                + options.getOrDefault("id", "airport_1254"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(200))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+
+        System.out.printf("Startup of %s %s, %d runs%n", jar, jvmArgs, runs);
+        List<Result> results = new ArrayList<>(runs);
+        for (int run = 1; run <= runs; run++) {
+            Result result = start(jar, jvmArgs, port, client, request, timeout);
+            System.out.printf("run %d: ready %d ms (JVM uptime %d ms), first response %d ms%n", run,
+                    result.readyMillis(), result.uptimeMillis(), result.firstResponseMillis());
+            results.add(result);
+        }
+        System.out.printf("median:  ready %d ms, first response %d ms%n",
+                median(results.stream().mapToLong(Result::readyMillis).toArray()),
+                median(results.stream().mapToLong(Result::firstResponseMillis).toArray()));
+    }
+
+    private static Result start(Path jar, List<String> jvmArgs, int port, HttpClient client, HttpRequest request,
+            Duration timeout) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            CompletableFuture<long[]> ready = CompletableFuture.supplyAsync(() -> awaitReady(process, start));
+            long deadline = start + timeout.toNanos();
+            long firstResponse = -1;
+            while (firstResponse < 0 && System.nanoTime() < deadline && process.isAlive()) {
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        firstResponse = System.nanoTime();
+                        break;
+                    }
+                } catch (Exception e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            if (firstResponse < 0) {
+                throw new IllegalStateException("No successful response from " + request.uri()
+                        + " within " + timeout);
+            }
+            long[] readyTimes = ready.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return new Result(readyTimes[0], readyTimes[1], (firstResponse - start) / 1_000_000);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Reads the output until the ready line, then keeps draining it in the
+    // background so the process never blocks on a full pipe
+    private static long[] awaitReady(Process process, long start) {
+        BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                Matcher matcher = READY.matcher(line);
+                if (matcher.find()) {
+                    long readyMillis = (System.nanoTime() - start) / 1_000_000;
+                    Thread drainer = new Thread(() -> drain(output), "startup-benchmark-drain");
+                    drainer.setDaemon(true);
+                    drainer.start();
+                    return new long[] { readyMillis, Long.parseLong(matcher.group(1)) };
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalStateException("The application exited before it was ready");
+    }
+
+    private static void drain(BufferedReader output) {
+        try {
+            while (output.readLine() != null) {
+                // Only the ready line is of interest
+            }
+        } catch (IOException e) {
+            // The process has been stopped
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private record Result(long readyMillis, long uptimeMillis, long firstResponseMillis) {
+    }
+}
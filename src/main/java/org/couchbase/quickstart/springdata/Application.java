@@ -4,10 +4,14 @@ import static org.couchbase.quickstart.springdata.config.SpringDocConstants.DESC
 import static org.couchbase.quickstart.springdata.config.SpringDocConstants.TITLE;
 import static org.couchbase.quickstart.springdata.config.SpringDocConstants.VERSION;
 
+import java.lang.management.ManagementFactory;
+
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
 import org.springframework.web.filter.ForwardedHeaderFilter;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
@@ -29,6 +33,12 @@ public class Application implements CommandLineRunner {
         log.info("Application started successfully");
     }
 
+    // Parsed by StartupBenchmark
+    @EventListener(ApplicationReadyEvent.class)
+    void logReady() {
+        log.info("Application ready {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
     }
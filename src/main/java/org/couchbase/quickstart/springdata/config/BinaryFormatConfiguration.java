@@ -0,0 +1,94 @@
+package org.couchbase.quickstart.springdata.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.JacksonCborDecoder;
+import org.springframework.http.codec.cbor.JacksonCborEncoder;
+import org.springframework.http.codec.smile.JacksonSmileDecoder;
+import org.springframework.http.codec.smile.JacksonSmileEncoder;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import tools.jackson.databind.DeserializationConfig;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationConfig;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Lets clients ask for Smile ({@code application/x-jackson-smile}) or CBOR
+ * ({@code application/cbor}) instead of JSON with the {@code Accept} header,
+ * and send request bodies in either with {@code Content-Type}. JSON stays the
+ * default.
+ * <p>
+ * The binary mappers are configured like Boot's JSON mapper: the same modules,
+ * features, naming strategy, date format, time zone, locale and inclusion.
+ * Those come from {@code spring.jackson.*} and the
+ * {@code JsonMapperBuilderCustomizer} beans, which only apply to JSON builders,
+ * so every type is written with the same properties in all three formats.
+ */
+@Configuration
+public class BinaryFormatConfiguration {
+
+    @Bean
+    @Profile("!reactive")
+    JacksonSmileHttpMessageConverter smileHttpMessageConverter(JsonMapper jsonMapper) {
+        return new JacksonSmileHttpMessageConverter(configuredLike(jsonMapper, SmileMapper.builder()));
+    }
+
+    @Bean
+    @Profile("!reactive")
+    JacksonCborHttpMessageConverter cborHttpMessageConverter(JsonMapper jsonMapper) {
+        return new JacksonCborHttpMessageConverter(configuredLike(jsonMapper, CBORMapper.builder()));
+    }
+
+    @Bean
+    @Profile("reactive")
+    WebFluxConfigurer binaryCodecsConfigurer(JsonMapper jsonMapper) {
+        SmileMapper smileMapper = configuredLike(jsonMapper, SmileMapper.builder());
+        CBORMapper cborMapper = configuredLike(jsonMapper, CBORMapper.builder());
+        return new WebFluxConfigurer() {
+            @Override
+            public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+                configurer.customCodecs().register(new JacksonSmileEncoder(smileMapper));
+                configurer.customCodecs().register(new JacksonSmileDecoder(smileMapper));
+                configurer.customCodecs().register(new JacksonCborEncoder(cborMapper));
+                configurer.customCodecs().register(new JacksonCborDecoder(cborMapper));
+            }
+        };
+    }
+
+    static <M extends ObjectMapper, B extends MapperBuilder<M, B>> M configuredLike(JsonMapper jsonMapper,
+            B builder) {
+        SerializationConfig serialization = jsonMapper.serializationConfig();
+        DeserializationConfig deserialization = jsonMapper.deserializationConfig();
+        for (SerializationFeature feature : SerializationFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+        for (DeserializationFeature feature : DeserializationFeature.values()) {
+            builder.configure(feature, deserialization.isEnabled(feature));
+        }
+        for (MapperFeature feature : MapperFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+        for (DateTimeFeature feature : DateTimeFeature.values()) {
+            builder.configure(feature, serialization.isEnabled(feature));
+        }
+        return builder.addModules(jsonMapper.registeredModules())
+                .propertyNamingStrategy(serialization.getPropertyNamingStrategy())
+                .defaultDateFormat(serialization.getDateFormat())
+                .defaultTimeZone(serialization.getTimeZone())
+                .defaultLocale(serialization.getLocale())
+                .changeDefaultPropertyInclusion(inclusion -> serialization.getDefaultPropertyInclusion())
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.couchbase.quickstart.springdata.services.ConsistencyContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the client's consistency token from the request and returns the token
+ * of any writes made while handling it.
+ * <p>
+ * The response header is added just before the body is written, since the
+ * writes happen inside the handler but the headers are committed with the
+ * first byte of the body.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConsistencyContext context;
+        try {
+            context = ConsistencyContext.open(request.getHeader(ConsistencyContext.HEADER));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting request with invalid {} header", ConsistencyContext.HEADER);
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        TokenResponse tokenResponse = new TokenResponse(response, context);
+        try {
+            filterChain.doFilter(request, tokenResponse);
+            tokenResponse.applyToken();
+        } finally {
+            ConsistencyContext.close();
+        }
+    }
+
+    private static final class TokenResponse extends HttpServletResponseWrapper {
+
+        private final ConsistencyContext context;
+
+        TokenResponse(HttpServletResponse response, ConsistencyContext context) {
+            super(response);
+            this.context = context;
+        }
+
+        void applyToken() {
+            if (!isCommitted() && !containsHeader(ConsistencyContext.HEADER)) {
+                context.producedToken().ifPresent(token -> setHeader(ConsistencyContext.HEADER, token));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            applyToken();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            applyToken();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            applyToken();
+            super.flushBuffer();
+        }
+    }
+}
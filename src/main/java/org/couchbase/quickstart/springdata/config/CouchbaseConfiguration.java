@@ -1,21 +1,28 @@
 package org.couchbase.quickstart.springdata.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.couchbase.config.AbstractCouchbaseConfiguration;
 import org.springframework.data.couchbase.repository.config.EnableCouchbaseRepositories;
+import org.springframework.data.couchbase.repository.config.EnableReactiveCouchbaseRepositories;
 
-import com.couchbase.client.core.error.BucketNotFoundException;
+import com.couchbase.client.core.env.SecurityConfig;
 import com.couchbase.client.java.Bucket;
 import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ClusterOptions;
 import com.couchbase.client.java.env.ClusterEnvironment;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Configuration
 @EnableCouchbaseRepositories
+@EnableReactiveCouchbaseRepositories
 public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
 
   @Value("#{systemEnvironment['DB_CONN_STR'] ?: '${spring.couchbase.connection-string:localhost}'}")
@@ -30,6 +37,34 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
   // Since bucket auto-configuration is removed, we'll hardcode the travel-sample bucket name
   private String bucketName = "travel-sample";
 
+  @Value("${app.couchbase.env.profile:default}")
+  private String environmentProfile;
+
+  // Overrides of single settings of the profile
+  @Value("${app.couchbase.env.kv-connections:0}")
+  private int kvConnections;
+
+  @Value("${app.couchbase.env.io-threads:0}")
+  private int ioThreads;
+
+  @Value("${app.couchbase.env.compression:#{null}}")
+  private Boolean compression;
+
+  @Value("${spring.couchbase.env.timeouts.key-value:#{null}}")
+  private Duration kvTimeout;
+
+  @Value("${spring.couchbase.env.timeouts.query:#{null}}")
+  private Duration queryTimeout;
+
+  @Value("${spring.couchbase.env.timeouts.connect:#{null}}")
+  private Duration connectTimeout;
+
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+
+  public CouchbaseConfiguration(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
   @Override
   public String getConnectionString() {
     return host;
@@ -55,30 +90,55 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
     return "type";
   }
 
+  @Override
+  protected void configureEnvironment(ClusterEnvironment.Builder builder) {
+    CouchbaseEnvironmentProfile profile = CouchbaseEnvironmentProfile.of(environmentProfile);
+    log.info("Using Couchbase environment profile {}", profile);
+    profile.apply(builder);
+    if (kvConnections > 0) {
+      builder.ioConfig(io -> io.numKvConnections(kvConnections));
+    }
+    if (ioThreads > 0) {
+      builder.ioEnvironment(io -> io.eventLoopThreadCount(ioThreads));
+    }
+    if (compression != null) {
+      builder.compressionConfig(config -> config.enable(compression));
+    }
+    builder.timeoutConfig(timeouts -> {
+      if (kvTimeout != null) {
+        timeouts.kvTimeout(kvTimeout);
+      }
+      if (queryTimeout != null) {
+        timeouts.queryTimeout(queryTimeout);
+      }
+      if (connectTimeout != null) {
+        timeouts.connectTimeout(connectTimeout);
+      }
+    });
+    // A pre-built environment must enable TLS itself when the connection string asks for it
+    if (getConnectionString().startsWith("couchbases://")) {
+      builder.securityConfig(SecurityConfig.enableTls(true));
+    }
+    meterRegistry.ifAvailable(registry -> builder.meter(new MicrometerCouchbaseMeter(registry)));
+  }
+
   @Override
   @Bean(destroyMethod = "disconnect")
   public Cluster couchbaseCluster(ClusterEnvironment couchbaseClusterEnvironment) {
     try {
       log.debug("Connecting to Couchbase cluster at " + host);
-      return Cluster.connect(getConnectionString(), getUserName(), getPassword());
+      return Cluster.connect(getConnectionString(),
+          ClusterOptions.clusterOptions(getUserName(), getPassword()).environment(couchbaseClusterEnvironment));
     } catch (Exception e) {
       log.error("Error connecting to Couchbase cluster", e);
       throw e;
     }
   }
 
+  // Opening a bucket does not wait for it, CouchbaseReadinessHealthIndicator does that in the background
   @Bean
   public Bucket getCouchbaseBucket(Cluster cluster) {
-    try {
-      if (!cluster.buckets().getAllBuckets().containsKey(getBucketName())) {
-        log.error("Bucket with name {} does not exist. Creating it now", getBucketName());
-        throw new BucketNotFoundException(bucketName);
-      }
-      return cluster.bucket(getBucketName());
-    } catch (Exception e) {
-      log.error("Error getting bucket", e);
-      throw e;
-    }
+    return cluster.bucket(getBucketName());
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import com.couchbase.client.java.env.ClusterEnvironment;
+
+/**
+ * Named sets of Couchbase SDK tunables, chosen with
+ * {@code app.couchbase.env.profile}. Individual settings can still be
+ * overridden with the {@code app.couchbase.env.*} and
+ * {@code spring.couchbase.env.timeouts.*} properties.
+ * <p>
+ * A value of 0 or null leaves the SDK default.
+ */
+public enum CouchbaseEnvironmentProfile {
+
+    /**
+     * SDK defaults apart from the timeouts, which fail requests faster than the
+     * SDK would.
+     */
+    DEFAULT(0, 0, 0, true, 0, 0, Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(10),
+            null, null, null),
+
+    /**
+     * Small requests answered as soon as possible: no compression, so no CPU
+     * spent on it either way, short timeouts, and slow operations logged early.
+     */
+    LOW_LATENCY(2, 0, 0, false, 0, 0, Duration.ofMillis(1500), Duration.ofSeconds(10), Duration.ofSeconds(5),
+            Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(10)),
+
+    /**
+     * Many concurrent requests: more KV connections and HTTP connections for
+     * the query service, an IO thread per core, and compression of all but the
+     * smallest documents to save network bandwidth.
+     */
+    HIGH_THROUGHPUT(4, 32, Runtime.getRuntime().availableProcessors(), true, 32, 0.83, Duration.ofSeconds(5),
+            Duration.ofSeconds(30), Duration.ofSeconds(10), null, null, Duration.ofSeconds(60)),
+
+    /**
+     * Batch imports and exports: the most KV connections, compression only
+     * where it pays off, and timeouts that tolerate a busy cluster.
+     */
+    BULK_LOAD(8, 16, Runtime.getRuntime().availableProcessors(), true, 256, 0.9, Duration.ofSeconds(10),
+            Duration.ofSeconds(120), Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofSeconds(5),
+            Duration.ofSeconds(60));
+
+    private final int kvConnections;
+    private final int maxHttpConnections;
+    private final int ioThreads;
+    private final boolean compression;
+    private final int compressionMinSize;
+    private final double compressionMinRatio;
+    private final Duration kvTimeout;
+    private final Duration queryTimeout;
+    private final Duration connectTimeout;
+    private final Duration kvThreshold;
+    private final Duration queryThreshold;
+    private final Duration emitInterval;
+
+    CouchbaseEnvironmentProfile(int kvConnections, int maxHttpConnections, int ioThreads, boolean compression,
+            int compressionMinSize, double compressionMinRatio, Duration kvTimeout, Duration queryTimeout,
+            Duration connectTimeout, Duration kvThreshold, Duration queryThreshold, Duration emitInterval) {
+        this.kvConnections = kvConnections;
+        this.maxHttpConnections = maxHttpConnections;
+        this.ioThreads = ioThreads;
+        this.compression = compression;
+        this.compressionMinSize = compressionMinSize;
+        this.compressionMinRatio = compressionMinRatio;
+        this.kvTimeout = kvTimeout;
+        this.queryTimeout = queryTimeout;
+        this.connectTimeout = connectTimeout;
+        this.kvThreshold = kvThreshold;
+        this.queryThreshold = queryThreshold;
+        this.emitInterval = emitInterval;
+    }
+
+    /**
+     * Parses a profile name, case-insensitively and with dashes for
+     * underscores, e.g. {@code high-throughput}.
+     *
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    public static CouchbaseEnvironmentProfile of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    public void apply(ClusterEnvironment.Builder builder) {
+        builder.ioConfig(io -> {
+            if (kvConnections > 0) {
+                io.numKvConnections(kvConnections);
+            }
+            if (maxHttpConnections > 0) {
+                io.maxHttpConnections(maxHttpConnections);
+            }
+        });
+        if (ioThreads > 0) {
+            builder.ioEnvironment(io -> io.eventLoopThreadCount(ioThreads));
+        }
+        builder.compressionConfig(config -> {
+            config.enable(compression);
+            if (compressionMinSize > 0) {
+                config.minSize(compressionMinSize);
+            }
+            if (compressionMinRatio > 0) {
+                config.minRatio(compressionMinRatio);
+            }
+        });
+        builder.timeoutConfig(timeouts -> timeouts
+                .kvTimeout(kvTimeout)
+                .queryTimeout(queryTimeout)
+                .connectTimeout(connectTimeout));
+        builder.thresholdLoggingTracerConfig(config -> {
+            if (kvThreshold != null) {
+                config.kvThreshold(kvThreshold);
+            }
+            if (queryThreshold != null) {
+                config.queryThreshold(queryThreshold);
+            }
+            if (emitInterval != null) {
+                config.emitInterval(emitInterval);
+            }
+        });
+        if (emitInterval != null) {
+            builder.orphanReporterConfig(config -> config.emitInterval(emitInterval));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.diagnostics.EndpointDiagnostics;
+import com.couchbase.client.core.diagnostics.EndpointPingReport;
+import com.couchbase.client.core.diagnostics.PingState;
+import com.couchbase.client.core.endpoint.EndpointState;
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.diagnostics.PingOptions;
+import com.couchbase.client.java.diagnostics.WaitUntilReadyOptions;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opens the bucket in the background and tells whether the application can
+ * serve requests, for the {@code readiness} health group
+ * ({@code /actuator/health/readiness}).
+ * <p>
+ * The bucket bean is handed out right away and the SDK connects while the rest
+ * of the context starts. This indicator waits for KV and query to become ready,
+ * up to {@code app.couchbase.bootstrap-timeout}, and reports
+ * {@code OUT_OF_SERVICE} meanwhile. From then on every check pings both
+ * services and reports {@code UP} only if all their endpoints answered, with
+ * the ping latency and the connection state from the cluster diagnostics of
+ * each service.
+ */
+@Slf4j
+@Component
+public class CouchbaseReadinessHealthIndicator implements HealthIndicator {
+
+    static final List<ServiceType> SERVICES = List.of(ServiceType.KV, ServiceType.QUERY);
+
+    private final CompletableFuture<Void> bootstrap;
+    private final Supplier<Map<ServiceType, List<EndpointPingReport>>> pinger;
+    private final Supplier<Map<ServiceType, List<EndpointDiagnostics>>> diagnostics;
+
+    @Autowired
+    public CouchbaseReadinessHealthIndicator(Cluster cluster, Bucket bucket,
+            @Value("${app.couchbase.bootstrap-timeout:30s}") Duration bootstrapTimeout,
+            @Value("${app.couchbase.ping-timeout:2s}") Duration pingTimeout) {
+        this(bootstrap(bucket, bootstrapTimeout),
+                () -> bucket.ping(PingOptions.pingOptions().serviceTypes(Set.copyOf(SERVICES)).timeout(pingTimeout))
+                        .endpoints(),
+                () -> cluster.diagnostics().endpoints());
+    }
+
+    CouchbaseReadinessHealthIndicator(CompletableFuture<Void> bootstrap,
+            Supplier<Map<ServiceType, List<EndpointPingReport>>> pinger,
+            Supplier<Map<ServiceType, List<EndpointDiagnostics>>> diagnostics) {
+        this.bootstrap = bootstrap;
+        this.pinger = pinger;
+        this.diagnostics = diagnostics;
+    }
+
+    private static CompletableFuture<Void> bootstrap(Bucket bucket, Duration timeout) {
+        long start = System.nanoTime();
+        return bucket.async()
+                .waitUntilReady(timeout, WaitUntilReadyOptions.waitUntilReadyOptions()
+                        .serviceTypes(Set.copyOf(SERVICES)))
+                .whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        log.info("Bucket {} ready after {} ms", bucket.name(),
+                                (System.nanoTime() - start) / 1_000_000);
+                    } else {
+                        log.error("Bucket {} not ready within {}, readiness now follows the pings", bucket.name(),
+                                timeout, e);
+                    }
+                });
+    }
+
+    /**
+     * Completes once the bucket is open and KV and query are ready, or
+     * exceptionally if that fails or takes longer than the bootstrap timeout.
+     */
+    public CompletableFuture<Void> bootstrap() {
+        return bootstrap;
+    }
+
+    @Override
+    public Health health() {
+        if (!bootstrap.isDone()) {
+            return Health.outOfService().withDetail("bootstrap", "in progress").build();
+        }
+        Map<ServiceType, List<EndpointPingReport>> pings;
+        Map<ServiceType, List<EndpointDiagnostics>> connections;
+        try {
+            pings = pinger.get();
+            connections = diagnostics.get();
+        } catch (CouchbaseException e) {
+            return Health.outOfService().withException(e).build();
+        }
+        boolean ready = true;
+        Map<String, Object> services = new LinkedHashMap<>();
+        for (ServiceType service : SERVICES) {
+            List<EndpointPingReport> reports = pings.getOrDefault(service, List.of());
+            boolean ok = !reports.isEmpty() && reports.stream().allMatch(report -> report.state() == PingState.OK);
+            ready &= ok;
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("ping", ok ? "ok" : "failed");
+            detail.put("latencyMs", reports.stream()
+                    .mapToDouble(report -> report.latency().toNanos() / 1e6)
+                    .max()
+                    .orElse(0));
+            List<EndpointDiagnostics> endpoints = connections.getOrDefault(service, List.of());
+            detail.put("endpoints", endpoints.size());
+            detail.put("connected", endpoints.stream()
+                    .filter(endpoint -> endpoint.state() == EndpointState.CONNECTED)
+                    .count());
+            services.put(service.ident(), detail);
+        }
+        return (ready ? Health.up() : Health.outOfService())
+                .withDetail("bootstrap", bootstrap.isCompletedExceptionally() ? "failed" : "done")
+                .withDetail("services", services)
+                .build();
+    }
+}
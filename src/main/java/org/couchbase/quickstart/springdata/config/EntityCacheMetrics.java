@@ -0,0 +1,59 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.couchbase.quickstart.springdata.services.AirlineService;
+import org.couchbase.quickstart.springdata.services.AirportService;
+import org.couchbase.quickstart.springdata.services.CountCache;
+import org.couchbase.quickstart.springdata.services.EntityCache;
+import org.couchbase.quickstart.springdata.services.RouteService;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exports the hits, misses, evictions and size of the in-process caches under
+ * Micrometer's usual cache meter names ({@code cache.gets} with a
+ * {@code result} tag, {@code cache.evictions}, {@code cache.size}), tagged with
+ * the {@code cache} they belong to.
+ */
+@Component
+public class EntityCacheMetrics implements MeterBinder {
+
+    private final Map<String, Supplier<EntityCache.Stats>> caches;
+
+    public EntityCacheMetrics(AirportService airportService, AirlineService airlineService,
+            RouteService routeService, CountCache countCache) {
+        this.caches = Map.of(
+                "airport", airportService::getCacheStats,
+                "airline", airlineService::getCacheStats,
+                "route", routeService::getCacheStats,
+                "count", countCache::stats);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        caches.forEach((name, stats) -> {
+            FunctionCounter.builder("cache.gets", stats, cache -> cache.get().hits())
+                    .description("Cache reads that found the entry")
+                    .tags("cache", name, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", stats, cache -> cache.get().misses())
+                    .description("Cache reads that had to load the entry")
+                    .tags("cache", name, "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", stats, cache -> cache.get().evictions())
+                    .description("Entries evicted because the cache was full or they had expired")
+                    .tag("cache", name)
+                    .register(registry);
+            Gauge.builder("cache.size", stats, cache -> cache.get().size())
+                    .description("Entries in the cache")
+                    .tag("cache", name)
+                    .register(registry);
+        });
+    }
+}
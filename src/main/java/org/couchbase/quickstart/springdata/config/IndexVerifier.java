@@ -0,0 +1,270 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.couchbase.quickstart.springdata.repository.AirlineRepository;
+import org.couchbase.quickstart.springdata.repository.AirportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.manager.query.CollectionQueryIndexManager;
+import com.couchbase.client.java.manager.query.CreatePrimaryQueryIndexOptions;
+import com.couchbase.client.java.manager.query.CreateQueryIndexOptions;
+import com.couchbase.client.java.manager.query.QueryIndex;
+import com.couchbase.client.java.manager.query.WatchQueryIndexesOptions;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes sure the indexes the repository queries rely on exist, so that a
+ * missing index does not silently turn a query into a primary scan.
+ * <p>
+ * At startup the indexes in {@link #REQUIRED} are looked up through the query
+ * index manager of their collection. An existing index satisfies a required one
+ * if its keys start with the required keys, whatever its name. Depending on
+ * {@code app.indexes.on-missing}, missing indexes are only logged ({@code warn},
+ * the default), fail the startup ({@code fail}) or are created deferred and then
+ * built ({@code create}). Only {@code create} needs the credentials to manage
+ * indexes; otherwise they come from {@code scripts/setup.sqlpp}. Finally the queries each index serves are run through
+ * {@code EXPLAIN}, and a warning is logged for any plan that still falls back
+ * to a primary scan.
+ */
+@Slf4j
+@Component
+public class IndexVerifier {
+
+    private static final String SCOPE = "inventory";
+
+    /**
+     * The indexes the repository queries need. Secondary indexes include the
+     * projected fields where that makes them covering.
+     */
+    static final List<RequiredIndex> REQUIRED = List.of(
+            RequiredIndex.primary("airline"),
+            RequiredIndex.primary("airport"),
+            RequiredIndex.primary("route"),
+            new RequiredIndex("airline", "idx_airline_country",
+                    List.of("country", "name", "callsign", "iata", "icao", "id", "type"),
+                    List.of(new UsedBy(AirlineRepository.class, "findByCountry"),
+                            new UsedBy(AirlineRepository.class, "countByCountry"))),
+            new RequiredIndex("route", "idx_route_destinationairport_airlineid",
+                    List.of("destinationairport", "airlineid"),
+                    List.of(new UsedBy(AirlineRepository.class, "findByDestinationAirport"),
+                            new UsedBy(AirlineRepository.class, "countByDestinationAirport"))),
+            new RequiredIndex("route", "idx_route_sourceairport_stops",
+                    List.of("sourceairport", "stops", "destinationairport"),
+                    List.of(new UsedBy(AirportRepository.class, "getDirectConnections"))),
+            new RequiredIndex("airport", "idx_airport_faa", List.of("faa"),
+                    List.of(new UsedBy(AirportRepository.class, "getDirectConnections"))));
+
+    enum OnMissing {
+        CREATE, FAIL, WARN, OFF
+    }
+
+    private final Function<String, CollectionQueryIndexManager> indexManagers;
+    private final Function<String, List<JsonObject>> explainer;
+    private final OnMissing onMissing;
+    private final Duration buildTimeout;
+
+    @Autowired
+    public IndexVerifier(Bucket bucket,
+            @Value("${app.indexes.on-missing:warn}") String onMissing,
+            @Value("${app.indexes.build-timeout:0s}") Duration buildTimeout) {
+        this(collection -> bucket.scope(SCOPE).collection(collection).queryIndexes(),
+                statement -> bucket.scope(SCOPE).query("EXPLAIN " + statement).rowsAsObject(),
+                OnMissing.valueOf(onMissing.trim().toUpperCase(Locale.ROOT).replace('-', '_')), buildTimeout);
+    }
+
+    IndexVerifier(Function<String, CollectionQueryIndexManager> indexManagers,
+            Function<String, List<JsonObject>> explainer, OnMissing onMissing, Duration buildTimeout) {
+        this.indexManagers = indexManagers;
+        this.explainer = explainer;
+        this.onMissing = onMissing;
+        this.buildTimeout = buildTimeout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void verifyOnStartup() {
+        if (onMissing == OnMissing.OFF) {
+            return;
+        }
+        Report report;
+        try {
+            report = verify(REQUIRED);
+        } catch (CouchbaseException e) {
+            if (onMissing == OnMissing.FAIL) {
+                throw e;
+            }
+            log.warn("Could not check the query indexes, create them with scripts/setup.sqlpp", e);
+            return;
+        }
+        log.info("Index check: {} missing, {} created, {} queries on a primary scan", report.missing().size(),
+                report.created().size(), report.primaryScans().size());
+    }
+
+    /**
+     * Checks, and depending on the mode creates, the given indexes, then
+     * explains the queries they serve.
+     *
+     * @throws IllegalStateException in {@code fail} mode if any index is missing
+     */
+    Report verify(List<RequiredIndex> required) {
+        List<String> missing = new ArrayList<>();
+        List<String> created = new ArrayList<>();
+        List<RequiredIndex> toBuild = new ArrayList<>();
+        for (RequiredIndex index : required) {
+            CollectionQueryIndexManager manager = indexManagers.apply(index.collection());
+            List<QueryIndex> existing = manager.getAllIndexes();
+            if (existing.stream().anyMatch(index::isSatisfiedBy)) {
+                continue;
+            }
+            missing.add(index.describe());
+            if (existing.stream().anyMatch(candidate -> candidate.name().equals(index.name()))) {
+                log.warn("Index {} exists with different keys than {}", index.name(), index.describe());
+                continue;
+            }
+            if (onMissing == OnMissing.CREATE) {
+                if (index.isPrimary()) {
+                    manager.createPrimaryIndex(CreatePrimaryQueryIndexOptions.createPrimaryQueryIndexOptions()
+                            .deferred(true).ignoreIfExists(true));
+                } else {
+                    manager.createIndex(index.name(), index.keys(), CreateQueryIndexOptions.createQueryIndexOptions()
+                            .deferred(true).ignoreIfExists(true));
+                }
+                created.add(index.describe());
+                toBuild.add(index);
+                log.info("Created deferred index {}", index.describe());
+            } else {
+                log.warn("Missing index {}", index.describe());
+            }
+        }
+        if (onMissing == OnMissing.FAIL && !missing.isEmpty()) {
+            throw new IllegalStateException("Missing indexes: " + String.join(", ", missing)
+                    + " (run scripts/setup.sqlpp or set app.indexes.on-missing=create to create them)");
+        }
+        for (String collection : toBuild.stream().map(RequiredIndex::collection).distinct().toList()) {
+            CollectionQueryIndexManager manager = indexManagers.apply(collection);
+            manager.buildDeferredIndexes();
+            if (!buildTimeout.isZero()) {
+                List<RequiredIndex> built = toBuild.stream()
+                        .filter(index -> index.collection().equals(collection))
+                        .toList();
+                manager.watchIndexes(built.stream().filter(index -> !index.isPrimary()).map(RequiredIndex::name)
+                        .toList(), buildTimeout, WatchQueryIndexesOptions.watchQueryIndexesOptions()
+                        .watchPrimary(built.stream().anyMatch(RequiredIndex::isPrimary)));
+            }
+        }
+        return new Report(missing, created, explain(required));
+    }
+
+    private List<String> explain(List<RequiredIndex> required) {
+        List<String> primaryScans = new ArrayList<>();
+        for (UsedBy usedBy : required.stream().flatMap(index -> index.usedBy().stream()).distinct().toList()) {
+            try {
+                for (JsonObject row : explainer.apply(usedBy.statement())) {
+                    if (hasPrimaryScan(row.get("plan"))) {
+                        primaryScans.add(usedBy.toString());
+                        log.warn("{} falls back to a primary scan, check the indexes it needs", usedBy);
+                        break;
+                    }
+                }
+            } catch (CouchbaseException e) {
+                log.warn("Could not explain {}", usedBy, e);
+            }
+        }
+        return primaryScans;
+    }
+
+    private static boolean hasPrimaryScan(Object plan) {
+        if (plan instanceof JsonObject operator) {
+            Object name = operator.get("#operator");
+            if (name instanceof String text && text.startsWith("PrimaryScan")) {
+                return true;
+            }
+            return operator.getNames().stream().anyMatch(key -> hasPrimaryScan(operator.get(key)));
+        }
+        if (plan instanceof JsonArray operators) {
+            for (Object child : operators) {
+                if (hasPrimaryScan(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An index a collection needs. A primary index has no keys and is not
+     * explained, since the queries that use it scan the whole collection anyway.
+     */
+    record RequiredIndex(String collection, String name, List<String> keys, List<UsedBy> usedBy) {
+
+        static RequiredIndex primary(String collection) {
+            return new RequiredIndex(collection, "#primary", List.of(), List.of());
+        }
+
+        boolean isPrimary() {
+            return keys.isEmpty();
+        }
+
+        boolean isSatisfiedBy(QueryIndex index) {
+            if (isPrimary()) {
+                return index.primary();
+            }
+            if (index.primary() || index.condition().isPresent()) {
+                return false;
+            }
+            List<Object> existing = index.indexKey().toList();
+            if (existing.size() < keys.size()) {
+                return false;
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                if (!keys.get(i).equals(String.valueOf(existing.get(i)).replace("`", ""))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String describe() {
+            return SCOPE + "." + collection + "." + name + (isPrimary() ? "" : keys.toString());
+        }
+    }
+
+    /**
+     * A repository method whose {@code @Query} an index serves.
+     */
+    record UsedBy(Class<?> repository, String method) {
+
+        String statement() {
+            return Arrays.stream(repository.getMethods())
+                    .filter(candidate -> candidate.getName().equals(method))
+                    .map(candidate -> candidate.getAnnotation(Query.class))
+                    .filter(query -> query != null)
+                    .map(Query::value)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No @Query on " + this));
+        }
+
+        @Override
+        public String toString() {
+            return repository.getSimpleName() + "." + method;
+        }
+    }
+
+    record Report(List<String> missing, List<String> created, List<String> primaryScans) {
+    }
+}
@@ -0,0 +1,54 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.cnc.Counter;
+import com.couchbase.client.core.cnc.Meter;
+import com.couchbase.client.core.cnc.ValueRecorder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bridges the Couchbase SDK meter into Micrometer, so the SDK's own per-request
+ * latencies, such as {@code db.couchbase.operations} tagged by service and
+ * operation, are exported next to the application metrics.
+ * <p>
+ * The SDK records latencies in microseconds; they are exposed as timers.
+ */
+public class MicrometerCouchbaseMeter implements Meter {
+
+    private final MeterRegistry registry;
+
+    public MicrometerCouchbaseMeter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Counter counter(String name, Map<String, String> tags) {
+        io.micrometer.core.instrument.Counter counter = io.micrometer.core.instrument.Counter.builder(name)
+                .tags(toTags(tags))
+                .register(registry);
+        return counter::increment;
+    }
+
+    @Override
+    public ValueRecorder valueRecorder(String name, Map<String, String> tags) {
+        Timer timer = Timer.builder(name)
+                .tags(toTags(tags))
+                .register(registry);
+        return value -> timer.record(value, TimeUnit.MICROSECONDS);
+    }
+
+    private static Tags toTags(Map<String, String> tags) {
+        Tags result = Tags.empty();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (tag.getValue() != null) {
+                result = result.and(tag.getKey(), tag.getValue());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,204 @@
+package org.couchbase.quickstart.springdata.config;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.couchbase.quickstart.springdata.services.PreparedStatementRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.error.IndexNotFoundException;
+import com.couchbase.client.core.error.PreparedStatementFailureException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Times every repository method call as {@code couchbase.repository}, tagged
+ * with the repository, the method, whether it is a KV or a N1QL operation and
+ * the outcome. Reactive results are timed until they complete.
+ * <p>
+ * Calls made through {@code withOptions(...)} are counted too: the proxy it
+ * returns delegates to the instrumented repository.
+ * <p>
+ * When statements run prepared, N1QL calls are also tagged with their phase:
+ * {@code prepare} for the first execution of a statement, which plans it, and
+ * {@code execute} for the ones that reuse the plan. The SDK does the actual
+ * preparing, so the phase is the {@link PreparedStatementRegistry}'s estimate.
+ * A plan the server rejects is dropped from the registry and counted in
+ * {@code couchbase.prepared.invalidations}.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    static final String METRIC_NAME = "couchbase.repository";
+    static final String INVALIDATIONS_METRIC_NAME = "couchbase.prepared.invalidations";
+
+    // CRUD methods that Spring Data Couchbase implements with KV operations;
+    // everything else, declared queries included, goes through the query service
+    private static final Set<String> KV_METHODS = Set.of("findById", "findAllById", "existsById", "save",
+            "saveAll", "deleteById", "deleteAllById", "delete");
+    private static final Set<String> UNTIMED_METHODS = Set.of("withOptions", "withScope", "withCollection");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<PreparedStatementRegistry> preparedStatementRegistry;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<PreparedStatementRegistry> preparedStatementRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.preparedStatementRegistry = preparedStatementRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository<?, ?>)) {
+            return bean;
+        }
+        Class<?>[] interfaces = bean instanceof Advised advised ? advised.getProxiedInterfaces()
+                : bean.getClass().getInterfaces();
+        String repository = Arrays.stream(interfaces)
+                .filter(Repository.class::isAssignableFrom)
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse(beanName);
+        MethodInterceptor interceptor = invocation -> invoke(repository, invocation);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy();
+    }
+
+    private Object invoke(String repository, MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null || UNTIMED_METHODS.contains(method.getName())
+                || method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        PreparedStatementRegistry prepared = preparedStatementRegistry.getIfAvailable();
+        String statement = isPrepared(prepared, method) ? statement(repository, method, invocation.getArguments())
+                : null;
+        String phase = statement == null ? (kind(method).equals("kv") ? "none" : "adhoc")
+                : prepared.register(statement) ? "prepare" : "execute";
+        Timer.Sample sample = Timer.start(registry);
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            sample.stop(timer(registry, repository, method, phase, e.getClass().getSimpleName()));
+            if (statement != null && isPlanInvalidation(e)) {
+                prepared.invalidate(statement);
+                registry.counter(INVALIDATIONS_METRIC_NAME, "repository", repository, "method", method.getName())
+                        .increment();
+            }
+            throw e;
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                Timer.Sample reactiveSample = Timer.start(registry);
+                return mono.doOnError(e -> reactiveSample.stop(timer(registry, repository, method, phase,
+                        e.getClass().getSimpleName())))
+                        .doFinally(signal -> stopUnlessError(reactiveSample, signal, registry, repository, method,
+                                phase));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                Timer.Sample reactiveSample = Timer.start(registry);
+                return flux.doOnError(e -> reactiveSample.stop(timer(registry, repository, method, phase,
+                        e.getClass().getSimpleName())))
+                        .doFinally(signal -> stopUnlessError(reactiveSample, signal, registry, repository, method,
+                                phase));
+            });
+        }
+        sample.stop(timer(registry, repository, method, phase, "None"));
+        return result;
+    }
+
+    // Reactive repositories do not take per-request options, so they always run ad hoc
+    private static boolean isPrepared(PreparedStatementRegistry prepared, Method method) {
+        return prepared != null && prepared.isEnabled() && kind(method).equals("n1ql")
+                && !Publisher.class.isAssignableFrom(method.getReturnType());
+    }
+
+    private void stopUnlessError(Timer.Sample sample, SignalType signal, MeterRegistry registry, String repository,
+            Method method, String phase) {
+        if (signal != SignalType.ON_ERROR) {
+            sample.stop(timer(registry, repository, method, phase,
+                    signal == SignalType.CANCEL ? "Cancelled" : "None"));
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String repository, Method method, String phase,
+            String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Couchbase repository method invocations")
+                .tag("repository", repository)
+                .tag("method", method.getName())
+                .tag("kind", kind(method))
+                .tag("phase", phase)
+                .tag("exception", exception)
+                .register(registry);
+    }
+
+    /**
+     * Identifies the statement a call runs: the method, plus the LIMIT, OFFSET
+     * and ORDER BY that Spring Data derives from a {@link Pageable} argument.
+     */
+    static String statement(String repository, Method method, Object[] arguments) {
+        StringBuilder statement = new StringBuilder(repository).append('.').append(method.getName()).append('(')
+                .append(Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName)
+                        .collect(Collectors.joining(",")))
+                .append(')');
+        for (Object argument : arguments) {
+            Sort sort = Sort.unsorted();
+            if (argument instanceof Pageable pageable) {
+                if (pageable.isPaged()) {
+                    statement.append(" LIMIT ").append(pageable.getPageSize())
+                            .append(" OFFSET ").append(pageable.getOffset());
+                }
+                sort = pageable.getSort();
+            } else if (argument instanceof Sort argumentSort) {
+                sort = argumentSort;
+            }
+            if (sort.isSorted()) {
+                statement.append(" ORDER BY ").append(sort);
+            }
+        }
+        return statement.toString();
+    }
+
+    private static boolean isPlanInvalidation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PreparedStatementFailureException || cause instanceof IndexNotFoundException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String kind(Method method) {
+        if (method.isAnnotationPresent(Query.class)) {
+            return "n1ql";
+        }
+        return KV_METHODS.contains(method.getName()) && method.getParameterCount() > 0 ? "kv" : "n1ql";
+    }
+}
@@ -1,26 +1,47 @@
 package org.couchbase.quickstart.springdata.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.TotalMode;
 import org.couchbase.quickstart.springdata.services.AirlineService;
+import org.couchbase.quickstart.springdata.services.BatchWriter;
+import org.couchbase.quickstart.springdata.services.DocumentPatcher;
+import org.couchbase.quickstart.springdata.services.Versioned;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataRetrievalFailureException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.couchbase.client.core.error.CasMismatchException;
 import com.couchbase.client.core.error.DocumentExistsException;
 import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.subdoc.PathExistsException;
+import com.couchbase.client.core.error.subdoc.PathMismatchException;
+import com.couchbase.client.core.error.subdoc.PathNotFoundException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,35 +49,55 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
 
 @Slf4j
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/airline")
 public class AirlineController {
 
     private final AirlineService airlineService;
+    private final BatchWriter batchWriter;
 
-    public AirlineController(AirlineService airlineService) {
+    public AirlineController(AirlineService airlineService, BatchWriter batchWriter) {
         this.airlineService = airlineService;
+        this.batchWriter = batchWriter;
     }
 
     // All Errors
     private static final String INTERNAL_SERVER_ERROR = "Internal server error";
     private static final String DOCUMENT_NOT_FOUND = "Document not found";
     private static final String DOCUMENT_ALREADY_EXISTS = "Document already exists";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String FIELDS_WITH_CURSOR = "Fields cannot be selected with a cursor";
+    private static final String INVALID_TOTAL_MODE = "Invalid total mode";
+    private static final String INVALID_FIELDS = "Invalid fields";
+    private static final String INVALID_BATCH = "Invalid batch";
+    private static final String INVALID_PATCH = "Invalid patch";
+    private static final String PATCH_CONFLICT = "Patch conflicts with the document";
+    private static final String INVALID_ETAG = "Invalid ETag";
+    private static final String DOCUMENT_CHANGED = "Document has changed";
+    private static final String EXPORT_FAILED = "Export failed";
+
+    private static final int MAX_IDS = 100;
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get an airline by ID", description = "Get Airline by specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to retrieve a document with a specified ID. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `getAirline`", tags = {
+    @Operation(summary = "Get an airline by ID", description = "Get Airline by specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to retrieve a document with a specified ID. The response has an `ETag` built from the document CAS, and sending it back in `If-None-Match` returns an empty `304` while the document is unchanged. The ETag and the `304` come from the cache of recently read airlines, so after a write made elsewhere they can be outdated for up to the cache TTL. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `getAirline`", tags = {
             "Airline" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Airline found"),
+            @ApiResponse(responseCode = "304", description = "Airline not modified since the If-None-Match ETag"),
             @ApiResponse(responseCode = "404", description = "Airline not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
-    public ResponseEntity<Airline> getAirline(@PathVariable String id) {
+    @Parameter(name = "If-None-Match", description = "ETag of a version the client already has; returns 304 if it is still current", required = false)
+    public ResponseEntity<Airline> getAirline(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Optional<Airline> airline = airlineService.getAirlineById(id);
-            return airline.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+            Optional<Versioned<Airline>> airline = airlineService.getVersionedAirline(id);
+            return airline.map(value -> ETags.response(value, ifNoneMatch))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
         } catch (DocumentNotFoundException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
@@ -67,6 +108,53 @@ public class AirlineController {
         }
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    @Operation(summary = "Get selected fields of an airline by ID", description = "Get only the requested fields of the Airline with the specified ID.\n\nThis provides an example of using sub-document lookups in Couchbase to read just some fields of a document, so the rest is neither read nor sent. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `getAirlineFields`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airline found"),
+            @ApiResponse(responseCode = "400", description = "Unknown field"),
+            @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
+    @Parameter(name = "fields", description = "Comma-separated fields to return; the ID is always included", required = true, example = "name,country")
+    public ResponseEntity<Map<String, Object>> getAirlineFields(@PathVariable String id, @RequestParam String fields) {
+        try {
+            Optional<Map<String, Object>> airline = airlineService.getAirlineById(id, fields);
+            return airline.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
+            log.error(DOCUMENT_NOT_FOUND, e);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get airlines by IDs", description = "Get many airlines by their IDs in one request.\n\nThis provides an example of using concurrent Key Value operations in Couchbase to retrieve several documents in about one round trip. The response lists the documents that were found and the IDs that were not. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `getAirlines`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found and IDs missing"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "ids", description = "Comma-separated airline IDs, at most " + MAX_IDS, required = true, example = "airline_10,airline_10123")
+    public ResponseEntity<MultiGetResult<Airline>> getAirlines(@RequestParam List<String> ids) {
+        try {
+            if (ids.size() > MAX_IDS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(airlineService.getAirlinesByIds(ids), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PostMapping("/{id}")
     @Operation(summary = "Create an airline", description = "Create an airline with the specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to create a document with a specified ID. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `createAirline`", tags = {
             "Airline" })
@@ -88,25 +176,128 @@ public class AirlineController {
         }
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create airlines in bulk", description = "Create many airlines from a JSON array in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every airline gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `createAirlines`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-airline results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public ResponseEntity<List<BatchItemResult>> createAirlines(@RequestBody List<Airline> airlines,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        try {
+            return new ResponseEntity<>(airlineService.createAirlines(airlines, upsert), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_BATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create airlines in bulk from NDJSON", description = "Create many airlines from newline-delimited JSON in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every airline gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `createAirlinesFromNdjson`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-airline results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large or malformed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public ResponseEntity<List<BatchItemResult>> createAirlinesFromNdjson(InputStream body,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        try {
+            List<Airline> airlines = batchWriter.readNdjson(body, Airline.class);
+            return new ResponseEntity<>(airlineService.createAirlines(airlines, upsert), HttpStatus.OK);
+        } catch (IllegalArgumentException | JacksonException e) {
+            log.error(INVALID_BATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an airline", description = "Update an airline with the specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to update a document with a specified ID. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `updateAirline`", tags = {
             "Airline" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Airline updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match header"),
             @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "412", description = "Airline has changed since the If-Match ETag, or does not exist with If-Match: *"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
-    public ResponseEntity<Airline> updateAirline(@PathVariable String id, @Valid @RequestBody Airline airline) {
+    @Parameter(name = "If-Match", description = "Only update if the airline still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Airline> updateAirline(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody Airline airline) {
         try {
-            Airline updatedAirline = airlineService.updateAirline(id, airline);
+            Versioned<Airline> updatedAirline = airlineService.updateAirline(id, airline, ETags.cas(ifMatch));
             if (updatedAirline != null) {
-                return new ResponseEntity<>(updatedAirline, HttpStatus.OK);
+                return new ResponseEntity<>(updatedAirline.value(), ETags.headers(updatedAirline.cas()),
+                        HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (CasMismatchException e) {
+            log.error(DOCUMENT_CHANGED, e);
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { DocumentPatcher.JSON_PATCH, DocumentPatcher.MERGE_PATCH })
+    @Operation(summary = "Patch an airline", description = "Change some fields of an airline with a JSON Patch (`application/json-patch+json`) or JSON Merge Patch (`application/merge-patch+json`) document.\n\nThis provides an example of using sub-document operations in Couchbase to change parts of a document without sending or rewriting the rest of it. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `patchAirline`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Airline patched"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch or If-Match header"),
+            @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "409", description = "The patch does not apply to the current document"),
+            @ApiResponse(responseCode = "412", description = "Airline has changed since the If-Match ETag, or does not exist with If-Match: *"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
+    @Parameter(name = "If-Match", description = "Only patch if the airline still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Void> patchAirline(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, @RequestBody JsonNode patch) {
+        long cas;
+        try {
+            cas = ETags.cas(ifMatch);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            long patchedCas = airlineService.patchAirline(id, contentType, patch, cas);
+            return new ResponseEntity<>(ETags.headers(patchedCas), HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_PATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DocumentNotFoundException e) {
+            log.error(DOCUMENT_NOT_FOUND, e);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
+        } catch (CasMismatchException e) {
+            if (ETags.namesVersion(cas)) {
+                log.error(DOCUMENT_CHANGED, e);
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            }
+            // Written between the reads of the patch and its mutateIn
+            log.error(PATCH_CONFLICT, e);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalStateException | PathNotFoundException | PathExistsException | PathMismatchException e) {
+            log.error(PATCH_CONFLICT, e);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -118,16 +309,26 @@ public class AirlineController {
             "Airline" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Airline deleted"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match header"),
             @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "412", description = "Airline has changed since the If-Match ETag, or does not exist with If-Match: *"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
-    public ResponseEntity<Void> deleteAirline(@PathVariable String id) {
+    @Parameter(name = "If-Match", description = "Only delete if the airline still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Void> deleteAirline(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            airlineService.deleteAirline(id);
+            airlineService.deleteAirline(id, ETags.cas(ifMatch));
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (CasMismatchException e) {
+            log.error(DOCUMENT_CHANGED, e);
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -135,24 +336,106 @@ public class AirlineController {
     }
 
     @GetMapping("/list")
-    @Operation(summary = "List all airlines by country", description = "List all airlines by country.\n\nThis provides an example of using N1QL queries in Couchbase to retrieve documents with a specified field value. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `listAirlinesByCountry`", tags = {
+    @Operation(summary = "List all airlines by country", description = "List all airlines by country.\n\nThis provides an example of using N1QL queries in Couchbase to retrieve documents with a specified field value. Set `total` to `approx` for a cached total, or to `none` to skip counting and only report whether there is a next page. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `listAirlinesByCountry`", tags = {
             "Airline" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "400", description = "Invalid total mode"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "country", description = "Country", required = false, example = "United States")
-    public ResponseEntity<Page<Airline>> listAirlinesByCountry(
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Airline>> listAirlinesByCountry(
             @RequestParam(required = false) String country,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
         try {
+            TotalMode totalMode = TotalMode.of(total);
             if (country == null || country.isEmpty()) {
-                Page<Airline> airlines = airlineService.getAllAirlines(PageRequest.of(page, size));
+                Slice<Airline> airlines = airlineService.getAllAirlines(PageRequest.of(page, size), totalMode);
                 return new ResponseEntity<>(airlines, HttpStatus.OK);
             } else {
-                Page<Airline> airlines = airlineService.findByCountry(country, PageRequest.of(page, size));
+                Slice<Airline> airlines = airlineService.findByCountry(country, PageRequest.of(page, size),
+                        totalMode);
                 return new ResponseEntity<>(airlines, HttpStatus.OK);
             }
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_TOTAL_MODE, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/list", params = { "fields", "!cursor" })
+    @Operation(summary = "List selected fields of all airlines by country", description = "List only the requested fields of all airlines by country.\n\nThis provides an example of pushing a field list down into the SELECT list of a N1QL query in Couchbase, so unused fields are neither read nor sent. Set `total` to `approx` for a cached total, or to `none` to skip counting. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `listAirlinesByCountryFields`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "400", description = "Unknown field or invalid total mode"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "country", description = "Country", required = false, example = "United States")
+    @Parameter(name = "fields", description = "Comma-separated fields to return; the ID is always included", required = true, example = "name,country")
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Map<String, Object>>> listAirlinesByCountryFields(
+            @RequestParam(required = false) String country,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
+        try {
+            TotalMode totalMode = TotalMode.of(total);
+            Slice<Map<String, Object>> airlines;
+            if (country == null || country.isEmpty()) {
+                airlines = airlineService.getAllAirlines(PageRequest.of(page, size), totalMode, fields);
+            } else {
+                airlines = airlineService.findByCountry(country, PageRequest.of(page, size), totalMode, fields);
+            }
+            return new ResponseEntity<>(airlines, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/list", params = "cursor")
+    @Operation(summary = "List all airlines by country using a cursor", description = "List all airlines by country, one page at a time, using a continuation token.\n\nThis provides an example of keyset pagination with N1QL queries in Couchbase: every page seeks past the last document ID of the previous one, so deep pages cost the same as the first. Pass an empty `cursor` to start and the returned `nextCursor` to continue. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `listAirlinesByCountryAfter`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size, or fields given with a cursor"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "country", description = "Country", required = false, example = "United States")
+    @Parameter(name = "cursor", description = "Continuation token from the previous page, empty for the first page", required = true, example = "")
+    public ResponseEntity<CursorPage<Airline>> listAirlinesByCountryAfter(
+            @RequestParam(required = false) String country,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
+        // Keyset pages return whole documents, so a field list would be silently ignored
+        if (fields != null) {
+            log.error(FIELDS_WITH_CURSOR);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            if (size < 1) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            String lastId = CursorPage.decodeCursor(cursor);
+            List<Airline> airlines;
+            if (country == null || country.isEmpty()) {
+                airlines = airlineService.getAirlinesAfter(lastId, size + 1);
+            } else {
+                airlines = airlineService.findByCountryAfter(country, lastId, size + 1);
+            }
+            return new ResponseEntity<>(CursorPage.of(airlines, size, Airline::getId), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_CURSOR, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -160,24 +443,66 @@ public class AirlineController {
     }
 
     @GetMapping("/to-airport")
-    @Operation(summary = "List all airlines by desination airport", description = "List all airlines by destination airport.\n\nThis provides an example of using N1QL queries in Couchbase to retrieve documents with a specified field value. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `listAirlinesByDestinationAirport`", tags = {
+    @Operation(summary = "List all airlines by desination airport", description = "List all airlines by destination airport, ordered by airline ID.\n\nThis provides an example of reading a materialized index document in Couchbase with one KV get, then fetching just the requested page of airlines by ID. The `airline_by_destination` collection is kept up to date on every route write, and N1QL is used until it has been built. Set `total` to `approx` for a cached total, or to `none` to skip counting and only report whether there is a next page. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `listAirlinesByDestinationAirport`", tags = {
             "Airline" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "400", description = "Invalid total mode"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "destinationAirport", description = "Destination Airport", required = false, example = "SFO")
-    public ResponseEntity<Page<Airline>> listAirlinesByDestinationAirport(
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Airline>> listAirlinesByDestinationAirport(
             @RequestParam(required = false) String destinationAirport,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
         try {
-            Page<Airline> airlines = airlineService.findByDestinationAirport(destinationAirport,
-                    PageRequest.of(page, size));
+            Slice<Airline> airlines = airlineService.findByDestinationAirport(destinationAirport,
+                    PageRequest.of(page, size), TotalMode.of(total));
 
             return new ResponseEntity<>(airlines, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_TOTAL_MODE, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all airlines", description = "Export every airline as newline-delimited JSON.\n\nThis provides an example of using KV range scans in Couchbase to read a whole collection without the query service or an index. Documents are streamed as `{\"id\":...,\"value\":...}` lines with constant memory use, gzip-compressed when the client accepts it. `{\"checkpoint\":...}` lines mark how far the export got: pass the last one as `after` to resume. Set `sample` to export a random sample instead. \n\n Code: [`controllers/AirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirlineController.java) \n File: `AirlineController.java` \n Method: `exportAirlines`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines exported"),
+            @ApiResponse(responseCode = "400", description = "Invalid sample size") })
+    @Parameter(name = "after", description = "Resume the export after this checkpoint", required = false, example = "airline_10")
+    @Parameter(name = "sample", description = "Export a random sample of about this many airlines", required = false, example = "100")
+    public ResponseEntity<StreamingResponseBody> exportAirlines(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long sample,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (sample != null && (sample < 1 || after != null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            try {
+                if (sample != null) {
+                    airlineService.exportAirlineSample(sample, out, gzip);
+                } else {
+                    airlineService.exportAirlines(after, out, gzip);
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.error(EXPORT_FAILED, ex);
+                throw ex;
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
 }
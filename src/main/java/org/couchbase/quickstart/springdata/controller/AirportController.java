@@ -1,28 +1,52 @@
 package org.couchbase.quickstart.springdata.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.Itinerary;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.NearbyAirport;
 import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.TotalMode;
 import org.couchbase.quickstart.springdata.services.AirportService;
+import org.couchbase.quickstart.springdata.services.BatchWriter;
+import org.couchbase.quickstart.springdata.services.AirportLocator;
+import org.couchbase.quickstart.springdata.services.DocumentPatcher;
+import org.couchbase.quickstart.springdata.services.Versioned;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataRetrievalFailureException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.couchbase.client.core.error.CasMismatchException;
 import com.couchbase.client.core.error.DocumentExistsException;
 import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.subdoc.PathExistsException;
+import com.couchbase.client.core.error.subdoc.PathMismatchException;
+import com.couchbase.client.core.error.subdoc.PathNotFoundException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,32 +54,81 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/airport")
 @Slf4j
 public class AirportController {
 
     private final AirportService airportService;
+    private final BatchWriter batchWriter;
 
-    public AirportController(AirportService airportService) {
+    public AirportController(AirportService airportService, BatchWriter batchWriter) {
         this.airportService = airportService;
+        this.batchWriter = batchWriter;
     }
 
     // All Errors
     private static final String INTERNAL_SERVER_ERROR = "Internal server error";
     private static final String DOCUMENT_NOT_FOUND = "Document not found";
     private static final String DOCUMENT_ALREADY_EXISTS = "Document already exists";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String FIELDS_WITH_CURSOR = "Fields cannot be selected with a cursor";
+    private static final String INVALID_TOTAL_MODE = "Invalid total mode";
+    private static final String INVALID_FIELDS = "Invalid fields";
+    private static final String INVALID_BATCH = "Invalid batch";
+    private static final String INVALID_PATCH = "Invalid patch";
+    private static final String PATCH_CONFLICT = "Patch conflicts with the document";
+    private static final String INVALID_ETAG = "Invalid ETag";
+    private static final String DOCUMENT_CHANGED = "Document has changed";
+    private static final String EXPORT_FAILED = "Export failed";
+
+    private static final int MAX_IDS = 100;
+    private static final int MAX_STOPS = 3;
+    private static final int MAX_PATHS = 20;
+    private static final int MAX_NEARBY = 100;
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get an airport by ID", description = "Get Airport by specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to retrieve a document with a specified ID. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `getAirport`", tags = {
+    @Operation(summary = "Get an airport by ID", description = "Get Airport by specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to retrieve a document with a specified ID. The response has an `ETag` built from the document CAS, and sending it back in `If-None-Match` returns an empty `304` while the document is unchanged. The ETag and the `304` come from the cache of recently read airports, so after a write made elsewhere they can be outdated for up to the cache TTL. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `getAirport`", tags = {
             "Airport" })
     @Parameter(name = "id", description = "The ID of the airport to retrieve", required = true, example = "airport_1254")
-    public ResponseEntity<Airport> getAirport(@PathVariable String id) {
+    @Parameter(name = "If-None-Match", description = "ETag of a version the client already has; returns 304 if it is still current", required = false)
+    public ResponseEntity<Airport> getAirport(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Optional<Airport> airport = airportService.getAirportById(id);
+            Optional<Versioned<Airport>> airport = airportService.getVersionedAirport(id);
+            return airport.map(value -> ETags.response(value, ifNoneMatch))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
+            log.error(DOCUMENT_NOT_FOUND, e);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    @Operation(summary = "Get selected fields of an airport by ID", description = "Get only the requested fields of the Airport with the specified ID.\n\nThis provides an example of using sub-document lookups in Couchbase to read just some fields of a document, so the rest is neither read nor sent. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `getAirportFields`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airport found"),
+            @ApiResponse(responseCode = "400", description = "Unknown field"),
+            @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airport ID", required = true, example = "airport_1254")
+    @Parameter(name = "fields", description = "Comma-separated fields to return; the ID is always included", required = true, example = "airportName,city,country")
+    public ResponseEntity<Map<String, Object>> getAirportFields(@PathVariable String id, @RequestParam String fields) {
+        try {
+            Optional<Map<String, Object>> airport = airportService.getAirportById(id, fields);
             return airport.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -65,6 +138,26 @@ public class AirportController {
         }
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get airports by IDs", description = "Get many airports by their IDs in one request.\n\nThis provides an example of using concurrent Key Value operations in Couchbase to retrieve several documents in about one round trip. The response lists the documents that were found and the IDs that were not. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `getAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found and IDs missing"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "ids", description = "Comma-separated airport IDs, at most " + MAX_IDS, required = true, example = "airport_1254,airport_1255")
+    public ResponseEntity<MultiGetResult<Airport>> getAirports(@RequestParam List<String> ids) {
+        try {
+            if (ids.size() > MAX_IDS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(airportService.getAirportsByIds(ids), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PostMapping("/{id}")
     @Operation(summary = "Create an airport", description = "Create an airport with the specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to create a document with a specified ID. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `createAirport`", tags = {
             "Airport" })
@@ -88,27 +181,130 @@ public class AirportController {
 
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create airports in bulk", description = "Create many airports from a JSON array in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every airport gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `createAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-airport results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public ResponseEntity<List<BatchItemResult>> createAirports(@RequestBody List<Airport> airports,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        try {
+            return new ResponseEntity<>(airportService.createAirports(airports, upsert), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_BATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create airports in bulk from NDJSON", description = "Create many airports from newline-delimited JSON in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every airport gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `createAirportsFromNdjson`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-airport results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large or malformed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public ResponseEntity<List<BatchItemResult>> createAirportsFromNdjson(InputStream body,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        try {
+            List<Airport> airports = batchWriter.readNdjson(body, Airport.class);
+            return new ResponseEntity<>(airportService.createAirports(airports, upsert), HttpStatus.OK);
+        } catch (IllegalArgumentException | JacksonException e) {
+            log.error(INVALID_BATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an airport", description = "Update an airport with the specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to update a document with a specified ID. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `updateAirport`", tags = {
             "Airport" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Airport updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match header"),
             @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "412", description = "Airport has changed since the If-Match ETag, or does not exist with If-Match: *"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @Parameter(name = "id", description = "The ID of the airport to update", required = true, example = "airport_1254")
-    public ResponseEntity<Airport> updateAirport(@PathVariable String id, @Valid @RequestBody Airport airport) {
+    @Parameter(name = "If-Match", description = "Only update if the airport still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Airport> updateAirport(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody Airport airport) {
         try {
-            Airport updatedAirport = airportService.updateAirport(id, airport);
+            Versioned<Airport> updatedAirport = airportService.updateAirport(id, airport, ETags.cas(ifMatch));
             if (updatedAirport != null) {
-                return new ResponseEntity<>(updatedAirport, HttpStatus.OK);
+                return new ResponseEntity<>(updatedAirport.value(), ETags.headers(updatedAirport.cas()),
+                        HttpStatus.OK);
             } else {
                 log.error(DOCUMENT_NOT_FOUND);
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (CasMismatchException e) {
+            log.error(DOCUMENT_CHANGED, e);
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { DocumentPatcher.JSON_PATCH, DocumentPatcher.MERGE_PATCH })
+    @Operation(summary = "Patch an airport", description = "Change some fields of an airport with a JSON Patch (`application/json-patch+json`) or JSON Merge Patch (`application/merge-patch+json`) document.\n\nThis provides an example of using sub-document operations in Couchbase to change parts of a document without sending or rewriting the rest of it. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `patchAirport`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Airport patched"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch or If-Match header"),
+            @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "409", description = "The patch does not apply to the current document"),
+            @ApiResponse(responseCode = "412", description = "Airport has changed since the If-Match ETag, or does not exist with If-Match: *"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airport ID", required = true, example = "airport_1254")
+    @Parameter(name = "If-Match", description = "Only patch if the airport still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Void> patchAirport(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, @RequestBody JsonNode patch) {
+        long cas;
+        try {
+            cas = ETags.cas(ifMatch);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            long patchedCas = airportService.patchAirport(id, contentType, patch, cas);
+            return new ResponseEntity<>(ETags.headers(patchedCas), HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_PATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DocumentNotFoundException e) {
+            log.error(DOCUMENT_NOT_FOUND, e);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
+        } catch (CasMismatchException e) {
+            if (ETags.namesVersion(cas)) {
+                log.error(DOCUMENT_CHANGED, e);
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            }
+            // Written between the reads of the patch and its mutateIn
+            log.error(PATCH_CONFLICT, e);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalStateException | PathNotFoundException | PathExistsException | PathMismatchException e) {
+            log.error(PATCH_CONFLICT, e);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -120,17 +316,27 @@ public class AirportController {
             "Airport" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Airport deleted"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match header"),
             @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "412", description = "Airport has changed since the If-Match ETag, or does not exist with If-Match: *"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @Parameter(name = "id", description = "The ID of the airport to delete", required = true, example = "airport_1254")
-    public ResponseEntity<Void> deleteAirport(@PathVariable String id) {
+    @Parameter(name = "If-Match", description = "Only delete if the airport still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Void> deleteAirport(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            airportService.deleteAirport(id);
+            airportService.deleteAirport(id, ETags.cas(ifMatch));
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (CasMismatchException e) {
+            log.error(DOCUMENT_CHANGED, e);
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         } catch (DocumentNotFoundException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -138,17 +344,82 @@ public class AirportController {
     }
 
     @GetMapping("/list")
-    @Operation(summary = "List all airports", description = "List all airports in the database.\n\nThis provides an example of using N1QL to query all documents in a bucket. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listAirports`", tags = {
+    @Operation(summary = "List all airports", description = "List all airports in the database.\n\nThis provides an example of using N1QL to query all documents in a bucket. Set `total` to `approx` for a cached total, or to `none` to skip counting and only report whether there is a next page. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listAirports`", tags = {
             "Airport" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of airports"),
+            @ApiResponse(responseCode = "400", description = "Invalid total mode"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Page<Airport>> listAirports(@RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Airport>> listAirports(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
+        try {
+            Slice<Airport> airports = airportService.getAllAirports(PageRequest.of(page, size), TotalMode.of(total));
+            return new ResponseEntity<>(airports, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_TOTAL_MODE, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/list", params = { "fields", "!cursor" })
+    @Operation(summary = "List selected fields of all airports", description = "List only the requested fields of all airports.\n\nThis provides an example of pushing a field list down into the SELECT list of a N1QL query in Couchbase, so unused fields are neither read nor sent. Set `total` to `approx` for a cached total, or to `none` to skip counting. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listAirportsFields`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found"),
+            @ApiResponse(responseCode = "400", description = "Unknown field or invalid total mode"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "fields", description = "Comma-separated fields to return; the ID is always included", required = true, example = "airportName,city,country")
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Map<String, Object>>> listAirportsFields(
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
         try {
-            Page<Airport> airports = airportService.getAllAirports(PageRequest.of(page, size));
+            TotalMode totalMode = TotalMode.of(total);
+            Slice<Map<String, Object>> airports = airportService.getAllAirports(PageRequest.of(page, size), totalMode, fields);
             return new ResponseEntity<>(airports, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/list", params = "cursor")
+    @Operation(summary = "List all airports using a cursor", description = "List all airports, one page at a time, using a continuation token.\n\nThis provides an example of keyset pagination with N1QL queries in Couchbase: every page seeks past the last document ID of the previous one, so deep pages cost the same as the first. Pass an empty `cursor` to start and the returned `nextCursor` to continue. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listAirportsAfter`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of airports"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size, or fields given with a cursor"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Parameter(name = "cursor", description = "Continuation token from the previous page, empty for the first page", required = true, example = "")
+    public ResponseEntity<CursorPage<Airport>> listAirportsAfter(@RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
+        // Keyset pages return whole documents, so a field list would be silently ignored
+        if (fields != null) {
+            log.error(FIELDS_WITH_CURSOR);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            if (size < 1) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            List<Airport> airports = airportService.getAirportsAfter(CursorPage.decodeCursor(cursor), size + 1);
+            return new ResponseEntity<>(CursorPage.of(airports, size, Airport::getId), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_CURSOR, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -177,4 +448,129 @@ public class AirportController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @GetMapping(value = "/direct-connections", params = "fields")
+    @Operation(summary = "List selected fields of the direct routes from an airport", description = "List only the requested fields of the direct routes from an airport.\n\nThis provides an example of pushing a field list down into the SELECT list of a N1QL join in Couchbase, so unused fields such as the schedule are neither read nor sent. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listDirectConnectionFields`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of direct routes"),
+            @ApiResponse(responseCode = "400", description = "Unknown field"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Parameter(name = "airportCode", description = "The airport code to list direct connections", required = true, example = "SFO")
+    @Parameter(name = "fields", description = "Comma-separated route fields to return; the ID is always included", required = true, example = "destinationAirport,airline,distance")
+    public ResponseEntity<Slice<Map<String, Object>>> listDirectConnectionFields(
+            @RequestParam(required = true) String airportCode,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return new ResponseEntity<>(airportService.getDirectConnections(airportCode, PageRequest.of(page, size),
+                    fields), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/paths")
+    @Operation(summary = "Find itineraries between two airports", description = "Find the shortest itineraries between two airports with up to `maxStops` stops.\n\nThis provides an example of answering graph questions from an in-memory snapshot of the data in Couchbase: all routes are loaded once into a compact graph, kept up to date as routes are written through the API, and searched without any further queries. Itineraries never visit an airport twice and are sorted by total distance. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listPaths`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Itineraries found, possibly none"),
+            @ApiResponse(responseCode = "400", description = "Invalid number of stops or itineraries"),
+            @ApiResponse(responseCode = "404", description = "Airport without routes"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "from", description = "Departure airport code", required = true, example = "SFO")
+    @Parameter(name = "to", description = "Arrival airport code", required = true, example = "JFK")
+    @Parameter(name = "maxStops", description = "Maximum number of stops, at most " + MAX_STOPS, required = false, example = "1")
+    @Parameter(name = "limit", description = "Maximum number of itineraries, at most " + MAX_PATHS, required = false, example = "5")
+    public ResponseEntity<List<Itinerary>> listPaths(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "1") int maxStops,
+            @RequestParam(defaultValue = "5") int limit) {
+        try {
+            if (maxStops < 0 || maxStops > MAX_STOPS || limit < 1 || limit > MAX_PATHS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            Optional<List<Itinerary>> paths = airportService.findPaths(from.toUpperCase(Locale.ROOT),
+                    to.toUpperCase(Locale.ROOT), maxStops, limit);
+            return paths.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/nearby")
+    @Operation(summary = "Find airports near a location", description = "Find the airports within `radiusKm` of a location, nearest first, or the `limit` nearest airports if no radius is given.\n\nThis provides an example of answering geospatial questions from an in-memory snapshot of the data in Couchbase: all airport locations are loaded once into a grid index, kept up to date as airports are written through the API, and searched without any further queries. Distances are great-circle distances in kilometers. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `listNearbyAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found, possibly none"),
+            @ApiResponse(responseCode = "400", description = "Invalid location, radius or number of airports"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "lat", description = "Latitude in degrees", required = true, example = "37.6")
+    @Parameter(name = "lon", description = "Longitude in degrees", required = true, example = "-122.4")
+    @Parameter(name = "radiusKm", description = "Search radius in kilometers; without it the nearest airports are returned", required = false, example = "100")
+    @Parameter(name = "limit", description = "Maximum number of airports, at most " + MAX_NEARBY, required = false, example = "10")
+    public ResponseEntity<List<NearbyAirport>> listNearbyAirports(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            if (!(lat >= -90 && lat <= 90) || !(lon >= -180 && lon <= 180) || limit < 1 || limit > MAX_NEARBY
+                    || radiusKm != null && !(radiusKm > 0 && radiusKm <= AirportLocator.MAX_DISTANCE_KM)) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            List<NearbyAirport> airports = radiusKm != null
+                    ? airportService.findNearbyAirports(lat, lon, radiusKm, limit)
+                    : airportService.findNearestAirports(lat, lon, limit);
+            return new ResponseEntity<>(airports, HttpStatus.OK);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all airports", description = "Export every airport as newline-delimited JSON.\n\nThis provides an example of using KV range scans in Couchbase to read a whole collection without the query service or an index. Documents are streamed as `{\"id\":...,\"value\":...}` lines with constant memory use, gzip-compressed when the client accepts it. `{\"checkpoint\":...}` lines mark how far the export got: pass the last one as `after` to resume. Set `sample` to export a random sample instead. \n\n Code: [`controllers/AirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/AirportController.java) \n File: `AirportController.java` \n Method: `exportAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports exported"),
+            @ApiResponse(responseCode = "400", description = "Invalid sample size") })
+    @Parameter(name = "after", description = "Resume the export after this checkpoint", required = false, example = "airport_1254")
+    @Parameter(name = "sample", description = "Export a random sample of about this many airports", required = false, example = "100")
+    public ResponseEntity<StreamingResponseBody> exportAirports(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long sample,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (sample != null && (sample < 1 || after != null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            try {
+                if (sample != null) {
+                    airportService.exportAirportSample(sample, out, gzip);
+                } else {
+                    airportService.exportAirports(after, out, gzip);
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.error(EXPORT_FAILED, ex);
+                throw ex;
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,98 @@
+package org.couchbase.quickstart.springdata.controller;
+
+import org.couchbase.quickstart.springdata.services.DocumentWriter;
+import org.couchbase.quickstart.springdata.services.Versioned;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Maps document CAS values to and from HTTP entity tags.
+ * <p>
+ * The ETags of {@code GET} responses come from the entity caches of the
+ * services, so they can lag behind a write made elsewhere for up to the cache
+ * TTL. Writes always check against the stored CAS.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long cas) {
+        return "\"" + Long.toHexString(cas) + "\"";
+    }
+
+    static HttpHeaders headers(long cas) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(of(cas));
+        return headers;
+    }
+
+    /**
+     * Returns the entity with its ETag, or an empty 304 if {@code ifNoneMatch}
+     * already names that version.
+     */
+    static <T> ResponseEntity<T> response(Versioned<T> versioned, String ifNoneMatch) {
+        HttpHeaders headers = headers(versioned.cas());
+        if (ifNoneMatch != null) {
+            String etag = of(versioned.cas());
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                // If-None-Match uses the weak comparison
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+                }
+            }
+        }
+        return new ResponseEntity<>(versioned.value(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Parses an {@code If-Match} header into the CAS to check,
+     * {@link DocumentWriter#ANY_CAS} for {@code *}, or 0 if there is nothing to
+     * check.
+     *
+     * @throws IllegalArgumentException if it is not {@code *} or a single ETag from {@link #of(long)}
+     */
+    static long cas(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return 0;
+        }
+        if (isAny(ifMatch)) {
+            return DocumentWriter.ANY_CAS;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("Invalid ETag: " + tag);
+        }
+        try {
+            long cas = Long.parseUnsignedLong(tag.substring(1, tag.length() - 1), 16);
+            if (cas == 0 || cas == DocumentWriter.ANY_CAS) {
+                throw new IllegalArgumentException("Invalid ETag: " + tag);
+            }
+            return cas;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ETag: " + tag, e);
+        }
+    }
+
+    /**
+     * Whether a CAS from {@link #cas(String)} names one version of the
+     * document, rather than none or any.
+     */
+    static boolean namesVersion(long cas) {
+        return cas != 0 && cas != DocumentWriter.ANY_CAS;
+    }
+
+    /**
+     * The status of a conditional write to a missing document: {@code 412} if
+     * {@code If-Match: *} asked for an existing one, {@code 404} otherwise.
+     */
+    static HttpStatus missing(String ifMatch) {
+        return ifMatch != null && isAny(ifMatch) ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND;
+    }
+
+    private static boolean isAny(String ifMatch) {
+        return ifMatch.trim().equals("*");
+    }
+}
@@ -0,0 +1,258 @@
+package org.couchbase.quickstart.springdata.controller;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.services.ReactiveAirlineService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/airline")
+public class ReactiveAirlineController {
+
+    private final ReactiveAirlineService airlineService;
+
+    public ReactiveAirlineController(ReactiveAirlineService airlineService) {
+        this.airlineService = airlineService;
+    }
+
+    // All Errors
+    private static final String INTERNAL_SERVER_ERROR = "Internal server error";
+    private static final String DOCUMENT_NOT_FOUND = "Document not found";
+    private static final String DOCUMENT_ALREADY_EXISTS = "Document already exists";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String INVALID_BATCH = "Invalid batch";
+
+    private static final int MAX_IDS = 100;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get an airline by ID", description = "Get Airline by specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to retrieve a document with a specified ID. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `getAirline`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airline found"),
+            @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
+    public Mono<ResponseEntity<Airline>> getAirline(@PathVariable String id) {
+        return airlineService.getAirlineById(id)
+                .map(airline -> new ResponseEntity<>(airline, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(DocumentNotFoundException.class,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get airlines by IDs", description = "Get many airlines by their IDs in one request.\n\nThis provides an example of using concurrent non-blocking Key Value operations in Couchbase to retrieve several documents in about one round trip. The response lists the documents that were found and the IDs that were not. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `getAirlines`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found and IDs missing"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "ids", description = "Comma-separated airline IDs, at most " + MAX_IDS, required = true, example = "airline_10,airline_10123")
+    public Mono<ResponseEntity<MultiGetResult<Airline>>> getAirlines(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_IDS) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return airlineService.getAirlinesByIds(ids)
+                .map(airlines -> new ResponseEntity<>(airlines, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PostMapping("/{id}")
+    @Operation(summary = "Create an airline", description = "Create an airline with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to create a document with a specified ID. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `createAirline`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Airline created"),
+            @ApiResponse(responseCode = "409", description = "Airline already exists"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
+    public Mono<ResponseEntity<Airline>> createAirline(@Valid @RequestBody Airline airline) {
+        return airlineService.createAirline(airline)
+                .map(newAirline -> new ResponseEntity<>(newAirline, HttpStatus.CREATED))
+                .onErrorResume(e -> e instanceof DocumentExistsException || e instanceof DuplicateKeyException,
+                        e -> errorResponse(HttpStatus.CONFLICT, DOCUMENT_ALREADY_EXISTS, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @Operation(summary = "Create airlines in bulk", description = "Create many airlines from a JSON array or from newline-delimited JSON in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every airline gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `createAirlines`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-airline results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large or malformed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public Mono<ResponseEntity<List<BatchItemResult>>> createAirlines(@RequestBody Flux<Airline> airlines,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        return airlineService.createAirlines(airlines, upsert)
+                .map(results -> new ResponseEntity<>(results, HttpStatus.OK))
+                .onErrorResume(e -> e instanceof IllegalArgumentException || e instanceof DecodingException,
+                        e -> errorResponse(HttpStatus.BAD_REQUEST, INVALID_BATCH, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update an airline", description = "Update an airline with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to update a document with a specified ID. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `updateAirline`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airline updated"),
+            @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
+    public Mono<ResponseEntity<Airline>> updateAirline(@PathVariable String id, @Valid @RequestBody Airline airline) {
+        return airlineService.updateAirline(id, airline)
+                .map(updatedAirline -> new ResponseEntity<>(updatedAirline, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(e -> e instanceof DocumentNotFoundException || e instanceof DataRetrievalFailureException,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete an airline", description = "Delete an airline with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to delete a document with a specified ID. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `deleteAirline`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Airline deleted"),
+            @ApiResponse(responseCode = "404", description = "Airline not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airline ID", required = true, example = "airline_10")
+    public Mono<ResponseEntity<Void>> deleteAirline(@PathVariable String id) {
+        return airlineService.deleteAirline(id)
+                .then(Mono.just(new ResponseEntity<Void>(HttpStatus.NO_CONTENT)))
+                .onErrorResume(e -> e instanceof DocumentNotFoundException || e instanceof DataRetrievalFailureException,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping("/list")
+    @Operation(summary = "List all airlines by country", description = "List all airlines by country.\n\nThis provides an example of using non-blocking N1QL queries in Couchbase to retrieve documents with a specified field value. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `listAirlinesByCountry`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "country", description = "Country", required = false, example = "United States")
+    public Mono<ResponseEntity<Page<Airline>>> listAirlinesByCountry(
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Mono<Page<Airline>> airlines = country == null || country.isEmpty()
+                ? airlineService.getAllAirlinesPage(PageRequest.of(page, size))
+                : airlineService.findByCountryPage(country, PageRequest.of(page, size));
+        return airlines
+                .map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all airlines by country", description = "Stream all airlines by country as newline-delimited JSON.\n\nThis provides an example of streaming N1QL query rows from Couchbase to the client with backpressure: rows are requested from the query service only as fast as the client reads them. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `streamAirlinesByCountry`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found") })
+    @Parameter(name = "country", description = "Country", required = false, example = "United States")
+    public Flux<Airline> streamAirlinesByCountry(
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Flux<Airline> airlines = country == null || country.isEmpty()
+                ? airlineService.getAllAirlines(PageRequest.of(page, size))
+                : airlineService.findByCountry(country, PageRequest.of(page, size));
+        return airlines.doOnError(e -> log.error(INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/list", params = "cursor")
+    @Operation(summary = "List all airlines by country using a cursor", description = "List all airlines by country, one page at a time, using a continuation token.\n\nThis provides an example of keyset pagination with non-blocking N1QL queries in Couchbase: every page seeks past the last document ID of the previous one, so deep pages cost the same as the first. Pass an empty `cursor` to start and the returned `nextCursor` to continue. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `listAirlinesByCountryAfter`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "country", description = "Country", required = false, example = "United States")
+    @Parameter(name = "cursor", description = "Continuation token from the previous page, empty for the first page", required = true, example = "")
+    public Mono<ResponseEntity<CursorPage<Airline>>> listAirlinesByCountryAfter(
+            @RequestParam(required = false) String country,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        if (size < 1) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return Mono.fromCallable(() -> CursorPage.decodeCursor(cursor))
+                .flatMapMany(lastId -> country == null || country.isEmpty()
+                        ? airlineService.getAirlinesAfter(lastId, size + 1)
+                        : airlineService.findByCountryAfter(country, lastId, size + 1))
+                .collectList()
+                .map(airlines -> new ResponseEntity<>(CursorPage.of(airlines, size, Airline::getId), HttpStatus.OK))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> errorResponse(HttpStatus.BAD_REQUEST, INVALID_CURSOR, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping("/to-airport")
+    @Operation(summary = "List all airlines by desination airport", description = "List all airlines by destination airport.\n\nThis provides an example of using non-blocking N1QL queries in Couchbase to retrieve documents with a specified field value. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `listAirlinesByDestinationAirport`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "destinationAirport", description = "Destination Airport", required = false, example = "SFO")
+    public Mono<ResponseEntity<Page<Airline>>> listAirlinesByDestinationAirport(
+            @RequestParam(required = false) String destinationAirport,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return airlineService.findByDestinationAirportPage(destinationAirport, PageRequest.of(page, size))
+                .map(airlines -> new ResponseEntity<>(airlines, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/to-airport/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all airlines by desination airport", description = "Stream all airlines by destination airport as newline-delimited JSON.\n\nThis provides an example of streaming N1QL query rows from Couchbase to the client with backpressure: rows are requested from the query service only as fast as the client reads them. \n\n Code: [`controllers/ReactiveAirlineController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirlineController.java) \n File: `ReactiveAirlineController.java` \n Method: `streamAirlinesByDestinationAirport`", tags = {
+            "Airline" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airlines found") })
+    @Parameter(name = "destinationAirport", description = "Destination Airport", required = false, example = "SFO")
+    public Flux<Airline> streamAirlinesByDestinationAirport(
+            @RequestParam(required = false) String destinationAirport,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return airlineService.findByDestinationAirport(destinationAirport, PageRequest.of(page, size))
+                .doOnError(e -> log.error(INTERNAL_SERVER_ERROR, e));
+    }
+
+    private static <T> Mono<ResponseEntity<T>> errorResponse(HttpStatus status, String message, Throwable e) {
+        log.error(message, e);
+        return Mono.just(new ResponseEntity<>(status));
+    }
+}
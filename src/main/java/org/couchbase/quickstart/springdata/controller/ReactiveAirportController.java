@@ -0,0 +1,231 @@
+package org.couchbase.quickstart.springdata.controller;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.services.ReactiveAirportService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/airport")
+public class ReactiveAirportController {
+
+    private final ReactiveAirportService airportService;
+
+    public ReactiveAirportController(ReactiveAirportService airportService) {
+        this.airportService = airportService;
+    }
+
+    // All Errors
+    private static final String INTERNAL_SERVER_ERROR = "Internal server error";
+    private static final String DOCUMENT_NOT_FOUND = "Document not found";
+    private static final String DOCUMENT_ALREADY_EXISTS = "Document already exists";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String INVALID_BATCH = "Invalid batch";
+
+    private static final int MAX_IDS = 100;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get an airport by ID", description = "Get Airport by specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to retrieve a document with a specified ID. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `getAirport`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airport found"),
+            @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airport ID", required = true, example = "airport_1254")
+    public Mono<ResponseEntity<Airport>> getAirport(@PathVariable String id) {
+        return airportService.getAirportById(id)
+                .map(airport -> new ResponseEntity<>(airport, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(DocumentNotFoundException.class,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get airports by IDs", description = "Get many airports by their IDs in one request.\n\nThis provides an example of using concurrent non-blocking Key Value operations in Couchbase to retrieve several documents in about one round trip. The response lists the documents that were found and the IDs that were not. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `getAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found and IDs missing"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "ids", description = "Comma-separated airport IDs, at most " + MAX_IDS, required = true, example = "airport_1254,airport_1255")
+    public Mono<ResponseEntity<MultiGetResult<Airport>>> getAirports(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_IDS) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return airportService.getAirportsByIds(ids)
+                .map(airports -> new ResponseEntity<>(airports, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PostMapping("/{id}")
+    @Operation(summary = "Create an airport", description = "Create an airport with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to create a document with a specified ID. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `createAirport`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Airport created"),
+            @ApiResponse(responseCode = "409", description = "Airport already exists"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airport ID", required = true, example = "airport_1254")
+    public Mono<ResponseEntity<Airport>> createAirport(@Valid @RequestBody Airport airport) {
+        return airportService.createAirport(airport)
+                .map(newAirport -> new ResponseEntity<>(newAirport, HttpStatus.CREATED))
+                .onErrorResume(e -> e instanceof DocumentExistsException || e instanceof DuplicateKeyException,
+                        e -> errorResponse(HttpStatus.CONFLICT, DOCUMENT_ALREADY_EXISTS, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @Operation(summary = "Create airports in bulk", description = "Create many airports from a JSON array or from newline-delimited JSON in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every airport gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `createAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-airport results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large or malformed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public Mono<ResponseEntity<List<BatchItemResult>>> createAirports(@RequestBody Flux<Airport> airports,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        return airportService.createAirports(airports, upsert)
+                .map(results -> new ResponseEntity<>(results, HttpStatus.OK))
+                .onErrorResume(e -> e instanceof IllegalArgumentException || e instanceof DecodingException,
+                        e -> errorResponse(HttpStatus.BAD_REQUEST, INVALID_BATCH, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update an airport", description = "Update an airport with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to update a document with a specified ID. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `updateAirport`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airport updated"),
+            @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airport ID", required = true, example = "airport_1254")
+    public Mono<ResponseEntity<Airport>> updateAirport(@PathVariable String id, @Valid @RequestBody Airport airport) {
+        return airportService.updateAirport(id, airport)
+                .map(updatedAirport -> new ResponseEntity<>(updatedAirport, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(e -> e instanceof DocumentNotFoundException || e instanceof DataRetrievalFailureException,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete an airport", description = "Delete an airport with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to delete a document with a specified ID. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `deleteAirport`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Airport deleted"),
+            @ApiResponse(responseCode = "404", description = "Airport not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Airport ID", required = true, example = "airport_1254")
+    public Mono<ResponseEntity<Void>> deleteAirport(@PathVariable String id) {
+        return airportService.deleteAirport(id)
+                .then(Mono.just(new ResponseEntity<Void>(HttpStatus.NO_CONTENT)))
+                .onErrorResume(e -> e instanceof DocumentNotFoundException || e instanceof DataRetrievalFailureException,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping("/list")
+    @Operation(summary = "List all airports", description = "List all airports.\n\nThis provides an example of using non-blocking N1QL queries in Couchbase to retrieve all documents in a collection. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `listAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    public Mono<ResponseEntity<Page<Airport>>> listAirports(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return airportService.getAllAirportsPage(PageRequest.of(page, size))
+                .map(airports -> new ResponseEntity<>(airports, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all airports", description = "Stream all airports as newline-delimited JSON.\n\nThis provides an example of streaming N1QL query rows from Couchbase to the client with backpressure: rows are requested from the query service only as fast as the client reads them. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `streamAirports`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found") })
+    public Flux<Airport> streamAirports(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return airportService.getAllAirports(PageRequest.of(page, size))
+                .doOnError(e -> log.error(INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/list", params = "cursor")
+    @Operation(summary = "List all airports using a cursor", description = "List all airports, one page at a time, using a continuation token.\n\nThis provides an example of keyset pagination with non-blocking N1QL queries in Couchbase: every page seeks past the last document ID of the previous one, so deep pages cost the same as the first. Pass an empty `cursor` to start and the returned `nextCursor` to continue. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `listAirportsAfter`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Airports found"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "cursor", description = "Continuation token from the previous page, empty for the first page", required = true, example = "")
+    public Mono<ResponseEntity<CursorPage<Airport>>> listAirportsAfter(@RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        if (size < 1) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return Mono.fromCallable(() -> CursorPage.decodeCursor(cursor))
+                .flatMapMany(lastId -> airportService.getAirportsAfter(lastId, size + 1))
+                .collectList()
+                .map(airports -> new ResponseEntity<>(CursorPage.of(airports, size, Airport::getId), HttpStatus.OK))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> errorResponse(HttpStatus.BAD_REQUEST, INVALID_CURSOR, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping("/direct-connections")
+    @Operation(summary = "List of direct connections to an airport", description = "List of direct connections to an airport.\n\nThis provides an example of using non-blocking N1QL queries in Couchbase to query documents across collections. \n\n Code: [`controllers/ReactiveAirportController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveAirportController.java) \n File: `ReactiveAirportController.java` \n Method: `listDirectConnections`", tags = {
+            "Airport" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of direct connections"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Parameter(name = "airportCode", description = "The airport code to list direct connections", required = true, example = "SFO")
+    public Mono<ResponseEntity<Slice<String>>> listDirectConnections(
+            @RequestParam(required = true) String airportCode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return airportService.getDirectConnectionsSlice(airportCode, PageRequest.of(page, size))
+                .map(routes -> new ResponseEntity<>(routes.map(Route::getDestinationAirport), HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    private static <T> Mono<ResponseEntity<T>> errorResponse(HttpStatus status, String message, Throwable e) {
+        log.error(message, e);
+        return Mono.just(new ResponseEntity<>(status));
+    }
+}
@@ -0,0 +1,212 @@
+package org.couchbase.quickstart.springdata.controller;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.services.ReactiveRouteService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/route")
+public class ReactiveRouteController {
+
+    private final ReactiveRouteService routeService;
+
+    public ReactiveRouteController(ReactiveRouteService routeService) {
+        this.routeService = routeService;
+    }
+
+    // All Errors
+    private static final String INTERNAL_SERVER_ERROR = "Internal server error";
+    private static final String DOCUMENT_NOT_FOUND = "Document not found";
+    private static final String DOCUMENT_ALREADY_EXISTS = "Document already exists";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String INVALID_BATCH = "Invalid batch";
+
+    private static final int MAX_IDS = 100;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a route by ID", description = "Get Route by specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to retrieve a document with a specified ID. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `getRoute`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Route found"),
+            @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
+    public Mono<ResponseEntity<Route>> getRoute(@PathVariable String id) {
+        return routeService.getRouteById(id)
+                .map(route -> new ResponseEntity<>(route, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(DocumentNotFoundException.class,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get routes by IDs", description = "Get many routes by their IDs in one request.\n\nThis provides an example of using concurrent non-blocking Key Value operations in Couchbase to retrieve several documents in about one round trip. The response lists the documents that were found and the IDs that were not. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `getRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found and IDs missing"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "ids", description = "Comma-separated route IDs, at most " + MAX_IDS, required = true, example = "route_10000,route_10001")
+    public Mono<ResponseEntity<MultiGetResult<Route>>> getRoutes(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_IDS) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return routeService.getRoutesByIds(ids)
+                .map(routes -> new ResponseEntity<>(routes, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PostMapping("/{id}")
+    @Operation(summary = "Create a route", description = "Create a route with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to create a document with a specified ID. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `createRoute`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Route created"),
+            @ApiResponse(responseCode = "409", description = "Route already exists"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
+    public Mono<ResponseEntity<Route>> createRoute(@Valid @RequestBody Route route) {
+        return routeService.createRoute(route)
+                .map(newRoute -> new ResponseEntity<>(newRoute, HttpStatus.CREATED))
+                .onErrorResume(e -> e instanceof DocumentExistsException || e instanceof DuplicateKeyException,
+                        e -> errorResponse(HttpStatus.CONFLICT, DOCUMENT_ALREADY_EXISTS, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    @Operation(summary = "Create routes in bulk", description = "Create many routes from a JSON array or from newline-delimited JSON in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every route gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `createRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-route results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large or malformed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public Mono<ResponseEntity<List<BatchItemResult>>> createRoutes(@RequestBody Flux<Route> routes,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        return routeService.createRoutes(routes, upsert)
+                .map(results -> new ResponseEntity<>(results, HttpStatus.OK))
+                .onErrorResume(e -> e instanceof IllegalArgumentException || e instanceof DecodingException,
+                        e -> errorResponse(HttpStatus.BAD_REQUEST, INVALID_BATCH, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update a route", description = "Update a route with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to update a document with a specified ID. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `updateRoute`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Route updated"),
+            @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
+    public Mono<ResponseEntity<Route>> updateRoute(@PathVariable String id, @Valid @RequestBody Route route) {
+        return routeService.updateRoute(id, route)
+                .map(updatedRoute -> new ResponseEntity<>(updatedRoute, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+                .onErrorResume(e -> e instanceof DocumentNotFoundException || e instanceof DataRetrievalFailureException,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete a route", description = "Delete a route with the specified ID.\n\nThis provides an example of using non-blocking Key Value operations in Couchbase to delete a document with a specified ID. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `deleteRoute`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Route deleted"),
+            @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
+    public Mono<ResponseEntity<Void>> deleteRoute(@PathVariable String id) {
+        return routeService.deleteRoute(id)
+                .then(Mono.just(new ResponseEntity<Void>(HttpStatus.NO_CONTENT)))
+                .onErrorResume(e -> e instanceof DocumentNotFoundException || e instanceof DataRetrievalFailureException,
+                        e -> errorResponse(HttpStatus.NOT_FOUND, DOCUMENT_NOT_FOUND, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping("/list")
+    @Operation(summary = "List all routes", description = "List all routes.\n\nThis provides an example of using non-blocking N1QL queries in Couchbase to retrieve all documents in a collection. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `listRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    public Mono<ResponseEntity<Page<Route>>> listRoutes(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return routeService.getAllRoutesPage(PageRequest.of(page, size))
+                .map(routes -> new ResponseEntity<>(routes, HttpStatus.OK))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all routes", description = "Stream all routes as newline-delimited JSON.\n\nThis provides an example of streaming N1QL query rows from Couchbase to the client with backpressure: rows are requested from the query service only as fast as the client reads them. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `streamRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found") })
+    public Flux<Route> streamRoutes(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return routeService.getAllRoutes(PageRequest.of(page, size))
+                .doOnError(e -> log.error(INTERNAL_SERVER_ERROR, e));
+    }
+
+    @GetMapping(value = "/list", params = "cursor")
+    @Operation(summary = "List all routes using a cursor", description = "List all routes, one page at a time, using a continuation token.\n\nThis provides an example of keyset pagination with non-blocking N1QL queries in Couchbase: every page seeks past the last document ID of the previous one, so deep pages cost the same as the first. Pass an empty `cursor` to start and the returned `nextCursor` to continue. \n\n Code: [`controllers/ReactiveRouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controller/ReactiveRouteController.java) \n File: `ReactiveRouteController.java` \n Method: `listRoutesAfter`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "cursor", description = "Continuation token from the previous page, empty for the first page", required = true, example = "")
+    public Mono<ResponseEntity<CursorPage<Route>>> listRoutesAfter(@RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        if (size < 1) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return Mono.fromCallable(() -> CursorPage.decodeCursor(cursor))
+                .flatMapMany(lastId -> routeService.getRoutesAfter(lastId, size + 1))
+                .collectList()
+                .map(routes -> new ResponseEntity<>(CursorPage.of(routes, size, Route::getId), HttpStatus.OK))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> errorResponse(HttpStatus.BAD_REQUEST, INVALID_CURSOR, e))
+                .onErrorResume(e -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR, e));
+    }
+
+    private static <T> Mono<ResponseEntity<T>> errorResponse(HttpStatus status, String message, Throwable e) {
+        log.error(message, e);
+        return Mono.just(new ResponseEntity<>(status));
+    }
+}
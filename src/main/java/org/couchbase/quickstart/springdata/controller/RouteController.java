@@ -1,26 +1,47 @@
 package org.couchbase.quickstart.springdata.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
 import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.TotalMode;
+import org.couchbase.quickstart.springdata.services.BatchWriter;
+import org.couchbase.quickstart.springdata.services.DocumentPatcher;
 import org.couchbase.quickstart.springdata.services.RouteService;
+import org.couchbase.quickstart.springdata.services.Versioned;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataRetrievalFailureException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.couchbase.client.core.error.CasMismatchException;
 import com.couchbase.client.core.error.DocumentExistsException;
 import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.subdoc.PathExistsException;
+import com.couchbase.client.core.error.subdoc.PathMismatchException;
+import com.couchbase.client.core.error.subdoc.PathNotFoundException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -28,35 +49,55 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/route")
 @Slf4j
 public class RouteController {
 
     private final RouteService routeService;
+    private final BatchWriter batchWriter;
 
-    public RouteController(RouteService routeService) {
+    public RouteController(RouteService routeService, BatchWriter batchWriter) {
         this.routeService = routeService;
+        this.batchWriter = batchWriter;
     }
 
     // All Errors
     private static final String INTERNAL_SERVER_ERROR = "Internal server error";
     private static final String DOCUMENT_NOT_FOUND = "Document not found";
     private static final String DOCUMENT_ALREADY_EXISTS = "Document already exists";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String FIELDS_WITH_CURSOR = "Fields cannot be selected with a cursor";
+    private static final String INVALID_TOTAL_MODE = "Invalid total mode";
+    private static final String INVALID_FIELDS = "Invalid fields";
+    private static final String INVALID_BATCH = "Invalid batch";
+    private static final String INVALID_PATCH = "Invalid patch";
+    private static final String PATCH_CONFLICT = "Patch conflicts with the document";
+    private static final String INVALID_ETAG = "Invalid ETag";
+    private static final String DOCUMENT_CHANGED = "Document has changed";
+    private static final String EXPORT_FAILED = "Export failed";
+
+    private static final int MAX_IDS = 100;
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get a route by ID", description = "Get Route by specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to retrieve a document with a specified ID. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `getRoute`", tags = {
+    @Operation(summary = "Get a route by ID", description = "Get Route by specified ID.\n\nThis provides an example of using Key Value operations in Couchbase to retrieve a document with a specified ID. The response has an `ETag` built from the document CAS, and sending it back in `If-None-Match` returns an empty `304` while the document is unchanged. The ETag and the `304` come from the cache of recently read routes, so after a write made elsewhere they can be outdated for up to the cache TTL. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `getRoute`", tags = {
             "Route" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Route found"),
+            @ApiResponse(responseCode = "304", description = "Route not modified since the If-None-Match ETag"),
             @ApiResponse(responseCode = "404", description = "Route not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
-    public ResponseEntity<Route> getRoute(@PathVariable String id) {
+    @Parameter(name = "If-None-Match", description = "ETag of a version the client already has; returns 304 if it is still current", required = false)
+    public ResponseEntity<Route> getRoute(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Optional<Route> route = routeService.getRouteById(id);
-            return route.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+            Optional<Versioned<Route>> route = routeService.getVersionedRoute(id);
+            return route.map(value -> ETags.response(value, ifNoneMatch))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
         } catch (DocumentNotFoundException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
@@ -67,6 +108,53 @@ public class RouteController {
         }
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    @Operation(summary = "Get selected fields of a route by ID", description = "Get only the requested fields of the Route with the specified ID.\n\nThis provides an example of using sub-document lookups in Couchbase to read just some fields of a document, so the rest is neither read nor sent. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `getRouteFields`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Route found"),
+            @ApiResponse(responseCode = "400", description = "Unknown field"),
+            @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
+    @Parameter(name = "fields", description = "Comma-separated fields to return; the ID is always included", required = true, example = "airline,sourceAirport,destinationAirport")
+    public ResponseEntity<Map<String, Object>> getRouteFields(@PathVariable String id, @RequestParam String fields) {
+        try {
+            Optional<Map<String, Object>> route = routeService.getRouteById(id, fields);
+            return route.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
+            log.error(DOCUMENT_NOT_FOUND, e);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get routes by IDs", description = "Get many routes by their IDs in one request.\n\nThis provides an example of using concurrent Key Value operations in Couchbase to retrieve several documents in about one round trip. The response lists the documents that were found and the IDs that were not. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `getRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found and IDs missing"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "ids", description = "Comma-separated route IDs, at most " + MAX_IDS, required = true, example = "route_10000,route_10001")
+    public ResponseEntity<MultiGetResult<Route>> getRoutes(@RequestParam List<String> ids) {
+        try {
+            if (ids.size() > MAX_IDS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(routeService.getRoutesByIds(ids), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PostMapping("/{id}")
     @Operation(summary = "Create a route", description = "Create a new route.\n\nThis provides an example of using Key Value operations in Couchbase to create a new document with a specified ID. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `createRoute`", tags = {
             "Route" })
@@ -89,26 +177,129 @@ public class RouteController {
 
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create routes in bulk", description = "Create many routes from a JSON array in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every route gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `createRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-route results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public ResponseEntity<List<BatchItemResult>> createRoutes(@RequestBody List<Route> routes,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        try {
+            return new ResponseEntity<>(routeService.createRoutes(routes, upsert), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_BATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create routes in bulk from NDJSON", description = "Create many routes from newline-delimited JSON in one request.\n\nThis provides an example of using reactive Key Value operations in Couchbase to write many documents concurrently with bounded parallelism. Every route gets its own result: created, upserted, conflict, invalid or error. Set `upsert=true` to overwrite existing documents. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `createRoutesFromNdjson`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-route results"),
+            @ApiResponse(responseCode = "400", description = "Batch too large or malformed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "upsert", description = "Overwrite existing documents instead of reporting a conflict", required = false, example = "false")
+    public ResponseEntity<List<BatchItemResult>> createRoutesFromNdjson(InputStream body,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        try {
+            List<Route> routes = batchWriter.readNdjson(body, Route.class);
+            return new ResponseEntity<>(routeService.createRoutes(routes, upsert), HttpStatus.OK);
+        } catch (IllegalArgumentException | JacksonException e) {
+            log.error(INVALID_BATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update a route", description = "Update a route.\n\nThis provides an example of using Key Value operations in Couchbase to update a document with a specified ID. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `updateRoute`", tags = {
             "Route" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Route updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match header"),
             @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "412", description = "Route has changed since the If-Match ETag, or does not exist with If-Match: *"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
-    public ResponseEntity<Route> updateRoute(@PathVariable String id, @Valid @RequestBody Route route) {
+    @Parameter(name = "If-Match", description = "Only update if the route still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Route> updateRoute(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody Route route) {
         try {
-            Route updatedRoute = routeService.updateRoute(id, route);
+            Versioned<Route> updatedRoute = routeService.updateRoute(id, route, ETags.cas(ifMatch));
             if (updatedRoute != null) {
-                return new ResponseEntity<>(updatedRoute, HttpStatus.OK);
+                return new ResponseEntity<>(updatedRoute.value(), ETags.headers(updatedRoute.cas()),
+                        HttpStatus.OK);
             } else {
                 log.error(DOCUMENT_NOT_FOUND);
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (CasMismatchException e) {
+            log.error(DOCUMENT_CHANGED, e);
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         } catch (DocumentNotFoundException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { DocumentPatcher.JSON_PATCH, DocumentPatcher.MERGE_PATCH })
+    @Operation(summary = "Patch a route", description = "Change some fields of a route with a JSON Patch (`application/json-patch+json`) or JSON Merge Patch (`application/merge-patch+json`) document.\n\nThis provides an example of using sub-document operations in Couchbase to change parts of a document without sending or rewriting the rest of it. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `patchRoute`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Route patched"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch or If-Match header"),
+            @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "409", description = "The patch does not apply to the current document"),
+            @ApiResponse(responseCode = "412", description = "Route has changed since the If-Match ETag, or does not exist with If-Match: *"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
+    @Parameter(name = "If-Match", description = "Only patch if the route still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Void> patchRoute(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, @RequestBody JsonNode patch) {
+        long cas;
+        try {
+            cas = ETags.cas(ifMatch);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            long patchedCas = routeService.patchRoute(id, contentType, patch, cas);
+            return new ResponseEntity<>(ETags.headers(patchedCas), HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_PATCH, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DocumentNotFoundException e) {
+            log.error(DOCUMENT_NOT_FOUND, e);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
+        } catch (CasMismatchException e) {
+            if (ETags.namesVersion(cas)) {
+                log.error(DOCUMENT_CHANGED, e);
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+            }
+            // Written between the reads of the patch and its mutateIn
+            log.error(PATCH_CONFLICT, e);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalStateException | PathNotFoundException | PathExistsException | PathMismatchException e) {
+            log.error(PATCH_CONFLICT, e);
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -120,16 +311,26 @@ public class RouteController {
             "Route" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Route deleted"),
+            @ApiResponse(responseCode = "400", description = "Invalid If-Match header"),
             @ApiResponse(responseCode = "404", description = "Route not found"),
+            @ApiResponse(responseCode = "412", description = "Route has changed since the If-Match ETag, or does not exist with If-Match: *"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
     @Parameter(name = "id", description = "Route ID", required = true, example = "route_10000")
-    public ResponseEntity<Void> deleteRoute(@PathVariable String id) {
+    @Parameter(name = "If-Match", description = "Only delete if the route still has this ETag, or if it exists at all with *", required = false)
+    public ResponseEntity<Void> deleteRoute(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            routeService.deleteRoute(id);
+            routeService.deleteRoute(id, ETags.cas(ifMatch));
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_ETAG, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (CasMismatchException e) {
+            log.error(DOCUMENT_CHANGED, e);
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         } catch (DocumentNotFoundException | DataRetrievalFailureException e) {
             log.error(DOCUMENT_NOT_FOUND, e);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ETags.missing(ifMatch));
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -137,20 +338,119 @@ public class RouteController {
     }
 
     @GetMapping("/list")
-    @Operation(summary = "List all routes", description = "List all routes.\n\nThis provides an example of using N1QL queries in Couchbase to retrieve all documents of a specified type. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `listRoutes`", tags = {
+    @Operation(summary = "List all routes", description = "List all routes.\n\nThis provides an example of using N1QL queries in Couchbase to retrieve all documents of a specified type. Set `total` to `approx` for a cached total, or to `none` to skip counting and only report whether there is a next page. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `listRoutes`", tags = {
             "Route" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Routes found"),
+            @ApiResponse(responseCode = "400", description = "Invalid total mode"),
             @ApiResponse(responseCode = "500", description = "Internal server error") })
-    public ResponseEntity<Page<Route>> listRoutes(@RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Route>> listRoutes(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
         try {
-            Page<Route> routes = routeService.getAllRoutes(PageRequest.of(page, size));
+            Slice<Route> routes = routeService.getAllRoutes(PageRequest.of(page, size), TotalMode.of(total));
             return new ResponseEntity<>(routes, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_TOTAL_MODE, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error(INTERNAL_SERVER_ERROR, e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    @GetMapping(value = "/list", params = { "fields", "!cursor" })
+    @Operation(summary = "List selected fields of all routes", description = "List only the requested fields of all routes.\n\nThis provides an example of pushing a field list down into the SELECT list of a N1QL query in Couchbase, so unused fields are neither read nor sent. Set `total` to `approx` for a cached total, or to `none` to skip counting. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `listRoutesFields`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found"),
+            @ApiResponse(responseCode = "400", description = "Unknown field or invalid total mode"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "fields", description = "Comma-separated fields to return; the ID is always included", required = true, example = "airline,sourceAirport,destinationAirport")
+    @Parameter(name = "total", description = "How to compute the total: exact, approx or none", required = false, example = "exact")
+    public ResponseEntity<Slice<Map<String, Object>>> listRoutesFields(
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String total) {
+        try {
+            TotalMode totalMode = TotalMode.of(total);
+            Slice<Map<String, Object>> routes = routeService.getAllRoutes(PageRequest.of(page, size), totalMode, fields);
+            return new ResponseEntity<>(routes, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_FIELDS, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/list", params = "cursor")
+    @Operation(summary = "List all routes using a cursor", description = "List all routes, one page at a time, using a continuation token.\n\nThis provides an example of keyset pagination with N1QL queries in Couchbase: every page seeks past the last document ID of the previous one, so deep pages cost the same as the first. Pass an empty `cursor` to start and the returned `nextCursor` to continue. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `listRoutesAfter`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes found"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or size, or fields given with a cursor"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "cursor", description = "Continuation token from the previous page, empty for the first page", required = true, example = "")
+    public ResponseEntity<CursorPage<Route>> listRoutesAfter(@RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
+        // Keyset pages return whole documents, so a field list would be silently ignored
+        if (fields != null) {
+            log.error(FIELDS_WITH_CURSOR);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            if (size < 1) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            List<Route> routes = routeService.getRoutesAfter(CursorPage.decodeCursor(cursor), size + 1);
+            return new ResponseEntity<>(CursorPage.of(routes, size, Route::getId), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error(INVALID_CURSOR, e);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all routes", description = "Export every route as newline-delimited JSON.\n\nThis provides an example of using KV range scans in Couchbase to read a whole collection without the query service or an index. Documents are streamed as `{\"id\":...,\"value\":...}` lines with constant memory use, gzip-compressed when the client accepts it. `{\"checkpoint\":...}` lines mark how far the export got: pass the last one as `after` to resume. Set `sample` to export a random sample instead. \n\n Code: [`controllers/RouteController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/RouteController.java) \n File: `RouteController.java` \n Method: `exportRoutes`", tags = {
+            "Route" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Routes exported"),
+            @ApiResponse(responseCode = "400", description = "Invalid sample size") })
+    @Parameter(name = "after", description = "Resume the export after this checkpoint", required = false, example = "route_10000")
+    @Parameter(name = "sample", description = "Export a random sample of about this many routes", required = false, example = "100")
+    public ResponseEntity<StreamingResponseBody> exportRoutes(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long sample,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (sample != null && (sample < 1 || after != null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            try {
+                if (sample != null) {
+                    routeService.exportRouteSample(sample, out, gzip);
+                } else {
+                    routeService.exportRoutes(after, out, gzip);
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.error(EXPORT_FAILED, ex);
+                throw ex;
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
 }
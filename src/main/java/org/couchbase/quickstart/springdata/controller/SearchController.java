@@ -0,0 +1,61 @@
+package org.couchbase.quickstart.springdata.controller;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Suggestion;
+import org.couchbase.quickstart.springdata.services.SuggestService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/search")
+@Slf4j
+public class SearchController {
+
+    private final SuggestService suggestService;
+
+    public SearchController(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    // All Errors
+    private static final String INTERNAL_SERVER_ERROR = "Internal server error";
+
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int MAX_SUGGESTIONS = 50;
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest airports and airlines", description = "Suggest airports and airlines while the user types, most routes first.\n\nThis provides an example of serving typeahead searches from an in-memory snapshot of the data in Couchbase: airport names, cities and codes and airline names and codes are loaded once into a sorted prefix index, kept up to date as airports and airlines are written through the API, and searched without any further queries. Any word of a name can match, accents and case are ignored. \n\n Code: [`controllers/SearchController.java`](https://github.com/couchbase-examples/java-springdata-quickstart/blob/main/src/main/java/org/couchbase/quickstart/springdata/controllers/SearchController.java) \n File: `SearchController.java` \n Method: `suggest`", tags = {
+            "Search" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions found, possibly none"),
+            @ApiResponse(responseCode = "400", description = "Invalid query or number of suggestions"),
+            @ApiResponse(responseCode = "500", description = "Internal server error") })
+    @Parameter(name = "q", description = "What the user has typed so far", required = true, example = "san")
+    @Parameter(name = "limit", description = "Maximum number of suggestions, at most " + MAX_SUGGESTIONS, required = false, example = "10")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            if (q.isBlank() || q.length() > MAX_QUERY_LENGTH || limit < 1 || limit > MAX_SUGGESTIONS) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(suggestService.suggest(q, limit), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error(INTERNAL_SERVER_ERROR, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
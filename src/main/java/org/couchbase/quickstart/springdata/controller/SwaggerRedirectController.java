@@ -1,5 +1,6 @@
 package org.couchbase.quickstart.springdata.controller;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -7,6 +8,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.servlet.view.RedirectView;
 
 @Controller
+@Profile("!reactive")
 public class SwaggerRedirectController {
 
     @GetMapping(value = { "/", "/swagger-ui", "/swagger-ui/" })
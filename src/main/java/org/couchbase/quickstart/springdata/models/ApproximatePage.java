@@ -0,0 +1,32 @@
+package org.couchbase.quickstart.springdata.models;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * A slice together with a total that may be out of date. Whether there is a
+ * next page comes from the slice itself, never from the total.
+ */
+public class ApproximatePage<T> extends SliceImpl<T> {
+
+    private final long totalElements;
+
+    public ApproximatePage(Slice<T> slice, long totalElements) {
+        super(slice.getContent(), slice.getPageable(), slice.hasNext());
+        // The slice itself proves a lower bound
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        this.totalElements = Math.max(totalElements, seen);
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getTotalPages() {
+        return getSize() == 0 ? 1 : (int) Math.ceil((double) totalElements / getSize());
+    }
+
+    public boolean isTotalApproximate() {
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package org.couchbase.quickstart.springdata.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED, UPSERTED, CONFLICT, INVALID, ERROR
+    }
+
+    private String id;
+
+    private Status status;
+
+    private String error;
+
+    public static BatchItemResult of(String id, Status status) {
+        return new BatchItemResult(id, status, null);
+    }
+
+    public static BatchItemResult failed(String id, Status status, String error) {
+        return new BatchItemResult(id, status, error);
+    }
+
+    public boolean isWritten() {
+        return status == Status.CREATED || status == Status.UPSERTED;
+    }
+}
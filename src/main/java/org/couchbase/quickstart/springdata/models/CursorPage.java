@@ -0,0 +1,58 @@
+package org.couchbase.quickstart.springdata.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A page of results addressed by an opaque continuation token instead of an
+ * offset. The token encodes the last document ID of the page, so the next page
+ * seeks straight past it.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    private String nextCursor;
+
+    private boolean last;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra
+     * row, if present, only signals that another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, size, null, true);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, size, encodeCursor(idOf.apply(content.get(size - 1))), false);
+    }
+
+    public static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the document ID encoded in the token, or an empty string (which sorts
+     * before every ID) for an empty token.
+     *
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return "";
+        }
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
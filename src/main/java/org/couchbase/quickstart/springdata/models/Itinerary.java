@@ -0,0 +1,21 @@
+package org.couchbase.quickstart.springdata.models;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class Itinerary {
+
+    private List<String> airports;
+
+    private List<String> routeIds;
+
+    private int stops;
+
+    private double distance;
+}
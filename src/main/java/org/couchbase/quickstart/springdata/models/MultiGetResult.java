@@ -0,0 +1,40 @@
+package org.couchbase.quickstart.springdata.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class MultiGetResult<T> {
+
+    private List<T> found;
+
+    private List<String> missing;
+
+    /**
+     * Orders the found documents as the requested IDs and lists the IDs that
+     * were not found.
+     */
+    public static <T> MultiGetResult<T> of(List<String> ids, List<T> documents, Function<T, String> idOf) {
+        Map<String, T> byId = documents.stream().collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        List<T> found = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            T document = byId.get(id);
+            if (document != null) {
+                found.add(document);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResult<>(found, missing);
+    }
+}
@@ -0,0 +1,27 @@
+package org.couchbase.quickstart.springdata.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class NearbyAirport {
+
+    private String id;
+
+    private String faa;
+
+    private String airportName;
+
+    private String city;
+
+    private String country;
+
+    private double lat;
+
+    private double lon;
+
+    private double distanceKm;
+}
@@ -0,0 +1,27 @@
+package org.couchbase.quickstart.springdata.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class Suggestion {
+
+    // "airport" or "airline"
+    private String type;
+
+    private String id;
+
+    private String name;
+
+    // FAA code of an airport, IATA code of an airline
+    private String code;
+
+    private String city;
+
+    private String country;
+
+    private int routes;
+}
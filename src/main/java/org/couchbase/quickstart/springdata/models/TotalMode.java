@@ -0,0 +1,25 @@
+package org.couchbase.quickstart.springdata.models;
+
+import java.util.Locale;
+
+/**
+ * How a list endpoint reports the total number of results.
+ */
+public enum TotalMode {
+
+    /** A COUNT query alongside every page. */
+    EXACT,
+
+    /** A count cached for a while, possibly out of date. */
+    APPROX,
+
+    /** No count at all: a slice whose next page is detected by fetching one extra row. */
+    NONE;
+
+    /**
+     * @throws IllegalArgumentException if the value is not a mode name
+     */
+    public static TotalMode of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
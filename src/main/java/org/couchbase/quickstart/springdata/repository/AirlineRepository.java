@@ -1,32 +1,54 @@
 package org.couchbase.quickstart.springdata.repository;
 
+import java.util.List;
+
 import org.couchbase.quickstart.springdata.models.Airline;
 import org.springframework.data.couchbase.repository.Collection;
 import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.DynamicProxyable;
 import org.springframework.data.couchbase.repository.Query;
-import org.springframework.data.couchbase.repository.ScanConsistency;
 import org.springframework.data.couchbase.repository.Scope;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
-import com.couchbase.client.java.query.QueryScanConsistency;
-
 @Scope("inventory")
 @Collection("airline")
 @Repository
-@ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
-public interface AirlineRepository extends CouchbaseRepository<Airline, String> {
+public interface AirlineRepository extends CouchbaseRepository<Airline, String>, DynamicProxyable<AirlineRepository> {
+
+    // LIMIT and OFFSET are parameters, so every page runs the same statement
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air LIMIT $1 OFFSET $2")
+    List<Airline> findPage(int limit, long offset);
+
+    @Query("SELECT COUNT(*) AS __count FROM airline")
+    long countAll();
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air WHERE air.country = $1 LIMIT $2 OFFSET $3")
+    List<Airline> findByCountry(String country, int limit, long offset);
+
+    @Query("SELECT COUNT(*) AS __count FROM airline AS air WHERE air.country = $1")
+    long countByCountry(String country);
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air WHERE META(air).id > $1 ORDER BY META(air).id LIMIT $2")
+    List<Airline> findAfter(String lastId, int limit);
 
     @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
-            "FROM airline AS air WHERE air.country = $1")
-    Page<Airline> findByCountry(String country, Pageable pageable);
+            "FROM airline AS air WHERE air.country = $1 AND META(air).id > $2 ORDER BY META(air).id LIMIT $3")
+    List<Airline> findByCountryAfter(String country, String lastId, int limit);
 
     @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
             "FROM (SELECT DISTINCT META(airline).id AS airlineId FROM route " +
             "JOIN airline ON route.airlineid = META(airline).id " +
             "WHERE route.destinationairport = $1) AS subquery " +
-            "JOIN airline AS air ON META(air).id = subquery.airlineId")
-    Page<Airline> findByDestinationAirport(String destinationAirport, Pageable pageable);
+            "JOIN airline AS air ON META(air).id = subquery.airlineId " +
+            "LIMIT $2 OFFSET $3")
+    List<Airline> findByDestinationAirport(String destinationAirport, int limit, long offset);
+
+    @Query("SELECT COUNT(DISTINCT META(airline).id) AS __count FROM route " +
+            "JOIN airline ON route.airlineid = META(airline).id " +
+            "WHERE route.destinationairport = $1")
+    long countByDestinationAirport(String destinationAirport);
 
 }
\ No newline at end of file
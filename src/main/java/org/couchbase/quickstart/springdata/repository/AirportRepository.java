@@ -1,32 +1,38 @@
 package org.couchbase.quickstart.springdata.repository;
 
+import java.util.List;
+
 import org.couchbase.quickstart.springdata.models.Airport;
 import org.couchbase.quickstart.springdata.models.Route;
 import org.springframework.data.couchbase.repository.Collection;
 import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.DynamicProxyable;
 import org.springframework.data.couchbase.repository.Query;
-import org.springframework.data.couchbase.repository.ScanConsistency;
 import org.springframework.data.couchbase.repository.Scope;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 
-import com.couchbase.client.java.query.QueryScanConsistency;
-
 @Scope("inventory")
 @Collection("airport")
 @Repository
-@ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
-public interface AirportRepository extends CouchbaseRepository<Airport, String> {
+public interface AirportRepository extends CouchbaseRepository<Airport, String>, DynamicProxyable<AirportRepository> {
+
+    // LIMIT and OFFSET are parameters, so every page runs the same statement
+    @Query("SELECT META(airport).id as __id,airport.* FROM airport LIMIT $1 OFFSET $2")
+    List<Airport> findPage(int limit, long offset);
+
+    @Query("SELECT COUNT(*) AS __count FROM airport")
+    long countAll();
 
-    @Query("SELECT META(airport).id as __id,airport.* FROM airport")
-    Page<Airport> findAll(Pageable pageable);
+    @Query("SELECT META(airport).id as __id,airport.* FROM airport " +
+            "WHERE META(airport).id > $1 ORDER BY META(airport).id LIMIT $2")
+    List<Airport> findAfter(String lastId, int limit);
 
-    @Query("SELECT META(route).id as __id,route.* " +
+    // Callers only need the destination, so the rest of each route is not read
+    @Query("SELECT META(route).id as __id,route.destinationairport " +
             "FROM airport as airport " +
             "JOIN route as route ON airport.faa = route.sourceairport " +
-            "WHERE airport.faa = $1 AND route.stops = 0")
-    Slice<Route> getDirectConnections(String targetAirportCode, Pageable pageable);
+            "WHERE airport.faa = $1 AND route.stops = 0 " +
+            "LIMIT $2 OFFSET $3")
+    List<Route> getDirectConnections(String targetAirportCode, int limit, long offset);
 
 }
\ No newline at end of file
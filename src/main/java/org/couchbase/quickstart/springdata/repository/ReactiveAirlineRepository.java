@@ -0,0 +1,53 @@
+package org.couchbase.quickstart.springdata.repository;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.springframework.data.couchbase.repository.Collection;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ReactiveCouchbaseRepository;
+import org.springframework.data.couchbase.repository.Scope;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Scope("inventory")
+@Collection("airline")
+@Repository
+public interface ReactiveAirlineRepository extends ReactiveCouchbaseRepository<Airline, String> {
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air")
+    Flux<Airline> findAll(Pageable pageable);
+
+    @Query("SELECT COUNT(*) AS __count FROM airline")
+    Mono<Long> countAll();
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air WHERE air.country = $1")
+    Flux<Airline> findByCountry(String country, Pageable pageable);
+
+    @Query("SELECT COUNT(*) AS __count FROM airline AS air WHERE air.country = $1")
+    Mono<Long> countByCountry(String country);
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air WHERE META(air).id > $1 ORDER BY META(air).id LIMIT $2")
+    Flux<Airline> findAfter(String lastId, int limit);
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM airline AS air WHERE air.country = $1 AND META(air).id > $2 ORDER BY META(air).id LIMIT $3")
+    Flux<Airline> findByCountryAfter(String country, String lastId, int limit);
+
+    @Query("SELECT META(air).id AS __id, air.callsign, air.country, air.iata, air.icao, air.id, air.name, air.type " +
+            "FROM (SELECT DISTINCT META(airline).id AS airlineId FROM route " +
+            "JOIN airline ON route.airlineid = META(airline).id " +
+            "WHERE route.destinationairport = $1) AS subquery " +
+            "JOIN airline AS air ON META(air).id = subquery.airlineId")
+    Flux<Airline> findByDestinationAirport(String destinationAirport, Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT META(airline).id) AS __count FROM route " +
+            "JOIN airline ON route.airlineid = META(airline).id " +
+            "WHERE route.destinationairport = $1")
+    Mono<Long> countByDestinationAirport(String destinationAirport);
+
+}
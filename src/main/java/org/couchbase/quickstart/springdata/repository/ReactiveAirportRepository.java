@@ -0,0 +1,38 @@
+package org.couchbase.quickstart.springdata.repository;
+
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.springframework.data.couchbase.repository.Collection;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ReactiveCouchbaseRepository;
+import org.springframework.data.couchbase.repository.Scope;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Scope("inventory")
+@Collection("airport")
+@Repository
+public interface ReactiveAirportRepository extends ReactiveCouchbaseRepository<Airport, String> {
+
+    @Query("SELECT META(airport).id as __id,airport.* FROM airport")
+    Flux<Airport> findAll(Pageable pageable);
+
+    @Query("SELECT COUNT(*) AS __count FROM airport")
+    Mono<Long> countAll();
+
+    @Query("SELECT META(airport).id as __id,airport.* FROM airport " +
+            "WHERE META(airport).id > $1 ORDER BY META(airport).id LIMIT $2")
+    Flux<Airport> findAfter(String lastId, int limit);
+
+    // Callers only need the destination, so the rest of each route is not read
+    @Query("SELECT META(route).id as __id,route.destinationairport " +
+            "FROM airport as airport " +
+            "JOIN route as route ON airport.faa = route.sourceairport " +
+            "WHERE airport.faa = $1 AND route.stops = 0 " +
+            "LIMIT $2 OFFSET $3")
+    Flux<Route> getDirectConnections(String targetAirportCode, int limit, long offset);
+
+}
@@ -0,0 +1,29 @@
+package org.couchbase.quickstart.springdata.repository;
+
+import org.couchbase.quickstart.springdata.models.Route;
+import org.springframework.data.couchbase.repository.Collection;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ReactiveCouchbaseRepository;
+import org.springframework.data.couchbase.repository.Scope;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Scope("inventory")
+@Collection("route")
+@Repository
+public interface ReactiveRouteRepository extends ReactiveCouchbaseRepository<Route, String> {
+
+    @Query("SELECT META(route).id as __id,route.* FROM route")
+    Flux<Route> findAll(Pageable pageable);
+
+    @Query("SELECT COUNT(*) AS __count FROM route")
+    Mono<Long> countAll();
+
+    @Query("SELECT META(route).id as __id,route.* FROM route " +
+            "WHERE META(route).id > $1 ORDER BY META(route).id LIMIT $2")
+    Flux<Route> findAfter(String lastId, int limit);
+
+}
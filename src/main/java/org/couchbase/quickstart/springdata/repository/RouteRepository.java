@@ -1,24 +1,29 @@
 package org.couchbase.quickstart.springdata.repository;
 
+import java.util.List;
+
 import org.couchbase.quickstart.springdata.models.Route;
 import org.springframework.data.couchbase.repository.Collection;
 import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.DynamicProxyable;
 import org.springframework.data.couchbase.repository.Query;
-import org.springframework.data.couchbase.repository.ScanConsistency;
 import org.springframework.data.couchbase.repository.Scope;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
-import com.couchbase.client.java.query.QueryScanConsistency;
-
 @Scope("inventory")
 @Collection("route")
 @Repository
-@ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
-public interface RouteRepository extends CouchbaseRepository<Route, String> {
+public interface RouteRepository extends CouchbaseRepository<Route, String>, DynamicProxyable<RouteRepository> {
+
+    // LIMIT and OFFSET are parameters, so every page runs the same statement
+    @Query("SELECT META(route).id as __id,route.* FROM route LIMIT $1 OFFSET $2")
+    List<Route> findPage(int limit, long offset);
+
+    @Query("SELECT COUNT(*) AS __count FROM route")
+    long countAll();
 
-    @Query("SELECT META(route).id as __id,route.* FROM route")
-    Page<Route> findAll(Pageable pageable);
+    @Query("SELECT META(route).id as __id,route.* FROM route " +
+            "WHERE META(route).id > $1 ORDER BY META(route).id LIMIT $2")
+    List<Route> findAfter(String lastId, int limit);
 
 }
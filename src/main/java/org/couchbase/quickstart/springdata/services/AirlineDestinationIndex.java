@@ -0,0 +1,298 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.couchbase.quickstart.springdata.models.Route;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.CasMismatchException;
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.subdoc.PathNotFoundException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInResult;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.couchbase.client.java.kv.ScanOptions;
+import com.couchbase.client.java.kv.ScanResult;
+import com.couchbase.client.java.kv.ScanTerm;
+import com.couchbase.client.java.kv.ScanType;
+import com.couchbase.client.java.kv.StoreSemantics;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Materialized index of the airlines flying into each airport, kept in the
+ * {@code inventory.airline_by_destination} collection.
+ * <p>
+ * There is one document per destination airport, keyed by its code, that
+ * holds the number of routes each airline flies there:
+ * {@code {"airlines":{"airline_137":4,...}}}. Route writes adjust the counts
+ * with sub-document increments, so concurrent writers never overwrite each
+ * other, and an airline drops out once its count reaches zero.
+ * <p>
+ * {@link #rebuild()} recomputes every document from the {@code route}
+ * collection and then writes a marker document. Until the marker exists,
+ * {@link #airlineIds(String)} returns empty and callers fall back to N1QL. If
+ * the marker is missing once the application is ready, the rebuild runs on
+ * {@link StartupTasks}.
+ * <p>
+ * The collection is created by {@code scripts/setup.sqlpp}, not by the app, so
+ * the app needs no cluster management rights. Whether it exists is checked
+ * with a query on {@code system:keyspaces}, since the SDK retries KV requests
+ * to a missing collection until they time out; while it does not, route
+ * writes leave the index alone and {@link #rebuild()} does nothing. A missing
+ * collection or marker is remembered for {@link #RECHECK_INTERVAL}.
+ */
+@Slf4j
+@Service
+public class AirlineDestinationIndex {
+
+    static final String COLLECTION = "airline_by_destination";
+
+    // Not a valid airport code, so it cannot clash with an index document
+    private static final String MARKER_ID = "_rebuilt";
+    private static final String AIRLINES = "airlines";
+
+    // How long a missing collection or marker is remembered, so that a rebuild
+    // made by another instance is still picked up
+    static final Duration RECHECK_INTERVAL = Duration.ofSeconds(30);
+
+    private static final String COUNT_QUERY = "SELECT route.destinationairport AS destination, "
+            + "route.airlineid AS airline, COUNT(*) AS routes FROM route "
+            + "WHERE route.destinationairport IS VALUED AND route.airlineid IS VALUED "
+            + "GROUP BY route.destinationairport, route.airlineid";
+
+    private static final String KEYSPACE_QUERY = "SELECT RAW COUNT(*) FROM system:keyspaces "
+            + "WHERE `bucket` = $1 AND `scope` = $2 AND name = $3";
+
+    private final Bucket bucket;
+    private final StartupTasks startupTasks;
+    private final boolean rebuildOnStartup;
+    private final AtomicBoolean ready = new AtomicBoolean();
+    private volatile boolean collectionExists;
+    private volatile long nextCollectionCheck = System.nanoTime();
+    private volatile long nextMarkerCheck = System.nanoTime();
+
+    public AirlineDestinationIndex(Bucket bucket, StartupTasks startupTasks,
+            @Value("${app.airline-by-destination.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.bucket = bucket;
+        this.startupTasks = startupTasks;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * Returns the IDs of the airlines with routes to {@code destination}, sorted,
+     * or empty if the index has not been built yet.
+     */
+    public Optional<List<String>> airlineIds(String destination) {
+        if (!isReady()) {
+            return Optional.empty();
+        }
+        try {
+            JsonObject airlines = collection().get(destination).contentAsObject().getObject(AIRLINES);
+            if (airlines == null) {
+                return Optional.of(List.of());
+            }
+            List<String> ids = new ArrayList<>();
+            for (String id : airlines.getNames()) {
+                Number routes = airlines.getNumber(id);
+                if (routes != null && routes.longValue() > 0) {
+                    ids.add(id);
+                }
+            }
+            ids.sort(null);
+            return Optional.of(ids);
+        } catch (DocumentNotFoundException e) {
+            return Optional.of(List.of());
+        }
+    }
+
+    /**
+     * Applies a route write. {@code previous} is the route as stored before the
+     * write, or null if it did not exist.
+     */
+    public void routeSaved(Route previous, Route current) {
+        if (previous != null && samePair(previous, current) || !hasCollection()) {
+            return;
+        }
+        try {
+            if (previous != null) {
+                adjust(previous, -1);
+            }
+            adjust(current, 1);
+        } catch (CouchbaseException e) {
+            log.warn("Could not update {} for route {}, rebuild it to repair", COLLECTION, current.getId(), e);
+        }
+    }
+
+    public void routeDeleted(Route previous) {
+        if (!hasCollection()) {
+            return;
+        }
+        try {
+            adjust(previous, -1);
+        } catch (CouchbaseException e) {
+            log.warn("Could not update {} for route {}, rebuild it to repair", COLLECTION, previous.getId(), e);
+        }
+    }
+
+    /**
+     * Recomputes the whole index from the {@code route} collection. Route writes
+     * that race with the rebuild may be lost from the counts; run it again to
+     * repair them. Does nothing if the collection has not been created.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        collectionExists = probeCollection();
+        if (!collectionExists) {
+            log.warn("Collection {}.{} does not exist, create it with scripts/setup.sqlpp to use it",
+                    DocumentWriter.SCOPE, COLLECTION);
+            return;
+        }
+        List<JsonObject> rows = bucket.scope(DocumentWriter.SCOPE)
+                .query(COUNT_QUERY, QueryOptions.queryOptions()
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS)
+                        .readonly(true))
+                .rowsAsObject();
+        Map<String, JsonObject> byDestination = new HashMap<>();
+        for (JsonObject row : rows) {
+            byDestination.computeIfAbsent(row.getString("destination"), d -> JsonObject.create())
+                    .put(row.getString("airline"), row.getLong("routes"));
+        }
+        Collection collection = collection();
+        byDestination.forEach((destination, airlines) ->
+                collection.upsert(destination, JsonObject.create().put(AIRLINES, airlines)));
+
+        Set<String> stale = new HashSet<>();
+        try (Stream<ScanResult> ids = collection.scan(ScanType.rangeScan(ScanTerm.minimum(), ScanTerm.maximum()),
+                ScanOptions.scanOptions().idsOnly(true))) {
+            ids.map(ScanResult::id)
+                    .filter(id -> !id.equals(MARKER_ID) && !byDestination.containsKey(id))
+                    .forEach(stale::add);
+        }
+        for (String id : stale) {
+            collection.remove(id);
+        }
+        collection.upsert(MARKER_ID, JsonObject.create().put("rebuiltAt", Instant.now().toString()));
+        ready.set(true);
+        log.info("Rebuilt {} with {} airports in {} ms", COLLECTION, byDestination.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildIfMissing() {
+        if (!rebuildOnStartup || isReady()) {
+            return;
+        }
+        startupTasks.run("airline-by-destination-rebuild", () -> {
+            try {
+                rebuild();
+            } catch (CouchbaseException e) {
+                log.error("Could not rebuild {}, /to-airport keeps using N1QL", COLLECTION, e);
+            }
+        });
+    }
+
+    private boolean isReady() {
+        if (ready.get()) {
+            return true;
+        }
+        if (!hasCollection()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - nextMarkerCheck < 0) {
+            return false;
+        }
+        nextMarkerCheck = now + RECHECK_INTERVAL.toNanos();
+        try {
+            if (collection().exists(MARKER_ID).exists()) {
+                ready.set(true);
+                return true;
+            }
+        } catch (CouchbaseException e) {
+            log.debug("{} is not available yet", COLLECTION, e);
+        }
+        return false;
+    }
+
+    private boolean hasCollection() {
+        if (collectionExists) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - nextCollectionCheck < 0) {
+            return false;
+        }
+        nextCollectionCheck = now + RECHECK_INTERVAL.toNanos();
+        try {
+            collectionExists = probeCollection();
+        } catch (CouchbaseException e) {
+            log.debug("Could not look up collection {}", COLLECTION, e);
+        }
+        return collectionExists;
+    }
+
+    private boolean probeCollection() {
+        List<Long> count = bucket.scope(DocumentWriter.SCOPE)
+                .query(KEYSPACE_QUERY, QueryOptions.queryOptions()
+                        .parameters(JsonArray.from(bucket.name(), DocumentWriter.SCOPE, COLLECTION))
+                        .readonly(true))
+                .rowsAs(Long.class);
+        return !count.isEmpty() && count.get(0) > 0;
+    }
+
+    private void adjust(Route route, int delta) {
+        if (route.getDestinationAirport() == null || route.getAirlineId() == null) {
+            return;
+        }
+        String path = AIRLINES + ".`" + route.getAirlineId() + "`";
+        Collection collection = collection();
+        if (delta > 0) {
+            collection.mutateIn(route.getDestinationAirport(),
+                    List.of(MutateInSpec.increment(path, delta).createPath()),
+                    MutateInOptions.mutateInOptions().storeSemantics(StoreSemantics.UPSERT));
+            return;
+        }
+        try {
+            MutateInResult result = collection.mutateIn(route.getDestinationAirport(),
+                    List.of(MutateInSpec.decrement(path, -delta)));
+            if (result.contentAs(0, Long.class) <= 0) {
+                // Only if nobody has added a route for the airline since
+                collection.mutateIn(route.getDestinationAirport(), List.of(MutateInSpec.remove(path)),
+                        MutateInOptions.mutateInOptions().cas(result.cas()));
+            }
+        } catch (DocumentNotFoundException | PathNotFoundException | CasMismatchException e) {
+            log.debug("Skipping decrement of {} for {}", path, route.getDestinationAirport());
+        }
+    }
+
+    private Collection collection() {
+        return bucket.scope(DocumentWriter.SCOPE).collection(COLLECTION);
+    }
+
+    private static boolean samePair(Route a, Route b) {
+        return Objects.equals(a.getDestinationAirport(), b.getDestinationAirport())
+                && Objects.equals(a.getAirlineId(), b.getAirlineId());
+    }
+}
@@ -1,54 +1,241 @@
 package org.couchbase.quickstart.springdata.services;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.ApproximatePage;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.TotalMode;
 import org.couchbase.quickstart.springdata.repository.AirlineRepository;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import com.couchbase.client.java.json.JsonArray;
+
+import tools.jackson.databind.JsonNode;
+
 @Service
 public class AirlineService {
 
+    private static final String COLLECTION = "airline";
+
+    // What suggestions return, so patches to anything else skip them
+    private static final Set<String> SUGGESTED_FIELDS = Set.of("name", "iata", "icao", "country");
+
     private final AirlineRepository airlineRepository;
+    private final DocumentWriter documentWriter;
+    private final BatchWriter batchWriter;
+    private final BatchReader batchReader;
+    private final QueryOptionsProvider queryOptionsProvider;
+    private final CollectionExporter collectionExporter;
+    private final AirlineDestinationIndex airlineDestinationIndex;
+    private final SuggestService suggestService;
+    private final CountCache countCache;
+    private final FieldProjector fieldProjector;
+    private final DocumentPatcher documentPatcher;
+    private final DocumentReader documentReader;
+    private final EntityCache<Versioned<Airline>> airlineCache;
 
-    public AirlineService(AirlineRepository airlineRepository) {
+    public AirlineService(AirlineRepository airlineRepository,
+            DocumentWriter documentWriter, BatchWriter batchWriter, BatchReader batchReader,
+            QueryOptionsProvider queryOptionsProvider, CollectionExporter collectionExporter,
+            AirlineDestinationIndex airlineDestinationIndex, SuggestService suggestService, CountCache countCache,
+            FieldProjector fieldProjector, DocumentPatcher documentPatcher, DocumentReader documentReader,
+            @Value("${app.cache.airline.max-size:1000}") int cacheSize,
+            @Value("${app.cache.airline.ttl:10m}") Duration cacheTtl) {
         this.airlineRepository = airlineRepository;
+        this.documentWriter = documentWriter;
+        this.batchWriter = batchWriter;
+        this.batchReader = batchReader;
+        this.queryOptionsProvider = queryOptionsProvider;
+        this.collectionExporter = collectionExporter;
+        this.airlineDestinationIndex = airlineDestinationIndex;
+        this.suggestService = suggestService;
+        this.countCache = countCache;
+        this.fieldProjector = fieldProjector;
+        this.documentPatcher = documentPatcher;
+        this.documentReader = documentReader;
+        this.airlineCache = new EntityCache<>(cacheSize, cacheTtl, Versioned::cas);
     }
 
-    public Page<Airline> getAllAirlines(Pageable pageable) {
-        return airlineRepository.findAll(pageable);
+    public Slice<Airline> getAllAirlines(Pageable pageable, TotalMode total) {
+        AirlineRepository repository = queryOptionsProvider.apply(airlineRepository);
+        return switch (total) {
+            case EXACT -> Pages.page(pageable, repository::findPage, repository::countAll);
+            case NONE -> Pages.slice(pageable, repository::findPage);
+            case APPROX -> new ApproximatePage<>(Pages.slice(pageable, repository::findPage),
+                    countCache.get(COLLECTION, repository::countAll));
+        };
+    }
+
+    public Slice<Map<String, Object>> getAllAirlines(Pageable pageable, TotalMode total, String fields) {
+        AirlineRepository repository = queryOptionsProvider.apply(airlineRepository);
+        return fieldProjector.query("airline AS air", "air", JsonArray.create(),
+                fieldProjector.parse(Airline.class, fields), pageable, total, COLLECTION, repository::countAll);
+    }
+
+    public List<Airline> getAirlinesAfter(String lastId, int limit) {
+        return queryOptionsProvider.apply(airlineRepository).findAfter(lastId, limit);
     }
 
     public Optional<Airline> getAirlineById(String id) {
-        return airlineRepository.findById(id);
+        return getVersionedAirline(id).map(Versioned::value);
+    }
+
+    public Optional<Versioned<Airline>> getVersionedAirline(String id) {
+        return airlineCache.get(id, missing -> documentReader.findById(Airline.class, COLLECTION, missing));
+    }
+
+    public Optional<Map<String, Object>> getAirlineById(String id, String fields) {
+        return fieldProjector.lookup(COLLECTION, id, fieldProjector.parse(Airline.class, fields));
+    }
+
+    public MultiGetResult<Airline> getAirlinesByIds(List<String> ids) {
+        List<Versioned<Airline>> airlines = airlineCache.getAll(ids,
+                missing -> batchReader.findAllVersionsById(Airline.class, COLLECTION, missing),
+                found -> found.value().getId());
+        return MultiGetResult.of(ids, airlines.stream().map(Versioned::value).toList(), Airline::getId);
     }
 
     public Airline saveAirline(Airline airline) {
-        return airlineRepository.save(airline);
+        return saveAirline(airline, 0).value();
+    }
+
+    /**
+     * Writes the airline, replacing it only if its CAS is still {@code cas}, or if it
+     * exists at all if {@code cas} is {@link DocumentWriter#ANY_CAS}, or
+     * unconditionally if {@code cas} is 0.
+     */
+    public Versioned<Airline> saveAirline(Airline airline, long cas) {
+        Versioned<Airline> saved = cas == 0
+                ? documentWriter.upsert(COLLECTION, airline)
+                : documentWriter.replace(COLLECTION, airline, cas);
+        airlineCache.put(airline.getId(), saved);
+        suggestService.airlinesSaved(List.of(airline));
+        return saved;
     }
 
     public void deleteAirline(String id) {
-        airlineRepository.deleteById(id);
+        deleteAirline(id, 0);
+    }
+
+    public void deleteAirline(String id, long cas) {
+        documentWriter.remove(COLLECTION, id, cas);
+        airlineCache.invalidate(id);
+        suggestService.deleted(id);
     }
 
     public Airline createAirline(Airline airline) {
-        return airlineRepository.save(airline);
+        return saveAirline(airline);
+    }
+
+    public List<BatchItemResult> createAirlines(List<Airline> airlines, boolean upsert) {
+        List<BatchItemResult> results = batchWriter.write(COLLECTION, airlines, Airline::getId, upsert);
+        List<Airline> written = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isWritten()) {
+                // The batch does not return the CAS, so the next read loads it
+                airlineCache.invalidate(airlines.get(i).getId());
+                written.add(airlines.get(i));
+            }
+        }
+        suggestService.airlinesSaved(written);
+        return results;
     }
 
     public Airline updateAirline(String id, Airline airline) {
+        return updateAirline(id, airline, 0).value();
+    }
+
+    public Versioned<Airline> updateAirline(String id, Airline airline, long cas) {
         airline.setId(id);
-        return airlineRepository.save(airline);
+        return saveAirline(airline, cas);
+    }
+
+    public long patchAirline(String id, MediaType contentType, JsonNode patch, long cas) {
+        DocumentPatcher.Patch parsed = documentPatcher.parse(Airline.class, contentType, patch);
+        long patchedCas = documentPatcher.apply(COLLECTION, id, parsed, cas);
+        airlineCache.invalidate(id);
+        if (parsed.fields().stream().anyMatch(SUGGESTED_FIELDS::contains)) {
+            getAirlineById(id).ifPresent(patched -> suggestService.airlinesSaved(List.of(patched)));
+        }
+        return patchedCas;
+    }
+
+    public Slice<Airline> findByCountry(String country, Pageable pageable, TotalMode total) {
+        AirlineRepository repository = queryOptionsProvider.apply(airlineRepository);
+        Pages.PageQuery<Airline> query = (limit, offset) -> repository.findByCountry(country, limit, offset);
+        return switch (total) {
+            case EXACT -> Pages.page(pageable, query, () -> repository.countByCountry(country));
+            case NONE -> Pages.slice(pageable, query);
+            case APPROX -> new ApproximatePage<>(Pages.slice(pageable, query),
+                    countCache.get(COLLECTION + ":country:" + country, () -> repository.countByCountry(country)));
+        };
+    }
+
+    public Slice<Map<String, Object>> findByCountry(String country, Pageable pageable, TotalMode total,
+            String fields) {
+        AirlineRepository repository = queryOptionsProvider.apply(airlineRepository);
+        return fieldProjector.query("airline AS air WHERE air.country = $1", "air", JsonArray.from(country),
+                fieldProjector.parse(Airline.class, fields), pageable, total, COLLECTION + ":country:" + country,
+                () -> repository.countByCountry(country));
+    }
+
+    public List<Airline> findByCountryAfter(String country, String lastId, int limit) {
+        return queryOptionsProvider.apply(airlineRepository).findByCountryAfter(country, lastId, limit);
+    }
+
+    /**
+     * Pages through the airline IDs in the destination index and fetches just
+     * that page by ID. Falls back to the N1QL join until the index is built.
+     * The index lists every airline for the airport, so its total is exact
+     * whatever the mode.
+     */
+    public Slice<Airline> findByDestinationAirport(String destinationAirport, Pageable pageable, TotalMode total) {
+        Optional<List<String>> indexed = destinationAirport == null || pageable.isUnpaged()
+                ? Optional.empty()
+                : airlineDestinationIndex.airlineIds(destinationAirport);
+        if (indexed.isPresent()) {
+            List<String> ids = indexed.get();
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            return new PageImpl<>(getAirlinesByIds(ids.subList(from, to)).getFound(), pageable, ids.size());
+        }
+        AirlineRepository repository = queryOptionsProvider.apply(airlineRepository);
+        Pages.PageQuery<Airline> query = (limit, offset) -> repository.findByDestinationAirport(destinationAirport,
+                limit, offset);
+        return switch (total) {
+            case EXACT -> Pages.page(pageable, query, () -> repository.countByDestinationAirport(destinationAirport));
+            case NONE -> Pages.slice(pageable, query);
+            case APPROX -> new ApproximatePage<>(Pages.slice(pageable, query),
+                    countCache.get(COLLECTION + ":destination:" + destinationAirport,
+                            () -> repository.countByDestinationAirport(destinationAirport)));
+        };
+    }
+
+    public void exportAirlines(String after, OutputStream out, boolean gzip) throws IOException {
+        collectionExporter.export(COLLECTION, after, out, gzip);
     }
 
-    public Page<Airline> findByCountry(String country, Pageable pageable) {
-        return airlineRepository.findByCountry(country,pageable);
+    public void exportAirlineSample(long limit, OutputStream out, boolean gzip) throws IOException {
+        collectionExporter.exportSample(COLLECTION, limit, out, gzip);
     }
 
-    public Page<Airline> findByDestinationAirport(String destinationAirport, Pageable pageable) {
-        return airlineRepository.findByDestinationAirport(destinationAirport, pageable);
+    public EntityCache.Stats getCacheStats() {
+        return airlineCache.stats();
     }
 
 }
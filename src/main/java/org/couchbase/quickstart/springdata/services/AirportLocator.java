@@ -0,0 +1,153 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.NearbyAirport;
+
+/**
+ * Immutable snapshot of airport locations for nearby searches. Airports are
+ * bucketed into a grid of one-degree cells and stored cell by cell in
+ * compressed sparse row arrays, so a search only computes distances for the
+ * airports in the cells its radius overlaps.
+ * <p>
+ * Distances are great-circle distances from the haversine formula.
+ */
+public final class AirportLocator {
+
+    public static final AirportLocator EMPTY = build(List.of());
+
+    // Mean Earth radius
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    // Half the circumference: no two points are further apart
+    public static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+    private static final int ROWS = 180;
+    private static final int COLUMNS = 360;
+
+    // First radius tried by a k-nearest search, doubled until it holds k airports
+    private static final double INITIAL_KNN_RADIUS_KM = 100;
+
+    public record Location(String id, String faa, String airportName, String city, String country, double lat,
+            double lon) {
+    }
+
+    private final int[] offsets;
+    private final double[] lats;
+    private final double[] lons;
+    private final Location[] locations;
+
+    private AirportLocator(int[] offsets, double[] lats, double[] lons, Location[] locations) {
+        this.offsets = offsets;
+        this.lats = lats;
+        this.lons = lons;
+        this.locations = locations;
+    }
+
+    public static AirportLocator build(Collection<Location> airports) {
+        int[] offsets = new int[ROWS * COLUMNS + 1];
+        for (Location airport : airports) {
+            offsets[cell(airport.lat(), airport.lon()) + 1]++;
+        }
+        for (int i = 0; i < ROWS * COLUMNS; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, ROWS * COLUMNS);
+        double[] lats = new double[airports.size()];
+        double[] lons = new double[airports.size()];
+        Location[] locations = new Location[airports.size()];
+        for (Location airport : airports) {
+            int slot = next[cell(airport.lat(), airport.lon())]++;
+            lats[slot] = airport.lat();
+            lons[slot] = airport.lon();
+            locations[slot] = airport;
+        }
+        return new AirportLocator(offsets, lats, lons, locations);
+    }
+
+    public int airportCount() {
+        return locations.length;
+    }
+
+    /**
+     * Returns up to {@code limit} airports within {@code radiusKm} of the given
+     * point, nearest first.
+     */
+    public List<NearbyAirport> findWithin(double lat, double lon, double radiusKm, int limit) {
+        List<NearbyAirport> found = new ArrayList<>();
+        if (limit < 1 || radiusKm < 0) {
+            return found;
+        }
+        double radius = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = lat - radius;
+        double maxLat = lat + radius;
+        int firstRow = row(Math.max(minLat, -90));
+        int lastRow = row(Math.min(maxLat, 90));
+        int firstColumn = 0;
+        int columns = COLUMNS;
+        // Near the poles or for huge radii the circle spans every longitude
+        if (minLat > -90 && maxLat < 90 && radius < 90) {
+            double halfWidth = Math.toDegrees(Math.asin(
+                    Math.sin(Math.toRadians(radius)) / Math.cos(Math.toRadians(lat))));
+            if (halfWidth < 180) {
+                int west = (int) Math.floor(lon - halfWidth);
+                int east = (int) Math.floor(lon + halfWidth);
+                firstColumn = Math.floorMod(west + 180, COLUMNS);
+                columns = Math.min(COLUMNS, east - west + 1);
+            }
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int c = 0; c < columns; c++) {
+                int cell = row * COLUMNS + (firstColumn + c) % COLUMNS;
+                for (int i = offsets[cell]; i < offsets[cell + 1]; i++) {
+                    double distance = distanceKm(lat, lon, lats[i], lons[i]);
+                    if (distance <= radiusKm) {
+                        found.add(toNearbyAirport(locations[i], distance));
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingDouble(NearbyAirport::getDistanceKm));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * Returns the {@code k} airports nearest to the given point, nearest first.
+     * <p>
+     * Searches a small radius first and doubles it until it holds {@code k}
+     * airports: all of them are then nearer than any airport outside it.
+     */
+    public List<NearbyAirport> findNearest(double lat, double lon, int k) {
+        for (double radiusKm = INITIAL_KNN_RADIUS_KM; ; radiusKm *= 2) {
+            List<NearbyAirport> found = findWithin(lat, lon, radiusKm, k);
+            if (found.size() >= k || radiusKm >= MAX_DISTANCE_KM) {
+                return found;
+            }
+        }
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int cell(double lat, double lon) {
+        return row(lat) * COLUMNS + Math.floorMod((int) Math.floor(lon) + 180, COLUMNS);
+    }
+
+    private static int row(double lat) {
+        return Math.min(ROWS - 1, Math.max(0, (int) Math.floor(lat) + 90));
+    }
+
+    private static NearbyAirport toNearbyAirport(Location airport, double distance) {
+        return new NearbyAirport(airport.id(), airport.faa(), airport.airportName(), airport.city(),
+                airport.country(), airport.lat(), airport.lon(), distance);
+    }
+}
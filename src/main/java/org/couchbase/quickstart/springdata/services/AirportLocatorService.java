@@ -0,0 +1,144 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.NearbyAirport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps an in-memory {@link AirportLocator} of all airport locations for
+ * nearby searches.
+ * <p>
+ * The locator is loaded from the {@code airport} collection by
+ * {@link StartupTasks} once the application is ready, or by the first nearby
+ * search if that comes earlier. Airports written or deleted through
+ * {@link AirportService} after that re-bucket {@link #locations} into a new
+ * grid, which replaces the old one in a single reference swap, so a search
+ * walks the cells of one grid from start to end.
+ */
+@Slf4j
+@Service
+public class AirportLocatorService {
+
+    private static final String LOCATION_QUERY = "SELECT META(airport).id AS id, airport.faa, "
+            + "airport.airportname, airport.city, airport.country, airport.geo.lat, airport.geo.lon FROM airport";
+
+    private final Bucket bucket;
+    private final StartupTasks startupTasks;
+    private final boolean loadOnStartup;
+    private final AtomicReference<AirportLocator> snapshot = new AtomicReference<>();
+
+    // The airports that have coordinates by ID, which every grid is built
+    // from; guarded by this
+    private final Map<String, AirportLocator.Location> locations = new HashMap<>();
+
+    public AirportLocatorService(Bucket bucket, StartupTasks startupTasks,
+            @Value("${app.airport-locator.load-on-startup:true}") boolean loadOnStartup) {
+        this.bucket = bucket;
+        this.startupTasks = startupTasks;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    public AirportLocator locator() {
+        AirportLocator locator = snapshot.get();
+        return locator != null ? locator : load();
+    }
+
+    public List<NearbyAirport> findWithin(double lat, double lon, double radiusKm, int limit) {
+        return locator().findWithin(lat, lon, radiusKm, limit);
+    }
+
+    public List<NearbyAirport> findNearest(double lat, double lon, int k) {
+        return locator().findNearest(lat, lon, k);
+    }
+
+    public synchronized void airportsSaved(Collection<Airport> airports) {
+        if (snapshot.get() == null) {
+            // The location query runs with REQUEST_PLUS, so the load sees them
+            return;
+        }
+        for (Airport airport : airports) {
+            AirportLocator.Location location = toLocation(airport);
+            if (location != null) {
+                locations.put(airport.getId(), location);
+            } else {
+                locations.remove(airport.getId());
+            }
+        }
+        snapshot.set(AirportLocator.build(locations.values()));
+    }
+
+    public synchronized void airportDeleted(String id) {
+        if (snapshot.get() != null && locations.remove(id) != null) {
+            snapshot.set(AirportLocator.build(locations.values()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        if (!loadOnStartup || snapshot.get() != null) {
+            return;
+        }
+        startupTasks.run("airport-locator-load", () -> {
+            try {
+                load();
+            } catch (CouchbaseException e) {
+                log.error("Could not load airport locations, retrying on first nearby search", e);
+            }
+        });
+    }
+
+    // Holding the monitor for the whole query makes airportsSaved wait for the
+    // first grid, so an airport saved meanwhile is not lost
+    private synchronized AirportLocator load() {
+        AirportLocator locator = snapshot.get();
+        if (locator != null) {
+            return locator;
+        }
+        long start = System.nanoTime();
+        List<JsonObject> rows = bucket.scope(DocumentWriter.SCOPE)
+                .query(LOCATION_QUERY, QueryOptions.queryOptions()
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS)
+                        .readonly(true))
+                .rowsAsObject();
+        for (JsonObject row : rows) {
+            Number lat = row.getNumber("lat");
+            Number lon = row.getNumber("lon");
+            if (lat != null && lon != null) {
+                locations.put(row.getString("id"), new AirportLocator.Location(row.getString("id"),
+                        row.getString("faa"), row.getString("airportname"), row.getString("city"),
+                        row.getString("country"), lat.doubleValue(), lon.doubleValue()));
+            }
+        }
+        locator = AirportLocator.build(locations.values());
+        snapshot.set(locator);
+        log.info("Loaded {} airport locations in {} ms", locator.airportCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return locator;
+    }
+
+    private static AirportLocator.Location toLocation(Airport airport) {
+        Airport.Geo geo = airport.getGeo();
+        if (geo == null || geo.getLat() == null || geo.getLon() == null) {
+            return null;
+        }
+        return new AirportLocator.Location(airport.getId(), airport.getFaa(), airport.getAirportName(),
+                airport.getCity(), airport.getCountry(), geo.getLat(), geo.getLon());
+    }
+}
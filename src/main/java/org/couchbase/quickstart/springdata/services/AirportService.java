@@ -1,51 +1,223 @@
 package org.couchbase.quickstart.springdata.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.ApproximatePage;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.Itinerary;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.NearbyAirport;
 import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.TotalMode;
 import org.couchbase.quickstart.springdata.repository.AirportRepository;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import com.couchbase.client.java.json.JsonArray;
+
+import tools.jackson.databind.JsonNode;
+
 @Service
 public class AirportService {
 
+    private static final String COLLECTION = "airport";
+
+    // What nearby searches and suggestions return, so patches to anything else skip them
+    private static final Set<String> INDEXED_FIELDS = Set.of("faa", "icao", "airportname", "city", "country", "geo");
+
     private final AirportRepository airportRepository;
+    private final DocumentWriter documentWriter;
+    private final BatchWriter batchWriter;
+    private final BatchReader batchReader;
+    private final QueryOptionsProvider queryOptionsProvider;
+    private final CollectionExporter collectionExporter;
+    private final RouteGraphService routeGraphService;
+    private final AirportLocatorService airportLocatorService;
+    private final SuggestService suggestService;
+    private final CountCache countCache;
+    private final FieldProjector fieldProjector;
+    private final DocumentPatcher documentPatcher;
+    private final DocumentReader documentReader;
+    private final EntityCache<Versioned<Airport>> airportCache;
 
-    public AirportService(AirportRepository airportRepository) {
+    public AirportService(AirportRepository airportRepository,
+            DocumentWriter documentWriter, BatchWriter batchWriter, BatchReader batchReader,
+            QueryOptionsProvider queryOptionsProvider, CollectionExporter collectionExporter,
+            RouteGraphService routeGraphService, AirportLocatorService airportLocatorService,
+            SuggestService suggestService, CountCache countCache, FieldProjector fieldProjector,
+            DocumentPatcher documentPatcher, DocumentReader documentReader,
+            @Value("${app.cache.airport.max-size:10000}") int cacheSize,
+            @Value("${app.cache.airport.ttl:10m}") Duration cacheTtl) {
         this.airportRepository = airportRepository;
+        this.documentWriter = documentWriter;
+        this.batchWriter = batchWriter;
+        this.batchReader = batchReader;
+        this.queryOptionsProvider = queryOptionsProvider;
+        this.collectionExporter = collectionExporter;
+        this.routeGraphService = routeGraphService;
+        this.airportLocatorService = airportLocatorService;
+        this.suggestService = suggestService;
+        this.countCache = countCache;
+        this.fieldProjector = fieldProjector;
+        this.documentPatcher = documentPatcher;
+        this.documentReader = documentReader;
+        this.airportCache = new EntityCache<>(cacheSize, cacheTtl, Versioned::cas);
+    }
+
+    public Slice<Airport> getAllAirports(Pageable pageable, TotalMode total) {
+        AirportRepository repository = queryOptionsProvider.apply(airportRepository);
+        return switch (total) {
+            case EXACT -> Pages.page(pageable, repository::findPage, repository::countAll);
+            case NONE -> Pages.slice(pageable, repository::findPage);
+            case APPROX -> new ApproximatePage<>(Pages.slice(pageable, repository::findPage),
+                    countCache.get(COLLECTION, repository::countAll));
+        };
+    }
+
+    public Slice<Map<String, Object>> getAllAirports(Pageable pageable, TotalMode total, String fields) {
+        AirportRepository repository = queryOptionsProvider.apply(airportRepository);
+        return fieldProjector.query("airport", "airport", JsonArray.create(),
+                fieldProjector.parse(Airport.class, fields), pageable, total, COLLECTION, repository::countAll);
     }
 
-    public Page<Airport> getAllAirports(Pageable pageable) {
-        return airportRepository.findAll(pageable);
+    public List<Airport> getAirportsAfter(String lastId, int limit) {
+        return queryOptionsProvider.apply(airportRepository).findAfter(lastId, limit);
     }
 
     public Optional<Airport> getAirportById(String id) {
-        return airportRepository.findById(id);
+        return getVersionedAirport(id).map(Versioned::value);
+    }
+
+    public Optional<Versioned<Airport>> getVersionedAirport(String id) {
+        return airportCache.get(id, missing -> documentReader.findById(Airport.class, COLLECTION, missing));
+    }
+
+    public Optional<Map<String, Object>> getAirportById(String id, String fields) {
+        return fieldProjector.lookup(COLLECTION, id, fieldProjector.parse(Airport.class, fields));
+    }
+
+    public MultiGetResult<Airport> getAirportsByIds(List<String> ids) {
+        List<Versioned<Airport>> airports = airportCache.getAll(ids,
+                missing -> batchReader.findAllVersionsById(Airport.class, COLLECTION, missing),
+                found -> found.value().getId());
+        return MultiGetResult.of(ids, airports.stream().map(Versioned::value).toList(), Airport::getId);
     }
 
     public Airport saveAirport(Airport airport) {
-        return airportRepository.save(airport);
+        return saveAirport(airport, 0).value();
+    }
+
+    /**
+     * Writes the airport, replacing it only if its CAS is still {@code cas}, or if it
+     * exists at all if {@code cas} is {@link DocumentWriter#ANY_CAS}, or
+     * unconditionally if {@code cas} is 0.
+     */
+    public Versioned<Airport> saveAirport(Airport airport, long cas) {
+        Versioned<Airport> saved = cas == 0
+                ? documentWriter.upsert(COLLECTION, airport)
+                : documentWriter.replace(COLLECTION, airport, cas);
+        airportCache.put(airport.getId(), saved);
+        airportLocatorService.airportsSaved(List.of(airport));
+        suggestService.airportsSaved(List.of(airport));
+        return saved;
     }
 
     public void deleteAirport(String id) {
-        airportRepository.deleteById(id);
+        deleteAirport(id, 0);
+    }
+
+    public void deleteAirport(String id, long cas) {
+        documentWriter.remove(COLLECTION, id, cas);
+        airportCache.invalidate(id);
+        airportLocatorService.airportDeleted(id);
+        suggestService.deleted(id);
     }
 
     public Airport createAirport(Airport airport) {
-        return airportRepository.save(airport);
+        return saveAirport(airport);
+    }
+
+    public List<BatchItemResult> createAirports(List<Airport> airports, boolean upsert) {
+        List<BatchItemResult> results = batchWriter.write(COLLECTION, airports, Airport::getId, upsert);
+        List<Airport> written = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isWritten()) {
+                // The batch does not return the CAS, so the next read loads it
+                airportCache.invalidate(airports.get(i).getId());
+                written.add(airports.get(i));
+            }
+        }
+        airportLocatorService.airportsSaved(written);
+        suggestService.airportsSaved(written);
+        return results;
     }
 
     public Airport updateAirport(String id, Airport airport) {
+        return updateAirport(id, airport, 0).value();
+    }
+
+    public Versioned<Airport> updateAirport(String id, Airport airport, long cas) {
         airport.setId(id);
-        return airportRepository.save(airport);
+        return saveAirport(airport, cas);
+    }
+
+    public long patchAirport(String id, MediaType contentType, JsonNode patch, long cas) {
+        DocumentPatcher.Patch parsed = documentPatcher.parse(Airport.class, contentType, patch);
+        long patchedCas = documentPatcher.apply(COLLECTION, id, parsed, cas);
+        airportCache.invalidate(id);
+        if (parsed.fields().stream().anyMatch(INDEXED_FIELDS::contains)) {
+            getAirportById(id).ifPresent(patched -> {
+                airportLocatorService.airportsSaved(List.of(patched));
+                suggestService.airportsSaved(List.of(patched));
+            });
+        }
+        return patchedCas;
     }
 
     public Slice<Route> getDirectConnections(String id, Pageable pageable) {
-        return airportRepository.getDirectConnections(id, pageable);
+        AirportRepository repository = queryOptionsProvider.apply(airportRepository);
+        return Pages.slice(pageable, (limit, offset) -> repository.getDirectConnections(id, limit, offset));
+    }
+
+    public Slice<Map<String, Object>> getDirectConnections(String id, Pageable pageable, String fields) {
+        return fieldProjector.query("airport AS airport JOIN route AS route ON airport.faa = route.sourceairport "
+                + "WHERE airport.faa = $1 AND route.stops = 0", "route", JsonArray.from(id),
+                fieldProjector.parse(Route.class, fields), pageable, TotalMode.NONE, null, null);
+    }
+
+    public Optional<List<Itinerary>> findPaths(String from, String to, int maxStops, int limit) {
+        return routeGraphService.findPaths(from, to, maxStops, limit);
+    }
+
+    public List<NearbyAirport> findNearbyAirports(double lat, double lon, double radiusKm, int limit) {
+        return airportLocatorService.findWithin(lat, lon, radiusKm, limit);
+    }
+
+    public List<NearbyAirport> findNearestAirports(double lat, double lon, int k) {
+        return airportLocatorService.findNearest(lat, lon, k);
+    }
+
+    public void exportAirports(String after, OutputStream out, boolean gzip) throws IOException {
+        collectionExporter.export(COLLECTION, after, out, gzip);
+    }
+
+    public void exportAirportSample(long limit, OutputStream out, boolean gzip) throws IOException {
+        collectionExporter.exportSample(COLLECTION, limit, out, gzip);
+    }
+
+    public EntityCache.Stats getCacheStats() {
+        return airportCache.stats();
     }
 
 }
@@ -0,0 +1,75 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fetches many documents by ID through the reactive KV API, which issues the
+ * gets concurrently so the whole batch costs about one round trip.
+ */
+@Component
+public class BatchReader {
+
+    private final Bucket bucket;
+    private final DocumentReader documentReader;
+
+    public BatchReader(Bucket bucket, DocumentReader documentReader) {
+        this.bucket = bucket;
+        this.documentReader = documentReader;
+    }
+
+    /**
+     * Returns the documents that exist, in no particular order. Missing IDs are
+     * skipped.
+     */
+    public <T> List<T> findAllById(Class<T> type, String collection, Collection<String> ids) {
+        return findAllVersionsById(type, collection, ids).stream().map(Versioned::value).toList();
+    }
+
+    /**
+     * Like {@link #findAllById}, with the CAS of each document.
+     */
+    public <T> List<Versioned<T>> findAllVersionsById(Class<T> type, String collection, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ReactiveCollection reactiveCollection = bucket.scope(DocumentWriter.SCOPE).collection(collection).reactive();
+        return Flux.fromIterable(ids)
+                .flatMap(id -> reactiveCollection.get(id)
+                        .map(result -> documentReader.decode(type, id, result))
+                        .onErrorResume(DocumentNotFoundException.class, e -> Mono.empty()))
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Reads just the {@code specs} of many documents with concurrent
+     * {@code lookupIn} requests, for callers that need a few fields rather than
+     * whole documents. Missing IDs are skipped.
+     */
+    public <T> List<T> lookupAllById(String collection, Collection<String> ids, List<LookupInSpec> specs,
+            BiFunction<String, LookupInResult, T> mapper) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ReactiveCollection reactiveCollection = bucket.scope(DocumentWriter.SCOPE).collection(collection).reactive();
+        return Flux.fromIterable(ids)
+                .flatMap(id -> reactiveCollection.lookupIn(id, specs)
+                        .map(result -> mapper.apply(id, result))
+                        .onErrorResume(DocumentNotFoundException.class, e -> Mono.empty()))
+                .collectList()
+                .block();
+    }
+}
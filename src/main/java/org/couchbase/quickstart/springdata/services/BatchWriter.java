@@ -0,0 +1,176 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.BatchItemResult.Status;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.couchbase.core.mapping.CouchbaseDocument;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.msg.kv.MutationToken;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.kv.MutationResult;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes many documents at once through the reactive KV API, keeping at most
+ * {@code app.batch.parallelism} KV operations in flight. Each item is reported
+ * individually, so one bad document does not fail the batch.
+ * <p>
+ * Documents are encoded like {@link DocumentWriter} does, and the blocking
+ * {@link #write} records the mutation tokens of the batch in the
+ * {@link ConsistencyContext} of the request, like every other write.
+ */
+@Slf4j
+@Component
+public class BatchWriter {
+
+    private final DocumentWriter documentWriter;
+    private final ObjectProvider<Validator> validator;
+    private final JsonMapper jsonMapper;
+    private final int parallelism;
+    private final int maxItems;
+
+    public BatchWriter(DocumentWriter documentWriter, ObjectProvider<Validator> validator,
+            JsonMapper jsonMapper,
+            @Value("${app.batch.parallelism:32}") int parallelism,
+            @Value("${app.batch.max-items:10000}") int maxItems) {
+        this.documentWriter = documentWriter;
+        this.validator = validator;
+        this.jsonMapper = jsonMapper;
+        this.parallelism = parallelism;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Reads newline-delimited JSON documents.
+     *
+     * @throws IllegalArgumentException if the body holds more than
+     *                                  {@code app.batch.max-items} documents
+     */
+    public <T> List<T> readNdjson(InputStream body, Class<T> type) {
+        List<T> items = new ArrayList<>();
+        try (MappingIterator<T> iterator = jsonMapper.readerFor(type).readValues(body)) {
+            while (iterator.hasNext()) {
+                items.add(iterator.next());
+                checkSize(items.size());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Inserts, or upserts, every item and returns one result per item in input
+     * order. The mutation tokens of the written items are recorded for the
+     * current request.
+     *
+     * @throws IllegalArgumentException if there are more than
+     *                                  {@code app.batch.max-items} items
+     */
+    public <T> List<BatchItemResult> write(String collection, List<T> items, Function<T, String> idOf,
+            boolean upsert) {
+        checkSize(items.size());
+        List<Written> written = writeTracked(collection, Flux.fromIterable(items), idOf, upsert).block();
+        // Recorded here, on the request thread, since the writes complete on SDK threads
+        written.forEach(item -> ConsistencyContext.record(item.token()));
+        return written.stream().map(Written::result).toList();
+    }
+
+    /**
+     * Non-blocking variant of {@link #write}. The items are collected first, so
+     * an oversized batch is rejected with an {@link IllegalArgumentException}
+     * before anything is written.
+     */
+    public <T> Mono<List<BatchItemResult>> writeAll(String collection, Flux<T> items, Function<T, String> idOf,
+            boolean upsert) {
+        return writeTracked(collection, items, idOf, upsert)
+                .map(written -> written.stream().map(Written::result).toList());
+    }
+
+    private <T> Mono<List<Written>> writeTracked(String collection, Flux<T> items, Function<T, String> idOf,
+            boolean upsert) {
+        ReactiveCollection target = documentWriter.collection(collection).reactive();
+        return items.take(maxItems + 1L)
+                .collectList()
+                .flatMap(list -> {
+                    checkSize(list.size());
+                    return Flux.fromIterable(list)
+                            .flatMapSequential(item -> writeOne(target, item, idOf.apply(item), upsert), parallelism)
+                            .collectList();
+                });
+    }
+
+    private Mono<Written> writeOne(ReactiveCollection collection, Object item, String id, boolean upsert) {
+        if (id == null || id.isBlank()) {
+            return Mono.just(new Written(BatchItemResult.failed(id, Status.INVALID, "Id is mandatory")));
+        }
+        String violations = validate(item);
+        if (violations != null) {
+            return Mono.just(new Written(BatchItemResult.failed(id, Status.INVALID, violations)));
+        }
+        Mono<MutationResult> write = Mono.defer(() -> {
+            CouchbaseDocument document = documentWriter.encode(item);
+            return upsert
+                    ? collection.upsert(id, document.export())
+                    : collection.insert(id, document.export());
+        });
+        return write
+                .map(result -> new Written(BatchItemResult.of(id, upsert ? Status.UPSERTED : Status.CREATED),
+                        result.mutationToken()))
+                .onErrorResume(e -> Mono.just(new Written(toResult(id, e))));
+    }
+
+    private String validate(Object item) {
+        Validator v = validator.getIfAvailable();
+        if (v == null) {
+            return null;
+        }
+        Set<ConstraintViolation<Object>> violations = v.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .reduce((a, b) -> a + "; " + b)
+                .orElse(null);
+    }
+
+    private BatchItemResult toResult(String id, Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DocumentExistsException) {
+                return BatchItemResult.failed(id, Status.CONFLICT, "Document already exists");
+            }
+        }
+        log.warn("Batch write of {} failed", id, e);
+        return BatchItemResult.failed(id, Status.ERROR, e.getMessage());
+    }
+
+    private void checkSize(int size) {
+        if (size > maxItems) {
+            throw new IllegalArgumentException("Batch exceeds the limit of " + maxItems + " documents");
+        }
+    }
+
+    private record Written(BatchItemResult result, Optional<MutationToken> token) {
+
+        Written(BatchItemResult result) {
+            this(result, Optional.empty());
+        }
+    }
+}
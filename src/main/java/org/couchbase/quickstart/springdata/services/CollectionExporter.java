@@ -0,0 +1,161 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.kv.ScanOptions;
+import com.couchbase.client.java.kv.ScanResult;
+import com.couchbase.client.java.kv.ScanTerm;
+import com.couchbase.client.java.kv.ScanType;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Streams every document of a collection as newline-delimited JSON using KV
+ * range scans, so neither the query service nor an index is involved and
+ * memory use does not grow with the collection.
+ * <p>
+ * Each line is {@code {"id":...,"value":...}} with the stored document bytes
+ * copied as-is. A range scan returns its keys interleaved across vBuckets, so
+ * the key space is cut into sub-ranges, using a small sampling scan to pick
+ * the boundaries, and scanned one after the other. After each sub-range a
+ * {@code {"checkpoint":"<key>"}} line is written: every document with a key up
+ * to and including the checkpoint has been exported, and passing it back as
+ * {@code after} resumes the export from there.
+ */
+@Slf4j
+@Component
+public class CollectionExporter {
+
+    private static final byte[] ID_PREFIX = "{\"id\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VALUE_PREFIX = ",\"value\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CHECKPOINT_PREFIX = "{\"checkpoint\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_SUFFIX = "}\n".getBytes(StandardCharsets.UTF_8);
+
+    // Keys are ordered by their UTF-8 bytes on the server
+    private static final Comparator<String> KEY_ORDER = (a, b) -> Arrays.compareUnsigned(
+            a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+
+    private final Bucket bucket;
+    private final JsonMapper jsonMapper;
+    private final int ranges;
+    private final int flushEvery;
+
+    public CollectionExporter(Bucket bucket, JsonMapper jsonMapper,
+            @Value("${app.export.ranges:16}") int ranges,
+            @Value("${app.export.flush-every:500}") int flushEvery) {
+        this.bucket = bucket;
+        this.jsonMapper = jsonMapper;
+        this.ranges = Math.max(1, ranges);
+        this.flushEvery = Math.max(1, flushEvery);
+    }
+
+    /**
+     * Writes every document whose key sorts after {@code after}, or all of them
+     * when {@code after} is null or empty.
+     */
+    public void export(String collectionName, String after, OutputStream out, boolean gzip) throws IOException {
+        Collection collection = bucket.scope(DocumentWriter.SCOPE).collection(collectionName);
+        String start = after == null || after.isEmpty() ? null : after;
+        try (ExportStream export = new ExportStream(out, gzip)) {
+            ScanTerm from = start == null ? ScanTerm.minimum() : ScanTerm.exclusive(start);
+            for (String boundary : boundaries(collection, start)) {
+                export.writeAll(collection.scan(ScanType.rangeScan(from, ScanTerm.inclusive(boundary))));
+                export.writeCheckpoint(boundary);
+                from = ScanTerm.exclusive(boundary);
+            }
+            export.writeAll(collection.scan(ScanType.rangeScan(from, ScanTerm.maximum())));
+            log.debug("Exported {} documents from {}", export.count, collectionName);
+        }
+    }
+
+    /**
+     * Writes a random sample of about {@code limit} documents. There are no
+     * checkpoints, since a sample cannot be resumed.
+     */
+    public void exportSample(String collectionName, long limit, OutputStream out, boolean gzip) throws IOException {
+        Collection collection = bucket.scope(DocumentWriter.SCOPE).collection(collectionName);
+        try (ExportStream export = new ExportStream(out, gzip)) {
+            export.writeAll(collection.scan(ScanType.samplingScan(limit)));
+        }
+    }
+
+    private List<String> boundaries(Collection collection, String after) {
+        if (ranges == 1) {
+            return List.of();
+        }
+        List<String> keys;
+        try (Stream<ScanResult> sample = collection.scan(ScanType.samplingScan(ranges * 8L),
+                ScanOptions.scanOptions().idsOnly(true))) {
+            keys = sample.map(ScanResult::id)
+                    .filter(id -> after == null || KEY_ORDER.compare(id, after) > 0)
+                    .sorted(KEY_ORDER)
+                    .distinct()
+                    .toList();
+        }
+        List<String> boundaries = new ArrayList<>();
+        for (int i = 1; i < ranges && !keys.isEmpty(); i++) {
+            String key = keys.get((int) ((long) i * keys.size() / ranges));
+            if (boundaries.isEmpty() || !boundaries.get(boundaries.size() - 1).equals(key)) {
+                boundaries.add(key);
+            }
+        }
+        return boundaries;
+    }
+
+    private final class ExportStream implements AutoCloseable {
+
+        private final OutputStream out;
+        private final GZIPOutputStream gzipOut;
+        private long count;
+
+        ExportStream(OutputStream out, boolean gzip) throws IOException {
+            // syncFlush, so that flush() pushes the compressed rows to the client
+            this.gzipOut = gzip ? new GZIPOutputStream(out, 64 * 1024, true) : null;
+            this.out = gzip ? gzipOut : out;
+        }
+
+        void writeAll(Stream<ScanResult> results) throws IOException {
+            try (results) {
+                for (ScanResult result : (Iterable<ScanResult>) results::iterator) {
+                    out.write(ID_PREFIX);
+                    out.write(jsonMapper.writeValueAsBytes(result.id()));
+                    out.write(VALUE_PREFIX);
+                    out.write(result.contentAsBytes());
+                    out.write(LINE_SUFFIX);
+                    if (++count % flushEvery == 0) {
+                        out.flush();
+                    }
+                }
+            }
+        }
+
+        void writeCheckpoint(String key) throws IOException {
+            out.write(CHECKPOINT_PREFIX);
+            out.write(jsonMapper.writeValueAsBytes(key));
+            out.write(LINE_SUFFIX);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (gzipOut != null) {
+                gzipOut.finish();
+            }
+            out.flush();
+        }
+    }
+}
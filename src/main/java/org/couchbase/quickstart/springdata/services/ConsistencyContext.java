@@ -0,0 +1,113 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+import com.couchbase.client.core.msg.kv.MutationToken;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.MutationState;
+
+/**
+ * Per-request read-your-writes state.
+ * <p>
+ * Holds the mutation tokens a client sent back with its request, which list
+ * queries wait for, and collects the tokens of the writes made while handling
+ * the request so they can be returned to the client. Tokens travel as an
+ * opaque, URL-safe string in the {@value #HEADER} header.
+ */
+public final class ConsistencyContext {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<ConsistencyContext> CURRENT = new ThreadLocal<>();
+
+    private final MutationState requested;
+    private final MutationState produced = new MutationState();
+    private boolean hasProduced;
+
+    private ConsistencyContext(MutationState requested) {
+        this.requested = requested;
+    }
+
+    /**
+     * Binds a new context to the current thread.
+     *
+     * @throws IllegalArgumentException if the token cannot be decoded
+     */
+    public static ConsistencyContext open(String token) {
+        ConsistencyContext context = new ConsistencyContext(decode(token));
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    public static Optional<ConsistencyContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Records the token of a write made on the current thread. Writes made outside
+     * a request are not tracked.
+     */
+    public static void record(Optional<MutationToken> token) {
+        ConsistencyContext context = CURRENT.get();
+        if (context != null && token.isPresent()) {
+            context.produced.add(token.get());
+            context.hasProduced = true;
+        }
+    }
+
+    public Optional<MutationState> requested() {
+        return Optional.ofNullable(requested);
+    }
+
+    /**
+     * Returns the token to hand back to the client, covering both the tokens it
+     * sent and the writes made since, or empty if nothing was written.
+     */
+    public Optional<String> producedToken() {
+        if (!hasProduced) {
+            return Optional.empty();
+        }
+        MutationState merged = new MutationState();
+        if (requested != null) {
+            merged.add(requested);
+        }
+        merged.add(produced);
+        return Optional.of(encode(merged));
+    }
+
+    static String encode(MutationState state) {
+        byte[] json = state.export().toString().getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+
+    /**
+     * Returns the mutation state of a token, or null for none.
+     *
+     * @throws IllegalArgumentException if the token is not a token this
+     *                                  application handed out
+     */
+    static MutationState decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        MutationState state;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            state = MutationState.from(JsonObject.fromJson(json));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid consistency token", e);
+        }
+        // Well-formed JSON that holds no tokens would silently drop the client
+        // back to NOT_BOUNDED, so it is as invalid as any other garbage
+        if (!state.iterator().hasNext()) {
+            throw new IllegalArgumentException("Invalid consistency token: no mutation tokens");
+        }
+        return state;
+    }
+}
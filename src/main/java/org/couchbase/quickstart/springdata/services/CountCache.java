@@ -0,0 +1,33 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the result of COUNT queries for the approximate totals of list
+ * endpoints. A count is recomputed by the first request after it expires, so
+ * it is at most one TTL out of date.
+ */
+@Component
+public class CountCache {
+
+    private final EntityCache<Long> counts;
+
+    public CountCache(@Value("${app.count-cache.max-size:1000}") int maxSize,
+            @Value("${app.count-cache.ttl:1m}") Duration ttl) {
+        // Counts are never put or invalidated, so a zero size still works and just disables caching
+        this.counts = new EntityCache<>(maxSize, ttl);
+    }
+
+    public long get(String key, LongSupplier counter) {
+        return counts.get(key, k -> Optional.of(counter.getAsLong())).orElseThrow();
+    }
+
+    public EntityCache.Stats stats() {
+        return counts.stats();
+    }
+}
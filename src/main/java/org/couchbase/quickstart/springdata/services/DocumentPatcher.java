@@ -0,0 +1,529 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.mapping.CouchbasePersistentEntity;
+import org.springframework.data.couchbase.core.mapping.CouchbasePersistentProperty;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.error.CasMismatchException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInResult;
+import com.couchbase.client.java.kv.MutateInSpec;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Applies JSON Patch (RFC 6902) and JSON Merge Patch (RFC 7386) documents as
+ * sub-document {@code mutateIn} operations, so only the changed fields are
+ * sent to the server and replicated.
+ * <p>
+ * Paths use the JSON names of the entity's properties and are mapped to the
+ * stored names with the same mapping the repositories use; unknown fields and
+ * the ID are rejected. Array indexes address {@code List} properties, so
+ * {@code add} to {@code /schedule/-} appends a flight and {@code add} to
+ * {@code /schedule/2} inserts one.
+ * <p>
+ * Values are converted to the declared type of their property and checked
+ * against its constraints, and required properties cannot be removed, so a
+ * patch cannot store a document the model can no longer read.
+ * <p>
+ * Operations that need the current value ({@code test}, {@code move},
+ * {@code copy}, and merge-patch removals, which must ignore missing fields)
+ * read it with one {@code lookupIn} first and then apply the whole patch under
+ * that CAS, so it is still atomic. Since those reads see the document before
+ * the patch, a patch whose {@code test} or {@code from} reads a path written
+ * by an earlier operation is rejected rather than evaluated against the old
+ * value.
+ */
+@Component
+public class DocumentPatcher {
+
+    public static final String JSON_PATCH = "application/json-patch+json";
+    public static final String MERGE_PATCH = "application/merge-patch+json";
+
+    // Server limit on the specs in one lookupIn or mutateIn
+    private static final int MAX_OPERATIONS = 16;
+
+    private final MappingContext<? extends CouchbasePersistentEntity<?>, CouchbasePersistentProperty> mappingContext;
+    private final Bucket bucket;
+    private final JsonMapper jsonMapper;
+    private final ObjectProvider<Validator> validator;
+
+    public DocumentPatcher(CouchbaseTemplate couchbaseTemplate, Bucket bucket, JsonMapper jsonMapper,
+            ObjectProvider<Validator> validator) {
+        this.mappingContext = couchbaseTemplate.getConverter().getMappingContext();
+        this.bucket = bucket;
+        this.jsonMapper = jsonMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Parses a patch for {@code type} in the format given by its content type.
+     *
+     * @throws IllegalArgumentException if the patch is malformed, addresses an unknown field, holds an
+     *                                  invalid value, removes a required field or reads what it wrote before
+     */
+    public Patch parse(Class<?> type, MediaType contentType, JsonNode patch) {
+        CouchbasePersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+        List<Operation> operations = new ArrayList<>();
+        if (MediaType.valueOf(JSON_PATCH).isCompatibleWith(contentType)) {
+            parseJsonPatch(entity, patch, operations);
+        } else if (MediaType.valueOf(MERGE_PATCH).isCompatibleWith(contentType)) {
+            if (!patch.isObject()) {
+                throw new IllegalArgumentException("A merge patch must be an object");
+            }
+            parseMergePatch(entity, new ArrayList<>(), patch, operations);
+        } else {
+            throw new IllegalArgumentException("Unsupported patch format: " + contentType);
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The patch is empty");
+        }
+        checkSequential(operations);
+        long reads = operations.stream()
+                .filter(operation -> operation.kind() == Kind.TEST || operation.kind() == Kind.REMOVE_IF_EXISTS
+                        || operation.from() != null)
+                .count();
+        int writes = operations.stream()
+                .filter(operation -> operation.kind() != Kind.TEST)
+                .mapToInt(operation -> operation.name().equals("move") ? 2 : 1)
+                .sum();
+        if (reads > MAX_OPERATIONS || writes > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("A patch can have at most " + MAX_OPERATIONS + " operations");
+        }
+        return new Patch(operations);
+    }
+
+    /**
+     * Applies a parsed patch to the document {@code id} if its CAS is still
+     * {@code cas}, or whatever its CAS if {@code cas} is 0 or
+     * {@link DocumentWriter#ANY_CAS}, and returns the CAS it has afterwards.
+     *
+     * @throws CasMismatchException if the document has changed since {@code cas}
+     * @throws com.couchbase.client.core.error.DocumentNotFoundException if the document does not exist
+     * @throws IllegalStateException if a {@code test} operation fails
+     */
+    public long apply(String collectionName, String id, Patch patch, long cas) {
+        boolean checked = cas != 0 && cas != DocumentWriter.ANY_CAS;
+        Collection collection = bucket.scope(DocumentWriter.SCOPE).collection(collectionName);
+        List<LookupInSpec> reads = new ArrayList<>();
+        for (Operation operation : patch.operations) {
+            if (operation.kind() == Kind.TEST || operation.kind() == Kind.REMOVE_IF_EXISTS) {
+                reads.add(operation.kind() == Kind.TEST
+                        ? LookupInSpec.get(operation.path())
+                        : LookupInSpec.exists(operation.path()));
+            } else if (operation.from() != null) {
+                reads.add(LookupInSpec.get(operation.from()));
+            }
+        }
+        // mutateIn replaces by default, so a missing document fails even without a CAS
+        MutateInOptions options = MutateInOptions.mutateInOptions().cas(checked ? cas : 0);
+        LookupInResult current = null;
+        if (!reads.isEmpty()) {
+            current = collection.lookupIn(id, reads);
+            if (checked && current.cas() != cas) {
+                // Otherwise a test would be evaluated against a version the client has not seen
+                throw new CasMismatchException(null);
+            }
+            options.cas(current.cas());
+        }
+
+        List<MutateInSpec> specs = new ArrayList<>();
+        int read = 0;
+        for (Operation operation : patch.operations) {
+            switch (operation.kind()) {
+                case TEST -> {
+                    int index = read++;
+                    if (!current.exists(index)
+                            || !sameJson(current.contentAs(index, Object.class), operation.value())) {
+                        throw new IllegalStateException("Test failed at " + operation.path());
+                    }
+                }
+                case REMOVE_IF_EXISTS -> {
+                    if (current.exists(read++)) {
+                        specs.add(MutateInSpec.remove(operation.path()));
+                    }
+                }
+                case REMOVE -> specs.add(MutateInSpec.remove(operation.path()));
+                case REPLACE -> specs.add(MutateInSpec.replace(operation.path(), operation.value()));
+                case UPSERT, APPEND, INSERT -> {
+                    Object value = operation.value();
+                    if (operation.from() != null) {
+                        int index = read++;
+                        if (!current.exists(index)) {
+                            throw new IllegalStateException(
+                                    "Nothing to " + operation.name() + " at " + operation.from());
+                        }
+                        value = current.contentAs(index, Object.class);
+                        if (operation.name().equals("move")) {
+                            specs.add(MutateInSpec.remove(operation.from()));
+                        }
+                    }
+                    specs.add(switch (operation.kind()) {
+                        case APPEND -> MutateInSpec.arrayAppend(operation.path(), Collections.singletonList(value));
+                        case INSERT -> MutateInSpec.arrayInsert(operation.path(), Collections.singletonList(value));
+                        default -> MutateInSpec.upsert(operation.path(), value).createPath();
+                    });
+                }
+            }
+        }
+        if (specs.isEmpty()) {
+            // Only tests and removals of missing fields, which read the document
+            return current.cas();
+        }
+        MutateInResult result = collection.mutateIn(id, specs, options);
+        ConsistencyContext.record(result.mutationToken());
+        return result.cas();
+    }
+
+    private void parseJsonPatch(CouchbasePersistentEntity<?> entity, JsonNode patch, List<Operation> operations) {
+        if (!patch.isArray()) {
+            throw new IllegalArgumentException("A JSON patch must be an array of operations");
+        }
+        for (JsonNode node : patch) {
+            String op = text(node, "op");
+            Target target = resolve(entity, pointer(text(node, "path")));
+            switch (op) {
+                case "add", "copy", "move" -> {
+                    String from = null;
+                    Object value = null;
+                    if (op.equals("add")) {
+                        value = value(node, target);
+                    } else {
+                        Target source = resolve(entity, pointer(text(node, "from")));
+                        if (source.append()) {
+                            throw new IllegalArgumentException("Cannot " + op + " from " + text(node, "from"));
+                        }
+                        if (!type(source).equals(type(target))) {
+                            throw new IllegalArgumentException("Cannot " + op + " " + text(node, "from") + " to "
+                                    + text(node, "path") + ", their types differ");
+                        }
+                        if (op.equals("move")) {
+                            removable(source);
+                        }
+                        from = source.path();
+                    }
+                    Kind kind = target.append() ? Kind.APPEND : target.index() ? Kind.INSERT : Kind.UPSERT;
+                    operations.add(new Operation(op, kind, target.path(), from, value, target.field()));
+                }
+                case "remove" -> {
+                    existing(target);
+                    operations.add(new Operation(op, Kind.REMOVE, removable(target), null, null, target.field()));
+                }
+                case "replace" -> operations.add(new Operation(op, Kind.REPLACE, existing(target), null,
+                        value(node, target), target.field()));
+                case "test" -> {
+                    if (!node.has("value")) {
+                        throw new IllegalArgumentException("Missing value");
+                    }
+                    // Compared as JSON, so a value of another type fails the test rather than the parse
+                    operations.add(new Operation(op, Kind.TEST, existing(target), null,
+                            stored(node.get("value"), target.entity()), null));
+                }
+                default -> throw new IllegalArgumentException("Unknown operation: " + op);
+            }
+        }
+    }
+
+    private void parseMergePatch(CouchbasePersistentEntity<?> entity, List<String> prefix, JsonNode patch,
+            List<Operation> operations) {
+        for (Map.Entry<String, JsonNode> member : patch.properties()) {
+            List<String> tokens = new ArrayList<>(prefix);
+            tokens.add(member.getKey());
+            Target target = resolve(entity, tokens);
+            JsonNode value = member.getValue();
+            if (value.isNull()) {
+                operations.add(new Operation("remove", Kind.REMOVE_IF_EXISTS, removable(target), null, null,
+                        target.field()));
+            } else if (value.isObject() && target.entity() != null && !target.collection()) {
+                // Merges into nested objects, such as an airport's geo
+                parseMergePatch(entity, tokens, value, operations);
+            } else if (target.collection() && !value.isArray()) {
+                throw new IllegalArgumentException("Expected an array for " + member.getKey());
+            } else {
+                operations.add(new Operation("add", Kind.UPSERT, target.path(), null, checked(value, target),
+                        target.field()));
+            }
+        }
+    }
+
+    /**
+     * Maps JSON pointer tokens to a sub-document path of stored field names.
+     */
+    private Target resolve(CouchbasePersistentEntity<?> root, List<String> tokens) {
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("Cannot patch the whole document");
+        }
+        StringBuilder path = new StringBuilder();
+        CouchbasePersistentEntity<?> entity = root;
+        CouchbasePersistentEntity<?> owner = root;
+        CouchbasePersistentProperty property = null;
+        String field = null;
+        boolean inArray = false;
+        boolean append = false;
+        boolean index = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            index = false;
+            if (inArray) {
+                if (token.equals("-") && i == tokens.size() - 1) {
+                    append = true;
+                } else if (token.matches("0|[1-9][0-9]{0,8}")) {
+                    path.append('[').append(token).append(']');
+                    index = true;
+                } else {
+                    throw new IllegalArgumentException("Invalid array index: " + token);
+                }
+                inArray = false;
+                continue;
+            }
+            owner = entity;
+            property = entity == null ? null : entity.getPersistentProperty(token);
+            if (property == null || property.isIdProperty()) {
+                throw new IllegalArgumentException("Unknown field: " + String.join("/", tokens.subList(0, i + 1)));
+            }
+            if (field == null) {
+                field = property.getFieldName();
+            } else {
+                path.append('.');
+            }
+            path.append('`').append(property.getFieldName()).append('`');
+            inArray = property.isCollectionLike();
+            entity = property.isEntity() ? mappingContext.getRequiredPersistentEntity(property.getActualType()) : null;
+        }
+        return new Target(path.toString(), field, entity, inArray, append, index, owner, property);
+    }
+
+    private static String existing(Target target) {
+        if (target.append()) {
+            throw new IllegalArgumentException("'-' can only be used to add");
+        }
+        return target.path();
+    }
+
+    private Object value(JsonNode operation, Target target) {
+        if (!operation.has("value")) {
+            throw new IllegalArgumentException("Missing value");
+        }
+        return checked(operation.get("value"), target);
+    }
+
+    /**
+     * Converts a value to the declared type of the target, checks it against
+     * the constraints of the property, or of the entities it holds, and
+     * returns it in its stored form.
+     */
+    private Object checked(JsonNode node, Target target) {
+        Object value;
+        try {
+            value = jsonMapper.readerFor(type(target)).readValue(node);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Invalid value for " + target.property().getName() + ": "
+                    + e.getOriginalMessage());
+        }
+        List<String> violations = new ArrayList<>();
+        Validator v = validator.getIfAvailable();
+        if (v != null) {
+            if (!target.element()) {
+                violations.addAll(messages(v.validateValue(target.owner().getType(), target.property().getName(),
+                        value)));
+            }
+            Iterable<?> values = value instanceof java.util.Collection<?> elements ? elements : List.of(value);
+            for (Object element : values) {
+                if (element != null && target.property().isEntity()) {
+                    violations.addAll(messages(v.validate(element)));
+                }
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", violations));
+        }
+        return stored(jsonMapper.valueToTree(value), target.entity());
+    }
+
+    /**
+     * Returns the path of a target that may be removed.
+     *
+     * @throws IllegalArgumentException if the target is a required property
+     */
+    private String removable(Target target) {
+        Validator v = validator.getIfAvailable();
+        if (v != null && !target.element()) {
+            List<String> violations = messages(v.validateValue(target.owner().getType(), target.property().getName(),
+                    null));
+            if (!violations.isEmpty()) {
+                throw new IllegalArgumentException("Cannot remove " + target.property().getName() + ": "
+                        + String.join("; ", violations));
+            }
+        }
+        return target.path();
+    }
+
+    // The declared type of a property, or of its elements for an array index
+    private JavaType type(Target target) {
+        CouchbasePersistentProperty property = target.property();
+        return target.element()
+                ? jsonMapper.getTypeFactory().constructType(property.getActualType())
+                : jsonMapper.getTypeFactory().constructType(property.getField().getGenericType());
+    }
+
+    private static <T> List<String> messages(Set<ConstraintViolation<T>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Rejects a {@code test} or {@code from} that reads a path an earlier
+     * operation writes, since all reads see the document before the patch.
+     */
+    private static void checkSequential(List<Operation> operations) {
+        List<String> written = new ArrayList<>();
+        for (Operation operation : operations) {
+            String read = operation.kind() == Kind.TEST ? operation.path() : operation.from();
+            if (read != null && written.stream().anyMatch(path -> overlaps(path, read))) {
+                throw new IllegalArgumentException("The " + operation.name() + " operation reads " + read
+                        + ", which an earlier operation of the patch changes; split the patch");
+            }
+            if (operation.kind() != Kind.TEST) {
+                written.add(operation.path());
+            }
+            if (operation.from() != null && operation.name().equals("move")) {
+                written.add(operation.from());
+            }
+        }
+    }
+
+    // Whether one path is the other or lies inside it
+    private static boolean overlaps(String a, String b) {
+        String shorter = a.length() <= b.length() ? a : b;
+        String longer = shorter == a ? b : a;
+        return longer.startsWith(shorter) && (longer.length() == shorter.length()
+                || longer.charAt(shorter.length()) == '.' || longer.charAt(shorter.length()) == '[');
+    }
+
+    /**
+     * Converts a JSON value to the plain objects the SDK serializes, renaming
+     * the members of nested entities to their stored names.
+     */
+    private Object stored(JsonNode node, CouchbasePersistentEntity<?> entity) {
+        if (node.isArray()) {
+            List<Object> values = new ArrayList<>();
+            for (JsonNode element : node) {
+                values.add(stored(element, entity));
+            }
+            return values;
+        }
+        if (node.isObject() && entity != null) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonNode> member : node.properties()) {
+                CouchbasePersistentProperty property = entity.getPersistentProperty(member.getKey());
+                if (property == null || property.isIdProperty()) {
+                    throw new IllegalArgumentException("Unknown field: " + member.getKey());
+                }
+                if (member.getValue().isNull()) {
+                    // Unset properties of a converted value are left out, as the repositories do
+                    continue;
+                }
+                values.put(property.getFieldName(), stored(member.getValue(),
+                        property.isEntity() ? mappingContext.getRequiredPersistentEntity(property.getActualType())
+                                : null));
+            }
+            return values;
+        }
+        return jsonMapper.treeToValue(node, Object.class);
+    }
+
+    private boolean sameJson(Object stored, Object expected) {
+        // Round-trip both so that numbers compare by value, not by Java type
+        return jsonMapper.readTree(jsonMapper.writeValueAsBytes(stored))
+                .equals(jsonMapper.readTree(jsonMapper.writeValueAsBytes(expected)));
+    }
+
+    private static String text(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        if (value == null || !value.isString()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value.asString();
+    }
+
+    private static List<String> pointer(String pointer) {
+        if (pointer.isEmpty()) {
+            return List.of();
+        }
+        if (!pointer.startsWith("/")) {
+            throw new IllegalArgumentException("Invalid JSON pointer: " + pointer);
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private enum Kind {
+        UPSERT, REPLACE, REMOVE, REMOVE_IF_EXISTS, APPEND, INSERT, TEST
+    }
+
+    private record Operation(String name, Kind kind, String path, String from, Object value, String field) {
+    }
+
+    private record Target(String path, String field, CouchbasePersistentEntity<?> entity, boolean collection,
+            boolean append, boolean index, CouchbasePersistentEntity<?> owner, CouchbasePersistentProperty property) {
+
+        // Whether the target is an element of a list rather than a property
+        boolean element() {
+            return append || index;
+        }
+    }
+
+    /**
+     * A parsed patch, ready to apply.
+     */
+    public static final class Patch {
+
+        private final List<Operation> operations;
+
+        private Patch(List<Operation> operations) {
+            this.operations = operations;
+        }
+
+        /**
+         * The stored names of the top-level fields the patch changes.
+         */
+        public Set<String> fields() {
+            Set<String> fields = new LinkedHashSet<>();
+            for (Operation operation : operations) {
+                if (operation.field() != null) {
+                    fields.add(operation.field());
+                }
+                if (operation.from() != null && operation.name().equals("move")) {
+                    fields.add(operation.from().substring(1, operation.from().indexOf('`', 1)));
+                }
+            }
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.convert.translation.TranslationService;
+import org.springframework.data.couchbase.core.mapping.CouchbaseDocument;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.kv.GetResult;
+
+/**
+ * Reads entities straight through the KV API so that the CAS of the document
+ * comes back with them, which the repositories only expose through a
+ * {@code @Version} property.
+ * <p>
+ * Documents are decoded with the same translation service and converter the
+ * repositories use, so the entities are identical to those of
+ * {@code repository.findById}.
+ */
+@Component
+public class DocumentReader {
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final TranslationService translationService;
+    private final Bucket bucket;
+
+    public DocumentReader(CouchbaseTemplate couchbaseTemplate, TranslationService translationService,
+            Bucket bucket) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.translationService = translationService;
+        this.bucket = bucket;
+    }
+
+    public <T> Optional<Versioned<T>> findById(Class<T> type, String collectionName, String id) {
+        try {
+            GetResult result = bucket.scope(DocumentWriter.SCOPE).collection(collectionName).get(id);
+            return Optional.of(decode(type, id, result));
+        } catch (DocumentNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    <T> Versioned<T> decode(Class<T> type, String id, GetResult result) {
+        CouchbaseDocument document = new CouchbaseDocument(id);
+        translationService.decode(new String(result.contentAsBytes(), StandardCharsets.UTF_8), document);
+        return new Versioned<>(couchbaseTemplate.getConverter().read(type, document), result.cas());
+    }
+}
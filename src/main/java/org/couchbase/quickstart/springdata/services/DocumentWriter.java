@@ -0,0 +1,82 @@
+package org.couchbase.quickstart.springdata.services;
+
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.mapping.CouchbaseDocument;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.RemoveOptions;
+import com.couchbase.client.java.kv.ReplaceOptions;
+
+/**
+ * Writes entities straight through the KV API so that the mutation token of
+ * every write can be handed back to the client.
+ * <p>
+ * Entities are encoded with the same converter the repositories use, so the
+ * stored documents are identical to those written by {@code repository.save}.
+ */
+@Component
+public class DocumentWriter {
+
+    static final String SCOPE = "inventory";
+
+    /**
+     * CAS for {@link #replace} and {@link #remove} that accepts any version of
+     * the document, as long as there is one.
+     */
+    public static final long ANY_CAS = -1;
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final Bucket bucket;
+
+    public DocumentWriter(CouchbaseTemplate couchbaseTemplate, Bucket bucket) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.bucket = bucket;
+    }
+
+    public <T> Versioned<T> upsert(String collectionName, T entity) {
+        CouchbaseDocument document = encode(entity);
+        MutationResult result = collection(collectionName).upsert(document.getId(), document.export());
+        ConsistencyContext.record(result.mutationToken());
+        return new Versioned<>(entity, result.cas());
+    }
+
+    /**
+     * Replaces the document only if its CAS is still {@code cas}, or whatever
+     * its CAS if {@code cas} is {@link #ANY_CAS}.
+     *
+     * @throws com.couchbase.client.core.error.CasMismatchException if it has changed since
+     * @throws com.couchbase.client.core.error.DocumentNotFoundException if there is no such document
+     */
+    public <T> Versioned<T> replace(String collectionName, T entity, long cas) {
+        CouchbaseDocument document = encode(entity);
+        MutationResult result = collection(collectionName).replace(document.getId(), document.export(),
+                ReplaceOptions.replaceOptions().cas(cas == ANY_CAS ? 0 : cas));
+        ConsistencyContext.record(result.mutationToken());
+        return new Versioned<>(entity, result.cas());
+    }
+
+    /**
+     * Removes the document only if its CAS is still {@code cas}, or
+     * unconditionally if {@code cas} is 0 or {@link #ANY_CAS}.
+     *
+     * @throws com.couchbase.client.core.error.CasMismatchException if it has changed since
+     * @throws com.couchbase.client.core.error.DocumentNotFoundException if there is no such document
+     */
+    public void remove(String collectionName, String id, long cas) {
+        MutationResult result = collection(collectionName).remove(id, RemoveOptions.removeOptions().cas(cas == ANY_CAS ? 0 : cas));
+        ConsistencyContext.record(result.mutationToken());
+    }
+
+    CouchbaseDocument encode(Object entity) {
+        CouchbaseDocument document = new CouchbaseDocument();
+        couchbaseTemplate.getConverter().write(entity, document);
+        return document;
+    }
+
+    Collection collection(String collectionName) {
+        return bucket.scope(SCOPE).collection(collectionName);
+    }
+}
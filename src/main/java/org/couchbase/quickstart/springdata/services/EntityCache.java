@@ -0,0 +1,227 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded read-through cache for documents fetched by ID.
+ * <p>
+ * Entries expire after a fixed TTL. When the cache is full, the entry written
+ * longest ago is evicted, which with a fixed TTL is also the one closest to
+ * expiring. Reads do not refresh entries, so this is FIFO rather than LRU, but
+ * it keeps reads and writes lock-free. A size of zero disables caching.
+ * <p>
+ * With a version function, such as the CAS of a {@link Versioned} document,
+ * {@link #put} never replaces an entry with an older version, so two writes of
+ * the same document that finish out of order leave the newer one cached.
+ */
+public class EntityCache<T> {
+
+    private final ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    // Entries in the order they were written. Those replaced or removed since
+    // stay queued until eviction skips them or the queue is purged.
+    private final ConcurrentLinkedQueue<Written<T>> writeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ToLongFunction<? super T> version;
+
+    // Bumped on every invalidation so that a load racing with a write does not
+    // re-populate the cache with the value it read before the write.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EntityCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, null);
+    }
+
+    /**
+     * @param version the version of a value, compared as unsigned, or null if
+     *                every put replaces the cached value
+     */
+    public EntityCache(int maxSize, Duration ttl, ToLongFunction<? super T> version) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.version = version;
+    }
+
+    public Optional<T> get(String id, Function<String, Optional<T>> loader) {
+        if (maxSize == 0) {
+            return loader.apply(id);
+        }
+        long now = System.nanoTime();
+        Entry<T> entry = entries.get(id);
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                hits.increment();
+                return Optional.of(entry.value());
+            }
+            if (entries.remove(id, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<T> loaded = loader.apply(id);
+        loaded.ifPresent(value -> fill(id, value, loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * Returns the cached value if there is one that has not expired, without
+     * loading it or counting a hit or miss.
+     */
+    public Optional<T> peek(String id) {
+        Entry<T> entry = entries.get(id);
+        if (entry == null || entry.isExpired(System.nanoTime())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * Returns the cached values for the given IDs and loads all the others with a
+     * single call to the loader. IDs that are found nowhere are left out.
+     */
+    public List<T> getAll(Collection<String> ids, Function<List<String>, List<T>> loader, Function<T, String> idOf) {
+        if (maxSize == 0) {
+            return loader.apply(new ArrayList<>(new LinkedHashSet<>(ids)));
+        }
+        long now = System.nanoTime();
+        List<T> values = new ArrayList<>();
+        List<String> toLoad = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            Entry<T> entry = entries.get(id);
+            if (entry != null && !entry.isExpired(now)) {
+                values.add(entry.value());
+            } else {
+                toLoad.add(id);
+            }
+        }
+        hits.add(values.size());
+        if (toLoad.isEmpty()) {
+            return values;
+        }
+        misses.add(toLoad.size());
+        long loadGeneration = generation.get();
+        for (T value : loader.apply(toLoad)) {
+            values.add(value);
+            fill(idOf.apply(value), value, loadGeneration);
+        }
+        return values;
+    }
+
+    public void put(String id, T value) {
+        if (maxSize == 0) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (!entries.containsKey(id)) {
+            makeRoom();
+        }
+        long now = System.nanoTime();
+        Entry<T> entry = new Entry<>(value, now + ttlNanos);
+        Entry<T> cached = entries.compute(id,
+                (key, existing) -> existing != null && !existing.isExpired(now) && isNewer(existing.value(), value)
+                        ? existing
+                        : entry);
+        if (cached == entry) {
+            written(id, entry);
+        }
+    }
+
+    private boolean isNewer(T cached, T value) {
+        return version != null && Long.compareUnsigned(version.applyAsLong(cached), version.applyAsLong(value)) > 0;
+    }
+
+    private void fill(String id, T value, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        long now = System.nanoTime();
+        Entry<T> existing = entries.get(id);
+        if (existing == null) {
+            makeRoom();
+        } else if (existing.isExpired(now) && entries.remove(id, existing)) {
+            evictions.increment();
+        } else {
+            return;
+        }
+        Entry<T> entry = new Entry<>(value, now + ttlNanos);
+        if (entries.putIfAbsent(id, entry) == null) {
+            // An invalidation between the check above and the put may have
+            // missed this entry, so take it out again
+            if (generation.get() != loadGeneration) {
+                entries.remove(id, entry);
+                return;
+            }
+            written(id, entry);
+        }
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        entries.remove(id);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        writeOrder.clear();
+        queued.set(0);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private void makeRoom() {
+        while (entries.size() >= maxSize) {
+            Written<T> oldest = writeOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.id(), oldest.entry())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private void written(String id, Entry<T> entry) {
+        writeOrder.offer(new Written<>(id, entry));
+        // Only overwrites and invalidations grow the queue past the cache size
+        if (queued.incrementAndGet() > 2 * maxSize) {
+            writeOrder.removeIf(queuedEntry -> entries.get(queuedEntry.id()) != queuedEntry.entry());
+            queued.set(writeOrder.size());
+        }
+    }
+
+    private record Entry<T>(T value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private record Written<T>(String id, Entry<T> entry) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+}
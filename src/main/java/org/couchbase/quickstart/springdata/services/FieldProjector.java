@@ -0,0 +1,180 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.couchbase.quickstart.springdata.models.ApproximatePage;
+import org.couchbase.quickstart.springdata.models.TotalMode;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.mapping.CouchbasePersistentEntity;
+import org.springframework.data.couchbase.core.mapping.CouchbasePersistentProperty;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.query.QueryOptions;
+
+/**
+ * Reads only the requested top-level fields of documents: by-ID reads become
+ * sub-document {@code lookupIn} requests and queries select just those fields,
+ * so the rest of each document is neither read nor sent.
+ * <p>
+ * Field names are the JSON names of the entity's properties. They are mapped to
+ * the stored names with the same mapping the repositories use, and anything
+ * else is rejected, so only known identifiers ever reach a statement.
+ */
+@Component
+public class FieldProjector {
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final Bucket bucket;
+    private final QueryOptionsProvider queryOptionsProvider;
+    private final CountCache countCache;
+    private final Map<Class<?>, Map<String, String>> storedNames = new ConcurrentHashMap<>();
+
+    public FieldProjector(CouchbaseTemplate couchbaseTemplate, Bucket bucket,
+            QueryOptionsProvider queryOptionsProvider, CountCache countCache) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.bucket = bucket;
+        this.queryOptionsProvider = queryOptionsProvider;
+        this.countCache = countCache;
+    }
+
+    /**
+     * Parses a comma-separated field list. The ID is always included.
+     *
+     * @throws IllegalArgumentException if the list is empty or names an unknown field
+     */
+    public Fields parse(Class<?> type, String fields) {
+        Map<String, String> known = storedNames.computeIfAbsent(type, this::storedNames);
+        Map<String, String> selected = new LinkedHashMap<>();
+        selected.put(Fields.ID, null);
+        boolean any = false;
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!known.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.put(name, known.get(name));
+            any = true;
+        }
+        if (!any) {
+            throw new IllegalArgumentException("No fields selected");
+        }
+        return new Fields(selected);
+    }
+
+    public Optional<Map<String, Object>> lookup(String collectionName, String id, Fields fields) {
+        Collection collection = bucket.scope(DocumentWriter.SCOPE).collection(collectionName);
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put(Fields.ID, id);
+        List<String> names = fields.names();
+        if (names.isEmpty()) {
+            return collection.exists(id).exists() ? Optional.of(document) : Optional.empty();
+        }
+        List<LookupInSpec> specs = new ArrayList<>();
+        for (String name : names) {
+            specs.add(LookupInSpec.get(fields.storedName(name)));
+        }
+        LookupInResult result = collection.lookupIn(id, specs);
+        for (int i = 0; i < names.size(); i++) {
+            if (result.exists(i)) {
+                document.put(names.get(i), result.contentAs(i, Object.class));
+            }
+        }
+        return Optional.of(document);
+    }
+
+    /**
+     * Runs {@code SELECT <fields> FROM <from>} one page at a time, where
+     * {@code from} names the projected keyspace {@code alias} and may add joins
+     * and a WHERE clause with positional parameters.
+     */
+    public Slice<Map<String, Object>> query(String from, String alias, JsonArray parameters, Fields fields,
+            Pageable pageable, TotalMode total, String countKey, LongSupplier counter) {
+        StringBuilder statement = new StringBuilder("SELECT META(").append(alias).append(").id AS `")
+                .append(Fields.ID).append('`');
+        for (String name : fields.names()) {
+            statement.append(", ").append(alias).append(".`").append(fields.storedName(name)).append("` AS `")
+                    .append(name).append('`');
+        }
+        int next = parameters.size() + 1;
+        statement.append(" FROM ").append(from)
+                .append(" LIMIT $").append(next).append(" OFFSET $").append(next + 1);
+        JsonArray arguments = JsonArray.from(parameters.toList())
+                .add(pageable.getPageSize() + 1)
+                .add(pageable.getOffset());
+        QueryOptions options = queryOptionsProvider.queryOptions().parameters(arguments);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (JsonObject row : bucket.scope(DocumentWriter.SCOPE).query(statement.toString(), options).rowsAsObject()) {
+            rows.add(row.toMap());
+        }
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        Slice<Map<String, Object>> slice = new SliceImpl<>(
+                hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+        return switch (total) {
+            case EXACT -> new PageImpl<>(slice.getContent(), pageable, counter.getAsLong());
+            case NONE -> slice;
+            case APPROX -> new ApproximatePage<>(slice, countCache.get(countKey, counter));
+        };
+    }
+
+    private Map<String, String> storedNames(Class<?> type) {
+        CouchbasePersistentEntity<?> entity = couchbaseTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(type);
+        Map<String, String> names = new LinkedHashMap<>();
+        entity.doWithProperties((PropertyHandler<CouchbasePersistentProperty>) property -> {
+            if (!property.isIdProperty()) {
+                names.put(property.getName(), property.getFieldName());
+            }
+        });
+        names.put(Fields.ID, null);
+        return names;
+    }
+
+    /**
+     * Selected JSON field names mapped to their stored names, in request order.
+     */
+    public static final class Fields {
+
+        static final String ID = "id";
+
+        private final Map<String, String> storedNames;
+
+        private Fields(Map<String, String> storedNames) {
+            this.storedNames = storedNames;
+        }
+
+        /**
+         * The selected fields other than the ID.
+         */
+        public List<String> names() {
+            Set<String> names = new LinkedHashSet<>(storedNames.keySet());
+            names.remove(ID);
+            return List.copyOf(names);
+        }
+
+        String storedName(String name) {
+            return storedNames.get(name);
+        }
+    }
+}
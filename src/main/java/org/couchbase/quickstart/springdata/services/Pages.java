@@ -0,0 +1,46 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * Turns repository queries that take LIMIT and OFFSET as parameters into pages
+ * and slices. Spring Data would write them into the statement text instead, so
+ * each page would be a different statement to prepare.
+ */
+final class Pages {
+
+    private Pages() {
+    }
+
+    /**
+     * Runs the query and counts only when the page itself does not tell the
+     * total, like Spring Data's paged queries.
+     */
+    static <T> Page<T> page(Pageable pageable, PageQuery<T> query, LongSupplier counter) {
+        return PageableExecutionUtils.getPage(query.find(pageable.getPageSize(), pageable.getOffset()), pageable,
+                counter);
+    }
+
+    /**
+     * Fetches one row more than the page size to tell whether there is a next
+     * slice, without counting.
+     */
+    static <T> Slice<T> slice(Pageable pageable, PageQuery<T> query) {
+        List<T> rows = query.find(pageable.getPageSize() + 1, pageable.getOffset());
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @FunctionalInterface
+    interface PageQuery<T> {
+
+        List<T> find(int limit, long offset);
+    }
+}
@@ -0,0 +1,70 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks which repository statements have been prepared when queries run with
+ * {@code adhoc(false)}.
+ * <p>
+ * The SDK prepares a statement on its first execution and keeps the plan in
+ * its own LRU cache, and it also re-prepares a statement whose plan the server
+ * rejected. This registry cannot see that cache, it only mirrors it, so the
+ * first call of a statement can be told apart from the later ones that reuse
+ * its plan. The split is an estimate: the SDK may evict or re-prepare a plan
+ * without this registry knowing.
+ * <p>
+ * It is keyed by repository method plus the page shape of a {@code Pageable}
+ * argument, since Spring Data writes that LIMIT and OFFSET into the statement
+ * text. The paged repository queries take them as parameters instead, so all
+ * their pages share one statement.
+ */
+@Component
+public class PreparedStatementRegistry {
+
+    private final boolean enabled;
+    private final Map<String, Boolean> prepared;
+
+    public PreparedStatementRegistry(@Value("${app.query.prepared.enabled:false}") boolean enabled,
+            @Value("${app.query.prepared.max-statements:5000}") int maxStatements) {
+        this.enabled = enabled;
+        this.prepared = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxStatements;
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records an execution of the statement and returns true if it had not been
+     * prepared yet, so this execution prepares it.
+     */
+    public boolean register(String statement) {
+        return prepared.put(statement, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Forgets a statement whose plan the server rejected, so that its next
+     * execution counts as a prepare again.
+     */
+    public void invalidate(String statement) {
+        prepared.remove(statement);
+    }
+
+    public List<String> statements() {
+        synchronized (prepared) {
+            return new ArrayList<>(prepared.keySet());
+        }
+    }
+}
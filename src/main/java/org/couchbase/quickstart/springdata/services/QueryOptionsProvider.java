@@ -0,0 +1,36 @@
+package org.couchbase.quickstart.springdata.services;
+
+import org.springframework.data.couchbase.repository.DynamicProxyable;
+import org.springframework.stereotype.Component;
+
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+
+/**
+ * Builds the N1QL options for the current request: {@code AT_PLUS} the client's
+ * own writes when it sent a consistency token, {@code NOT_BOUNDED} otherwise.
+ * Statements run prepared when {@code app.query.prepared.enabled} is set.
+ */
+@Component
+public class QueryOptionsProvider {
+
+    private final PreparedStatementRegistry preparedStatementRegistry;
+
+    public QueryOptionsProvider(PreparedStatementRegistry preparedStatementRegistry) {
+        this.preparedStatementRegistry = preparedStatementRegistry;
+    }
+
+    public QueryOptions queryOptions() {
+        QueryOptions options = QueryOptions.queryOptions()
+                .adhoc(!preparedStatementRegistry.isEnabled());
+        ConsistencyContext.current()
+                .flatMap(ConsistencyContext::requested)
+                .ifPresentOrElse(options::consistentWith,
+                        () -> options.scanConsistency(QueryScanConsistency.NOT_BOUNDED));
+        return options;
+    }
+
+    public <R extends DynamicProxyable<R>> R apply(R repository) {
+        return repository.withOptions(queryOptions());
+    }
+}
@@ -0,0 +1,97 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.repository.ReactiveAirlineRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveAirlineService {
+
+    private static final String COLLECTION = "airline";
+
+    private final ReactiveAirlineRepository airlineRepository;
+    private final BatchWriter batchWriter;
+
+    public ReactiveAirlineService(ReactiveAirlineRepository airlineRepository, BatchWriter batchWriter) {
+        this.airlineRepository = airlineRepository;
+        this.batchWriter = batchWriter;
+    }
+
+    public Flux<Airline> getAllAirlines(Pageable pageable) {
+        return airlineRepository.findAll(pageable);
+    }
+
+    public Mono<Page<Airline>> getAllAirlinesPage(Pageable pageable) {
+        return Mono.zip(getAllAirlines(pageable).collectList(), airlineRepository.countAll())
+                .<Page<Airline>>map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    public Flux<Airline> getAirlinesAfter(String lastId, int limit) {
+        return airlineRepository.findAfter(lastId, limit);
+    }
+
+    public Mono<Airline> getAirlineById(String id) {
+        return airlineRepository.findById(id);
+    }
+
+    public Mono<MultiGetResult<Airline>> getAirlinesByIds(List<String> ids) {
+        return airlineRepository.findAllById(ids)
+                .collectList()
+                .map(airlines -> MultiGetResult.of(ids, airlines, Airline::getId));
+    }
+
+    public Mono<Airline> saveAirline(Airline airline) {
+        return airlineRepository.save(airline);
+    }
+
+    public Mono<Void> deleteAirline(String id) {
+        return airlineRepository.deleteById(id);
+    }
+
+    public Mono<Airline> createAirline(Airline airline) {
+        return saveAirline(airline);
+    }
+
+    public Mono<List<BatchItemResult>> createAirlines(Flux<Airline> airlines, boolean upsert) {
+        return batchWriter.writeAll(COLLECTION, airlines, Airline::getId, upsert);
+    }
+
+    public Mono<Airline> updateAirline(String id, Airline airline) {
+        airline.setId(id);
+        return saveAirline(airline);
+    }
+
+    public Flux<Airline> findByCountry(String country, Pageable pageable) {
+        return airlineRepository.findByCountry(country, pageable);
+    }
+
+    public Mono<Page<Airline>> findByCountryPage(String country, Pageable pageable) {
+        return Mono.zip(findByCountry(country, pageable).collectList(), airlineRepository.countByCountry(country))
+                .<Page<Airline>>map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    public Flux<Airline> findByCountryAfter(String country, String lastId, int limit) {
+        return airlineRepository.findByCountryAfter(country, lastId, limit);
+    }
+
+    public Flux<Airline> findByDestinationAirport(String destinationAirport, Pageable pageable) {
+        return airlineRepository.findByDestinationAirport(destinationAirport, pageable);
+    }
+
+    public Mono<Page<Airline>> findByDestinationAirportPage(String destinationAirport, Pageable pageable) {
+        return Mono.zip(findByDestinationAirport(destinationAirport, pageable).collectList(),
+                airlineRepository.countByDestinationAirport(destinationAirport))
+                .<Page<Airline>>map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+}
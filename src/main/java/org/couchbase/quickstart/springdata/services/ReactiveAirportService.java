@@ -0,0 +1,95 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.repository.ReactiveAirportRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveAirportService {
+
+    private static final String COLLECTION = "airport";
+
+    private final ReactiveAirportRepository airportRepository;
+    private final BatchWriter batchWriter;
+
+    public ReactiveAirportService(ReactiveAirportRepository airportRepository, BatchWriter batchWriter) {
+        this.airportRepository = airportRepository;
+        this.batchWriter = batchWriter;
+    }
+
+    public Flux<Airport> getAllAirports(Pageable pageable) {
+        return airportRepository.findAll(pageable);
+    }
+
+    public Mono<Page<Airport>> getAllAirportsPage(Pageable pageable) {
+        return Mono.zip(getAllAirports(pageable).collectList(), airportRepository.countAll())
+                .<Page<Airport>>map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    public Flux<Airport> getAirportsAfter(String lastId, int limit) {
+        return airportRepository.findAfter(lastId, limit);
+    }
+
+    public Mono<Airport> getAirportById(String id) {
+        return airportRepository.findById(id);
+    }
+
+    public Mono<MultiGetResult<Airport>> getAirportsByIds(List<String> ids) {
+        return airportRepository.findAllById(ids)
+                .collectList()
+                .map(airports -> MultiGetResult.of(ids, airports, Airport::getId));
+    }
+
+    public Mono<Airport> saveAirport(Airport airport) {
+        return airportRepository.save(airport);
+    }
+
+    public Mono<Void> deleteAirport(String id) {
+        return airportRepository.deleteById(id);
+    }
+
+    public Mono<Airport> createAirport(Airport airport) {
+        return saveAirport(airport);
+    }
+
+    public Mono<List<BatchItemResult>> createAirports(Flux<Airport> airports, boolean upsert) {
+        return batchWriter.writeAll(COLLECTION, airports, Airport::getId, upsert);
+    }
+
+    public Mono<Airport> updateAirport(String id, Airport airport) {
+        airport.setId(id);
+        return saveAirport(airport);
+    }
+
+    public Flux<Route> getDirectConnections(String id, Pageable pageable) {
+        return airportRepository.getDirectConnections(id, pageable.getPageSize(), pageable.getOffset());
+    }
+
+    /**
+     * Fetches one row more than the page size to tell whether there is a next
+     * slice, without counting.
+     */
+    public Mono<Slice<Route>> getDirectConnectionsSlice(String id, Pageable pageable) {
+        return airportRepository.getDirectConnections(id, pageable.getPageSize() + 1, pageable.getOffset())
+                .collectList()
+                .<Slice<Route>>map(routes -> {
+                    boolean hasNext = routes.size() > pageable.getPageSize();
+                    List<Route> content = hasNext ? routes.subList(0, pageable.getPageSize()) : routes;
+                    return new SliceImpl<>(content, pageable, hasNext);
+                });
+    }
+
+}
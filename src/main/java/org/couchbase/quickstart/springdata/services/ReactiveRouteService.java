@@ -0,0 +1,74 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.repository.ReactiveRouteRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveRouteService {
+
+    private static final String COLLECTION = "route";
+
+    private final ReactiveRouteRepository routeRepository;
+    private final BatchWriter batchWriter;
+
+    public ReactiveRouteService(ReactiveRouteRepository routeRepository, BatchWriter batchWriter) {
+        this.routeRepository = routeRepository;
+        this.batchWriter = batchWriter;
+    }
+
+    public Flux<Route> getAllRoutes(Pageable pageable) {
+        return routeRepository.findAll(pageable);
+    }
+
+    public Mono<Page<Route>> getAllRoutesPage(Pageable pageable) {
+        return Mono.zip(getAllRoutes(pageable).collectList(), routeRepository.countAll())
+                .<Page<Route>>map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    public Flux<Route> getRoutesAfter(String lastId, int limit) {
+        return routeRepository.findAfter(lastId, limit);
+    }
+
+    public Mono<Route> getRouteById(String id) {
+        return routeRepository.findById(id);
+    }
+
+    public Mono<MultiGetResult<Route>> getRoutesByIds(List<String> ids) {
+        return routeRepository.findAllById(ids)
+                .collectList()
+                .map(routes -> MultiGetResult.of(ids, routes, Route::getId));
+    }
+
+    public Mono<Route> saveRoute(Route route) {
+        return routeRepository.save(route);
+    }
+
+    public Mono<Void> deleteRoute(String id) {
+        return routeRepository.deleteById(id);
+    }
+
+    public Mono<Route> createRoute(Route route) {
+        return saveRoute(route);
+    }
+
+    public Mono<List<BatchItemResult>> createRoutes(Flux<Route> routes, boolean upsert) {
+        return batchWriter.writeAll(COLLECTION, routes, Route::getId, upsert);
+    }
+
+    public Mono<Route> updateRoute(String id, Route route) {
+        route.setId(id);
+        return saveRoute(route);
+    }
+
+}
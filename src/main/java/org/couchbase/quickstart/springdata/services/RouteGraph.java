@@ -0,0 +1,197 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.couchbase.quickstart.springdata.models.Itinerary;
+
+/**
+ * Immutable snapshot of the route network. Airport codes are mapped to dense
+ * int IDs and the flights out of each airport are stored in compressed sparse
+ * row arrays, so a search touches a few primitive arrays only.
+ * <p>
+ * Routes flown by several airlines between the same two airports collapse into
+ * a single edge, the shortest of them.
+ */
+public final class RouteGraph {
+
+    public static final RouteGraph EMPTY = build(List.of());
+
+    // Bound on the paths popped by one search, in case of a pathological graph
+    private static final int MAX_EXPANSIONS = 200_000;
+
+    public record Edge(String routeId, String source, String destination, double distance) {
+    }
+
+    private final Map<String, Integer> ids;
+    private final String[] codes;
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] distances;
+    private final String[] routeIds;
+
+    private RouteGraph(Map<String, Integer> ids, String[] codes, int[] offsets, int[] sources, int[] targets,
+            double[] distances, String[] routeIds) {
+        this.ids = ids;
+        this.codes = codes;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.distances = distances;
+        this.routeIds = routeIds;
+    }
+
+    public static RouteGraph build(Collection<Edge> edges) {
+        Map<String, Integer> ids = new HashMap<>();
+        Map<Long, Edge> shortest = new HashMap<>();
+        for (Edge edge : edges) {
+            if (edge.source().equals(edge.destination())) {
+                continue;
+            }
+            int source = ids.computeIfAbsent(edge.source(), code -> ids.size());
+            int target = ids.computeIfAbsent(edge.destination(), code -> ids.size());
+            shortest.merge((long) source << 32 | target, edge,
+                    (a, b) -> b.distance() < a.distance() ? b : a);
+        }
+        int airports = ids.size();
+        String[] codes = new String[airports];
+        ids.forEach((code, id) -> codes[id] = code);
+
+        int[] offsets = new int[airports + 1];
+        for (long key : shortest.keySet()) {
+            offsets[(int) (key >>> 32) + 1]++;
+        }
+        for (int i = 0; i < airports; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] sources = new int[shortest.size()];
+        int[] targets = new int[shortest.size()];
+        double[] distances = new double[shortest.size()];
+        String[] routeIds = new String[shortest.size()];
+        int[] next = Arrays.copyOf(offsets, airports);
+        for (Map.Entry<Long, Edge> entry : shortest.entrySet()) {
+            int source = (int) (entry.getKey() >>> 32);
+            int slot = next[source]++;
+            sources[slot] = source;
+            targets[slot] = (int) (long) entry.getKey();
+            distances[slot] = entry.getValue().distance();
+            routeIds[slot] = entry.getValue().routeId();
+        }
+        return new RouteGraph(Map.copyOf(ids), codes, offsets, sources, targets, distances, routeIds);
+    }
+
+    public int airportCount() {
+        return codes.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public boolean contains(String airport) {
+        return ids.containsKey(airport);
+    }
+
+    /**
+     * Returns up to {@code limit} itineraries from one airport to another with at
+     * most {@code maxStops} intermediate stops, shortest total distance first.
+     * No itinerary visits an airport twice.
+     * <p>
+     * This is an A* search over partial itineraries. Its heuristic is the exact
+     * shortest distance to the destination within the remaining number of legs,
+     * computed up front with a few Bellman-Ford rounds, so only itineraries
+     * that can still reach the destination in time are ever extended.
+     */
+    public List<Itinerary> findPaths(String from, String to, int maxStops, int limit) {
+        Integer source = ids.get(from);
+        Integer target = ids.get(to);
+        if (source == null || target == null || source.equals(target) || limit < 1) {
+            return List.of();
+        }
+        int maxLegs = maxStops + 1;
+        double[][] remaining = distancesToTarget(target, maxLegs);
+        if (remaining[maxLegs][source] == Double.POSITIVE_INFINITY) {
+            return List.of();
+        }
+
+        PriorityQueue<PathState> queue = new PriorityQueue<>(Comparator.comparingDouble(PathState::estimate));
+        queue.add(new PathState(source, 0, 0, remaining[maxLegs][source], -1, null));
+        List<Itinerary> itineraries = new ArrayList<>();
+        int expansions = 0;
+        while (!queue.isEmpty() && itineraries.size() < limit && expansions++ < MAX_EXPANSIONS) {
+            PathState path = queue.poll();
+            if (path.airport() == target) {
+                itineraries.add(toItinerary(path));
+                continue;
+            }
+            int legsLeft = maxLegs - path.legs() - 1;
+            for (int e = offsets[path.airport()]; e < offsets[path.airport() + 1]; e++) {
+                int next = targets[e];
+                double toGo = remaining[legsLeft][next];
+                if (toGo == Double.POSITIVE_INFINITY || path.visits(next)) {
+                    continue;
+                }
+                double distance = path.distance() + distances[e];
+                queue.add(new PathState(next, path.legs() + 1, distance, distance + toGo, e, path));
+            }
+        }
+        return itineraries;
+    }
+
+    /**
+     * {@code result[k][v]} is the shortest distance from {@code v} to the target
+     * using at most {@code k} legs.
+     */
+    private double[][] distancesToTarget(int target, int maxLegs) {
+        double[][] result = new double[maxLegs + 1][];
+        result[0] = new double[codes.length];
+        Arrays.fill(result[0], Double.POSITIVE_INFINITY);
+        result[0][target] = 0;
+        for (int k = 1; k <= maxLegs; k++) {
+            double[] previous = result[k - 1];
+            double[] current = previous.clone();
+            for (int e = 0; e < targets.length; e++) {
+                double candidate = distances[e] + previous[targets[e]];
+                if (candidate < current[sources[e]]) {
+                    current[sources[e]] = candidate;
+                }
+            }
+            result[k] = current;
+        }
+        return result;
+    }
+
+    private Itinerary toItinerary(PathState path) {
+        Deque<String> airports = new ArrayDeque<>();
+        Deque<String> legs = new ArrayDeque<>();
+        for (PathState p = path; p != null; p = p.previous()) {
+            airports.addFirst(codes[p.airport()]);
+            if (p.edge() >= 0) {
+                legs.addFirst(routeIds[p.edge()]);
+            }
+        }
+        return new Itinerary(new ArrayList<>(airports), new ArrayList<>(legs), path.legs() - 1, path.distance());
+    }
+
+    private record PathState(int airport, int legs, double distance, double estimate, int edge,
+            PathState previous) {
+
+        boolean visits(int other) {
+            for (PathState p = this; p != null; p = p.previous()) {
+                if (p.airport() == other) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.couchbase.quickstart.springdata.models.Itinerary;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps an in-memory {@link RouteGraph} of all routes for multi-stop itinerary
+ * searches.
+ * <p>
+ * The graph is loaded from the {@code route} collection by the first
+ * itinerary search. Routes written or deleted through {@link RouteService}
+ * after that rebuild the adjacency lists from {@link #edges}, and the new graph
+ * is swapped in whole: a search that is already running finishes on the graph
+ * it started with.
+ */
+@Slf4j
+@Service
+public class RouteGraphService {
+
+    private static final String EDGE_QUERY = "SELECT META(route).id AS id, route.sourceairport, "
+            + "route.destinationairport, route.distance FROM route";
+
+    private final Bucket bucket;
+    private final AtomicReference<RouteGraph> snapshot = new AtomicReference<>();
+
+    // The routes with both airports and a distance by route ID, which every
+    // graph is built from; guarded by this
+    private final Map<String, RouteGraph.Edge> edges = new HashMap<>();
+
+    public RouteGraphService(Bucket bucket) {
+        this.bucket = bucket;
+    }
+
+    public RouteGraph graph() {
+        RouteGraph graph = snapshot.get();
+        return graph != null ? graph : load();
+    }
+
+    /**
+     * Returns empty if either airport has no routes at all.
+     */
+    public Optional<List<Itinerary>> findPaths(String from, String to, int maxStops, int limit) {
+        RouteGraph graph = graph();
+        if (!graph.contains(from) || !graph.contains(to)) {
+            return Optional.empty();
+        }
+        return Optional.of(graph.findPaths(from, to, maxStops, limit));
+    }
+
+    public synchronized void routesSaved(Collection<Route> routes) {
+        if (snapshot.get() == null) {
+            // The first search queries with REQUEST_PLUS and finds these routes
+            return;
+        }
+        for (Route route : routes) {
+            RouteGraph.Edge edge = toEdge(route);
+            if (edge != null) {
+                edges.put(route.getId(), edge);
+            } else {
+                edges.remove(route.getId());
+            }
+        }
+        snapshot.set(RouteGraph.build(edges.values()));
+    }
+
+    public synchronized void routeDeleted(String id) {
+        if (snapshot.get() != null && edges.remove(id) != null) {
+            snapshot.set(RouteGraph.build(edges.values()));
+        }
+    }
+
+    // A route saved while the edge query runs blocks in routesSaved until the
+    // first graph is set, and is then applied to it rather than dropped
+    private synchronized RouteGraph load() {
+        RouteGraph graph = snapshot.get();
+        if (graph != null) {
+            return graph;
+        }
+        long start = System.nanoTime();
+        List<JsonObject> rows = bucket.scope(DocumentWriter.SCOPE)
+                .query(EDGE_QUERY, QueryOptions.queryOptions()
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS)
+                        .readonly(true))
+                .rowsAsObject();
+        for (JsonObject row : rows) {
+            String source = row.getString("sourceairport");
+            String destination = row.getString("destinationairport");
+            Number distance = row.getNumber("distance");
+            if (source != null && destination != null && distance != null) {
+                edges.put(row.getString("id"),
+                        new RouteGraph.Edge(row.getString("id"), source, destination, distance.doubleValue()));
+            }
+        }
+        graph = RouteGraph.build(edges.values());
+        snapshot.set(graph);
+        log.info("Loaded route graph with {} airports and {} connections in {} ms", graph.airportCount(),
+                graph.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+        return graph;
+    }
+
+    private static RouteGraph.Edge toEdge(Route route) {
+        if (route.getSourceAirport() == null || route.getDestinationAirport() == null
+                || route.getDistance() == null) {
+            return null;
+        }
+        return new RouteGraph.Edge(route.getId(), route.getSourceAirport(), route.getDestinationAirport(),
+                route.getDistance());
+    }
+}
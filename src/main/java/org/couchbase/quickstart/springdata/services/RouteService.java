@@ -1,45 +1,242 @@
 package org.couchbase.quickstart.springdata.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.couchbase.quickstart.springdata.models.ApproximatePage;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
 import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.TotalMode;
 import org.couchbase.quickstart.springdata.repository.RouteRepository;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+
+import tools.jackson.databind.JsonNode;
+
 @Service
 public class RouteService {
 
+   private static final String COLLECTION = "route";
+   private static final Set<String> INDEXED_FIELDS =
+           Set.of("airlineid", "sourceairport", "destinationairport", "distance");
+   private static final List<LookupInSpec> PAIR_SPECS =
+           List.of(LookupInSpec.get("destinationairport"), LookupInSpec.get("airlineid"));
+
    private final RouteRepository routeRepository;
+   private final DocumentWriter documentWriter;
+   private final BatchWriter batchWriter;
+   private final BatchReader batchReader;
+   private final QueryOptionsProvider queryOptionsProvider;
+   private final CollectionExporter collectionExporter;
+   private final RouteGraphService routeGraphService;
+   private final AirlineDestinationIndex airlineDestinationIndex;
+   private final CountCache countCache;
+   private final FieldProjector fieldProjector;
+   private final DocumentPatcher documentPatcher;
+   private final DocumentReader documentReader;
+   private final EntityCache<Versioned<Route>> routeCache;
 
-    public RouteService(RouteRepository routeRepository) {
+    public RouteService(RouteRepository routeRepository,
+            DocumentWriter documentWriter, BatchWriter batchWriter, BatchReader batchReader,
+            QueryOptionsProvider queryOptionsProvider, CollectionExporter collectionExporter,
+            RouteGraphService routeGraphService, AirlineDestinationIndex airlineDestinationIndex,
+            CountCache countCache, FieldProjector fieldProjector, DocumentPatcher documentPatcher,
+            DocumentReader documentReader,
+            @Value("${app.cache.route.max-size:5000}") int cacheSize,
+            @Value("${app.cache.route.ttl:5m}") Duration cacheTtl) {
          this.routeRepository = routeRepository;
+         this.documentWriter = documentWriter;
+         this.batchWriter = batchWriter;
+         this.batchReader = batchReader;
+         this.queryOptionsProvider = queryOptionsProvider;
+         this.collectionExporter = collectionExporter;
+         this.routeGraphService = routeGraphService;
+         this.airlineDestinationIndex = airlineDestinationIndex;
+         this.countCache = countCache;
+         this.fieldProjector = fieldProjector;
+         this.documentPatcher = documentPatcher;
+         this.documentReader = documentReader;
+         this.routeCache = new EntityCache<>(cacheSize, cacheTtl, Versioned::cas);
     }
 
-   public Page<Route> getAllRoutes(Pageable pageable) {
-       return routeRepository.findAll(pageable);
+   public Slice<Route> getAllRoutes(Pageable pageable, TotalMode total) {
+       RouteRepository repository = queryOptionsProvider.apply(routeRepository);
+       return switch (total) {
+           case EXACT -> Pages.page(pageable, repository::findPage, repository::countAll);
+           case NONE -> Pages.slice(pageable, repository::findPage);
+           case APPROX -> new ApproximatePage<>(Pages.slice(pageable, repository::findPage),
+                   countCache.get(COLLECTION, repository::countAll));
+       };
+   }
+
+   public Slice<Map<String, Object>> getAllRoutes(Pageable pageable, TotalMode total, String fields) {
+       RouteRepository repository = queryOptionsProvider.apply(routeRepository);
+       return fieldProjector.query("route", "route", JsonArray.create(), fieldProjector.parse(Route.class, fields),
+               pageable, total, COLLECTION, repository::countAll);
+   }
+
+   public List<Route> getRoutesAfter(String lastId, int limit) {
+       return queryOptionsProvider.apply(routeRepository).findAfter(lastId, limit);
    }
 
    public Optional<Route> getRouteById(String id) {
-       return routeRepository.findById(id);
+       return getVersionedRoute(id).map(Versioned::value);
+   }
+
+   public Optional<Versioned<Route>> getVersionedRoute(String id) {
+       return routeCache.get(id, missing -> documentReader.findById(Route.class, COLLECTION, missing));
+   }
+
+   public Optional<Map<String, Object>> getRouteById(String id, String fields) {
+       return fieldProjector.lookup(COLLECTION, id, fieldProjector.parse(Route.class, fields));
+   }
+
+   public MultiGetResult<Route> getRoutesByIds(List<String> ids) {
+       List<Versioned<Route>> routes = routeCache.getAll(ids,
+               missing -> batchReader.findAllVersionsById(Route.class, COLLECTION, missing),
+               found -> found.value().getId());
+       return MultiGetResult.of(ids, routes.stream().map(Versioned::value).toList(), Route::getId);
    }
 
    public Route saveRoute(Route route) {
-       return routeRepository.save(route);
+       return saveRoute(route, 0).value();
+   }
+
+   /**
+    * Writes the route, replacing it only if its CAS is still {@code cas}, or if it
+    * exists at all if {@code cas} is {@link DocumentWriter#ANY_CAS}, or
+    * unconditionally if {@code cas} is 0.
+    */
+   public Versioned<Route> saveRoute(Route route, long cas) {
+       Route previous = storedPair(route.getId(), cas);
+       Versioned<Route> saved = cas == 0
+               ? documentWriter.upsert(COLLECTION, route)
+               : documentWriter.replace(COLLECTION, route, cas);
+       routeCache.put(route.getId(), saved);
+       routeGraphService.routesSaved(List.of(route));
+       airlineDestinationIndex.routeSaved(previous, route);
+       return saved;
    }
 
    public void deleteRoute(String id) {
-       routeRepository.deleteById(id);
+       deleteRoute(id, 0);
+   }
+
+   public void deleteRoute(String id, long cas) {
+       Route previous = storedPair(id, cas);
+       documentWriter.remove(COLLECTION, id, cas);
+       routeCache.invalidate(id);
+       routeGraphService.routeDeleted(id);
+       if (previous != null) {
+           airlineDestinationIndex.routeDeleted(previous);
+       }
+   }
+
+   /**
+    * Returns the destination airport and airline of the stored route, which is
+    * all the destination index needs of the version a write replaces: the
+    * cached route if the write expects its CAS, else a {@code lookupIn} of just
+    * those two fields. Null if there is no such route.
+    */
+   private Route storedPair(String id, long cas) {
+       Optional<Versioned<Route>> cached = routeCache.peek(id);
+       if (cas != 0 && cached.isPresent() && cached.get().cas() == cas) {
+           return cached.get().value();
+       }
+       try {
+           return pair(id, documentWriter.collection(COLLECTION).lookupIn(id, PAIR_SPECS));
+       } catch (DocumentNotFoundException e) {
+           return null;
+       }
+   }
+
+   private static Route pair(String id, LookupInResult result) {
+       return Route.builder()
+               .id(id)
+               .destinationAirport(result.exists(0) ? result.contentAs(0, String.class) : null)
+               .airlineId(result.exists(1) ? result.contentAs(1, String.class) : null)
+               .build();
    }
 
    public Route createRoute(Route route) {
-       return routeRepository.save(route);
+       return saveRoute(route);
+   }
+
+   public List<BatchItemResult> createRoutes(List<Route> routes, boolean upsert) {
+       // Inserts only succeed for new routes, so there is nothing to look up
+       Map<String, Route> previous = upsert
+               ? batchReader.lookupAllById(COLLECTION, routes.stream().map(Route::getId).toList(), PAIR_SPECS,
+                       RouteService::pair)
+                       .stream().collect(Collectors.toMap(Route::getId, Function.identity(), (a, b) -> a))
+               : Map.of();
+       List<BatchItemResult> results = batchWriter.write(COLLECTION, routes, Route::getId, upsert);
+       List<Route> written = new ArrayList<>();
+       for (int i = 0; i < results.size(); i++) {
+           if (results.get(i).isWritten()) {
+               Route route = routes.get(i);
+               // The batch does not return the CAS, so the next read loads it
+               routeCache.invalidate(route.getId());
+               airlineDestinationIndex.routeSaved(previous.get(route.getId()), route);
+               written.add(route);
+           }
+       }
+       routeGraphService.routesSaved(written);
+       return results;
    }
 
    public Route updateRoute(String id, Route route) {
+       return updateRoute(id, route, 0).value();
+   }
+
+   public Versioned<Route> updateRoute(String id, Route route, long cas) {
        route.setId(id);
-       return routeRepository.save(route);
+       return saveRoute(route, cas);
+   }
+
+   public long patchRoute(String id, MediaType contentType, JsonNode patch, long cas) {
+       DocumentPatcher.Patch parsed = documentPatcher.parse(Route.class, contentType, patch);
+       // Schedule changes leave the route graph and destination index alone,
+       // so only read the route back when the patch touches what they use
+       boolean indexed = parsed.fields().stream().anyMatch(INDEXED_FIELDS::contains);
+       Route previous = indexed ? storedPair(id, cas) : null;
+       long patchedCas = documentPatcher.apply(COLLECTION, id, parsed, cas);
+       routeCache.invalidate(id);
+       if (indexed) {
+           routeRepository.findById(id).ifPresent(patched -> {
+               routeGraphService.routesSaved(List.of(patched));
+               airlineDestinationIndex.routeSaved(previous, patched);
+           });
+       }
+       return patchedCas;
+   }
+
+   public void exportRoutes(String after, OutputStream out, boolean gzip) throws IOException {
+       collectionExporter.export(COLLECTION, after, out, gzip);
+   }
+
+   public void exportRouteSample(long limit, OutputStream out, boolean gzip) throws IOException {
+       collectionExporter.exportSample(COLLECTION, limit, out, gzip);
+   }
+
+   public EntityCache.Stats getCacheStats() {
+       return routeCache.stats();
    }
 
 }
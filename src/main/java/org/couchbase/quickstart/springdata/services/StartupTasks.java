@@ -0,0 +1,74 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the loads and warm-ups that start once the application is ready, so
+ * they do not hold up the startup itself.
+ * <p>
+ * Each task gets a daemon thread named after it, taken from a pool that only
+ * keeps idle threads for a minute. The pool is stopped with the application
+ * context, which interrupts the tasks still running, so a context that is
+ * closed in a test or by devtools does not leave loaders querying a closed
+ * cluster.
+ */
+@Slf4j
+@Component
+public class StartupTasks implements SmartLifecycle {
+
+    private final ExecutorService executor;
+    private volatile boolean running;
+
+    public StartupTasks() {
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("startup-");
+        threads.setDaemon(true);
+        this.executor = Executors.newCachedThreadPool(threads);
+    }
+
+    /**
+     * Runs {@code task} in the background. What it throws is logged; tasks that
+     * need to react to a failure catch it themselves.
+     */
+    public void run(String name, Runnable task) {
+        try {
+            executor.execute(() -> {
+                Thread thread = Thread.currentThread();
+                String poolName = thread.getName();
+                thread.setName(name);
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Startup task {} failed", name, e);
+                } finally {
+                    thread.setName(poolName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Not running startup task {}, the application is shutting down", name);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
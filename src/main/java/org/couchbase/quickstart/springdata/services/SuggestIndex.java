@@ -0,0 +1,256 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+import org.couchbase.quickstart.springdata.models.Suggestion;
+
+/**
+ * Immutable snapshot of the names and codes suggested while typing. Every
+ * indexed text is normalized (lower case, no accents, words separated by
+ * single spaces) and stored once for each word it contains, from that word to
+ * the end, in one sorted array. The texts starting with a prefix are then a
+ * contiguous range found with two binary searches, so "fran" matches both
+ * "Francisco" and "San Francisco Intl".
+ * <p>
+ * Matches are ranked by their number of routes, then by name.
+ * <p>
+ * {@link #apply} derives the next snapshot from this one by normalizing only
+ * the changed entries and merging their keys into a copy of the sorted array,
+ * so a write costs one linear pass instead of a full rebuild and sort.
+ * Removed entries leave an empty slot behind until they outnumber the live
+ * ones, at which point the snapshot is rebuilt compactly.
+ */
+public final class SuggestIndex {
+
+    public static final SuggestIndex EMPTY = build(List.of());
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::routes).reversed()
+            .thenComparing(Entry::name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Entry::id);
+
+    /**
+     * An airport or airline and the texts it is found by.
+     */
+    public record Entry(String type, String id, String name, String code, String city, String country, int routes,
+            List<String> texts) {
+    }
+
+    private final String[] keys;
+    private final int[] refs;
+    // Indexed by ref; null where an entry was removed
+    private final Entry[] entries;
+    private final Map<String, Integer> refsById;
+
+    private SuggestIndex(String[] keys, int[] refs, Entry[] entries, Map<String, Integer> refsById) {
+        this.keys = keys;
+        this.refs = refs;
+        this.entries = entries;
+        this.refsById = refsById;
+    }
+
+    public static SuggestIndex build(Collection<Entry> entries) {
+        Entry[] all = entries.toArray(Entry[]::new);
+        Map<String, Integer> refsById = new HashMap<>();
+        for (int e = 0; e < all.length; e++) {
+            refsById.put(all[e].id(), e);
+        }
+        Keys keys = new Keys();
+        for (int e = 0; e < all.length; e++) {
+            keys.add(all[e], e);
+        }
+        keys.sort();
+        return new SuggestIndex(keys.keys, keys.refs, all, refsById);
+    }
+
+    /**
+     * Returns a snapshot with {@code saved} added or replacing the entries with
+     * the same IDs, and the entries with the {@code deleted} IDs removed. This
+     * snapshot is left unchanged.
+     */
+    public SuggestIndex apply(Collection<Entry> saved, Collection<String> deleted) {
+        // The last entry saved under an ID wins
+        Map<String, Entry> savedById = new LinkedHashMap<>();
+        for (Entry entry : saved) {
+            savedById.put(entry.id(), entry);
+        }
+        Entry[] nextEntries = Arrays.copyOf(entries, entries.length + savedById.size());
+        Map<String, Integer> nextRefs = new HashMap<>(refsById);
+        BitSet stale = new BitSet(nextEntries.length);
+        for (String id : deleted) {
+            Integer ref = nextRefs.remove(id);
+            if (ref != null) {
+                stale.set(ref);
+                nextEntries[ref] = null;
+            }
+        }
+        int end = entries.length;
+        Keys added = new Keys();
+        for (Entry entry : savedById.values()) {
+            Integer ref = nextRefs.get(entry.id());
+            if (ref != null) {
+                stale.set(ref);
+            } else {
+                ref = end++;
+                nextRefs.put(entry.id(), ref);
+            }
+            nextEntries[ref] = entry;
+            added.add(entry, ref);
+        }
+        nextEntries = Arrays.copyOf(nextEntries, end);
+        if (nextEntries.length > 2 * nextRefs.size()) {
+            return build(Arrays.stream(nextEntries).filter(Objects::nonNull).toList());
+        }
+        added.sort();
+        return merge(stale, added, nextEntries, nextRefs);
+    }
+
+    // One pass over the sorted keys: drops those of replaced and removed
+    // entries and interleaves the new ones
+    private SuggestIndex merge(BitSet stale, Keys added, Entry[] nextEntries, Map<String, Integer> nextRefs) {
+        int kept = 0;
+        for (int ref : refs) {
+            if (!stale.get(ref)) {
+                kept++;
+            }
+        }
+        String[] mergedKeys = new String[kept + added.keys.length];
+        int[] mergedRefs = new int[mergedKeys.length];
+        int i = 0;
+        int a = 0;
+        int m = 0;
+        while (i < keys.length || a < added.keys.length) {
+            if (i < keys.length && stale.get(refs[i])) {
+                i++;
+            } else if (a == added.keys.length || i < keys.length && keys[i].compareTo(added.keys[a]) <= 0) {
+                mergedKeys[m] = keys[i];
+                mergedRefs[m++] = refs[i++];
+            } else {
+                mergedKeys[m] = added.keys[a];
+                mergedRefs[m++] = added.refs[a++];
+            }
+        }
+        return new SuggestIndex(mergedKeys, mergedRefs, nextEntries, nextRefs);
+    }
+
+    public int entryCount() {
+        return refsById.size();
+    }
+
+    public int keyCount() {
+        return keys.length;
+    }
+
+    /**
+     * Returns up to {@code limit} airports and airlines with a word starting
+     * with {@code query}, best ranked first. A query of several words matches
+     * texts that contain those words in that order, the last one as a prefix.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        int from = lowerBound(prefix);
+        // No normalized key contains Character.MAX_VALUE, so this is past every key with the prefix
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        BitSet seen = new BitSet(entries.length);
+        for (int i = from; i < to; i++) {
+            int ref = refs[i];
+            if (seen.get(ref)) {
+                continue;
+            }
+            seen.set(ref);
+            best.add(entries[ref]);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Entry> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked.stream().map(SuggestIndex::toSuggestion).toList();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects the keys of entries, one per word of each text from that word to
+     * the end, and sorts them with their refs.
+     */
+    private static final class Keys {
+
+        private final List<String> collected = new ArrayList<>();
+        private final List<Integer> collectedRefs = new ArrayList<>();
+        private String[] keys;
+        private int[] refs;
+
+        void add(Entry entry, int ref) {
+            for (String text : entry.texts()) {
+                String normalized = normalize(text);
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                // One key per word, until indexOf finds no further space
+                int start = 0;
+                do {
+                    collected.add(normalized.substring(start));
+                    collectedRefs.add(ref);
+                    start = normalized.indexOf(' ', start) + 1;
+                } while (start > 0);
+            }
+        }
+
+        void sort() {
+            Integer[] order = new Integer[collected.size()];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparing(collected::get));
+            keys = new String[order.length];
+            refs = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = collected.get(order[i]);
+                refs[i] = collectedRefs.get(order[i]);
+            }
+        }
+    }
+
+    private static Suggestion toSuggestion(Entry entry) {
+        return new Suggestion(entry.type(), entry.id(), entry.name(), entry.code(), entry.city(), entry.country(),
+                entry.routes());
+    }
+}
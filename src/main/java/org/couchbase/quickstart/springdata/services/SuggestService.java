@@ -0,0 +1,191 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Suggestion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Scope;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryScanConsistency;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps an in-memory {@link SuggestIndex} of airport and airline names and
+ * codes for typeahead searches.
+ * <p>
+ * The index is loaded from the {@code airport}, {@code airline} and
+ * {@code route} collections by {@link StartupTasks} once the application is
+ * ready, or by the first search if that comes earlier. After that, airports and airlines
+ * written or deleted through {@link AirportService} and {@link AirlineService}
+ * are merged into the next snapshot with {@link SuggestIndex#apply}, which
+ * re-normalizes only the changed names. Searches read whichever snapshot is
+ * current without locking. Route counts, which only rank the suggestions, are
+ * those of the last load.
+ */
+@Slf4j
+@Service
+public class SuggestService {
+
+    static final String AIRPORT = "airport";
+    static final String AIRLINE = "airline";
+
+    private static final String AIRPORT_QUERY = "SELECT META(airport).id AS id, airport.airportname, "
+            + "airport.city, airport.country, airport.faa, airport.icao FROM airport";
+    private static final String AIRLINE_QUERY = "SELECT META(airline).id AS id, airline.name, airline.country, "
+            + "airline.iata, airline.icao FROM airline";
+    private static final String AIRPORT_ROUTES_QUERY = "SELECT route.sourceairport AS `key`, COUNT(*) AS routes "
+            + "FROM route WHERE route.sourceairport IS VALUED GROUP BY route.sourceairport";
+    private static final String AIRLINE_ROUTES_QUERY = "SELECT route.airlineid AS `key`, COUNT(*) AS routes "
+            + "FROM route WHERE route.airlineid IS VALUED GROUP BY route.airlineid";
+
+    private final Bucket bucket;
+    private final StartupTasks startupTasks;
+    private final boolean loadOnStartup;
+    private final AtomicReference<SuggestIndex> snapshot = new AtomicReference<>();
+
+    // Route counts of the last load, to rank saved entries; guarded by this
+    private final Map<String, Integer> airportRoutes = new HashMap<>();
+    private final Map<String, Integer> airlineRoutes = new HashMap<>();
+
+    public SuggestService(Bucket bucket, StartupTasks startupTasks,
+            @Value("${app.suggest.load-on-startup:true}") boolean loadOnStartup) {
+        this.bucket = bucket;
+        this.startupTasks = startupTasks;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    public SuggestIndex index() {
+        SuggestIndex index = snapshot.get();
+        return index != null ? index : load();
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        return index().suggest(query, limit);
+    }
+
+    // Writes before the first load are skipped, since the load queries with
+    // REQUEST_PLUS and so reads them anyway
+    public synchronized void airportsSaved(Collection<Airport> airports) {
+        SuggestIndex index = snapshot.get();
+        if (index == null) {
+            return;
+        }
+        List<SuggestIndex.Entry> saved = new ArrayList<>(airports.size());
+        for (Airport airport : airports) {
+            saved.add(airportEntry(airport.getId(), airport.getAirportName(), airport.getCity(), airport.getCountry(),
+                    airport.getFaa(), airport.getIcao()));
+        }
+        snapshot.set(index.apply(saved, List.of()));
+    }
+
+    public synchronized void airlinesSaved(Collection<Airline> airlines) {
+        SuggestIndex index = snapshot.get();
+        if (index == null) {
+            return;
+        }
+        List<SuggestIndex.Entry> saved = new ArrayList<>(airlines.size());
+        for (Airline airline : airlines) {
+            saved.add(airlineEntry(airline.getId(), airline.getName(), airline.getCountry(), airline.getIata(),
+                    airline.getIcao()));
+        }
+        snapshot.set(index.apply(saved, List.of()));
+    }
+
+    public synchronized void deleted(String id) {
+        SuggestIndex index = snapshot.get();
+        if (index != null) {
+            snapshot.set(index.apply(List.of(), List.of(id)));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        if (!loadOnStartup || snapshot.get() != null) {
+            return;
+        }
+        startupTasks.run("suggest-index-load", () -> {
+            try {
+                load();
+            } catch (CouchbaseException e) {
+                log.error("Could not load the suggest index, retrying on first search", e);
+            }
+        });
+    }
+
+    // The four queries run under the monitor, so the route counts and names
+    // they return and any write waiting in airportsSaved or airlinesSaved are
+    // applied in that order
+    private synchronized SuggestIndex load() {
+        SuggestIndex index = snapshot.get();
+        if (index != null) {
+            return index;
+        }
+        long start = System.nanoTime();
+        Scope scope = bucket.scope(DocumentWriter.SCOPE);
+        countRoutes(scope, AIRPORT_ROUTES_QUERY, airportRoutes);
+        countRoutes(scope, AIRLINE_ROUTES_QUERY, airlineRoutes);
+        List<SuggestIndex.Entry> entries = new ArrayList<>();
+        for (JsonObject row : query(scope, AIRPORT_QUERY)) {
+            entries.add(airportEntry(row.getString("id"), row.getString("airportname"), row.getString("city"),
+                    row.getString("country"), row.getString("faa"), row.getString("icao")));
+        }
+        for (JsonObject row : query(scope, AIRLINE_QUERY)) {
+            entries.add(airlineEntry(row.getString("id"), row.getString("name"), row.getString("country"),
+                    row.getString("iata"), row.getString("icao")));
+        }
+        index = SuggestIndex.build(entries);
+        snapshot.set(index);
+        log.info("Loaded suggest index with {} airports and airlines and {} keys in {} ms", index.entryCount(),
+                index.keyCount(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    private static List<JsonObject> query(Scope scope, String statement) {
+        return scope.query(statement, QueryOptions.queryOptions()
+                .scanConsistency(QueryScanConsistency.REQUEST_PLUS)
+                .readonly(true))
+                .rowsAsObject();
+    }
+
+    private static void countRoutes(Scope scope, String statement, Map<String, Integer> counts) {
+        for (JsonObject row : query(scope, statement)) {
+            counts.put(row.getString("key"), row.getInt("routes"));
+        }
+    }
+
+    private SuggestIndex.Entry airportEntry(String id, String name, String city, String country, String faa,
+            String icao) {
+        int routes = faa != null ? airportRoutes.getOrDefault(faa, 0) : 0;
+        return new SuggestIndex.Entry(AIRPORT, id, name, faa, city, country, routes, texts(name, city, faa, icao));
+    }
+
+    private SuggestIndex.Entry airlineEntry(String id, String name, String country, String iata, String icao) {
+        return new SuggestIndex.Entry(AIRLINE, id, name, iata, null, country, airlineRoutes.getOrDefault(id, 0),
+                texts(name, iata, icao));
+    }
+
+    private static List<String> texts(String... values) {
+        List<String> texts = new ArrayList<>(values.length);
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                texts.add(value);
+            }
+        }
+        return texts;
+    }
+}
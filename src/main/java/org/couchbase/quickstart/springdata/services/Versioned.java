@@ -0,0 +1,8 @@
+package org.couchbase.quickstart.springdata.services;
+
+/**
+ * An entity together with the CAS of the stored document it was read from or
+ * written as. The CAS changes on every mutation, so it identifies the version.
+ */
+public record Versioned<T>(T value, long cas) {
+}
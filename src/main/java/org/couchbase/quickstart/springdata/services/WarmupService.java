@@ -0,0 +1,252 @@
+package org.couchbase.quickstart.springdata.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.couchbase.quickstart.springdata.config.CouchbaseReadinessHealthIndicator;
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.models.TotalMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Scope;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.query.QueryOptions;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Warms up the paths that are hot right after a deploy before the application
+ * reports ready: KV and query connections, the entity caches of
+ * {@link AirportService} and {@link AirlineService}, the direct connections
+ * query, and the JSON serializers of the responses, {@link Route} pages in
+ * particular.
+ * <p>
+ * The airports and airlines are those of {@code app.warmup.airports} and
+ * {@code app.warmup.airlines}, or if empty the {@code app.warmup.learned}
+ * airports with the most departing routes and airlines with the most routes.
+ * Each airport is read with its first page of direct connections. The work
+ * runs on {@link StartupTasks}, starts once the bucket is ready, runs at most {@code app.warmup.parallelism}
+ * reads at a time and stops after {@code app.warmup.timeout}, counted from
+ * {@code ApplicationReadyEvent}. Reads still waiting then are skipped.
+ * <p>
+ * This is part of the readiness group: {@code OUT_OF_SERVICE} while warming
+ * up, then {@code UP} with what was loaded, even if some reads failed, since a
+ * cold instance still beats none.
+ */
+@Slf4j
+@Service
+public class WarmupService implements HealthIndicator {
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final String HOT_AIRPORTS_QUERY = "SELECT RAW route.sourceairport FROM route "
+            + "WHERE route.sourceairport IS VALUED GROUP BY route.sourceairport ORDER BY COUNT(*) DESC LIMIT $1";
+    private static final String AIRPORT_IDS_QUERY = "SELECT RAW META(airport).id FROM airport "
+            + "WHERE airport.faa IN $1";
+    private static final String HOT_AIRLINES_QUERY = "SELECT RAW route.airlineid FROM route "
+            + "WHERE route.airlineid IS VALUED GROUP BY route.airlineid ORDER BY COUNT(*) DESC LIMIT $1";
+
+    private final AirportService airportService;
+    private final AirlineService airlineService;
+    private final RouteService routeService;
+    private final CouchbaseReadinessHealthIndicator readiness;
+    private final Bucket bucket;
+    private final JsonMapper jsonMapper;
+    private final StartupTasks startupTasks;
+    private final boolean enabled;
+    private final List<String> airports;
+    private final List<String> airlines;
+    private final int learned;
+    private final int routePages;
+    private final int parallelism;
+    private final Duration timeout;
+
+    // Null until the warm-up has finished
+    private final AtomicReference<Report> report = new AtomicReference<>();
+
+    public WarmupService(AirportService airportService, AirlineService airlineService, RouteService routeService,
+            CouchbaseReadinessHealthIndicator readiness, Bucket bucket, JsonMapper jsonMapper,
+            StartupTasks startupTasks,
+            @Value("${app.warmup.enabled:true}") boolean enabled,
+            @Value("${app.warmup.airports:}") List<String> airports,
+            @Value("${app.warmup.airlines:}") List<String> airlines,
+            @Value("${app.warmup.learned:50}") int learned,
+            @Value("${app.warmup.route-pages:5}") int routePages,
+            @Value("${app.warmup.parallelism:8}") int parallelism,
+            @Value("${app.warmup.timeout:20s}") Duration timeout) {
+        this.airportService = airportService;
+        this.airlineService = airlineService;
+        this.routeService = routeService;
+        this.readiness = readiness;
+        this.bucket = bucket;
+        this.jsonMapper = jsonMapper;
+        this.startupTasks = startupTasks;
+        this.enabled = enabled;
+        this.airports = airports;
+        this.airlines = airlines;
+        this.learned = learned;
+        this.routePages = routePages;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("warmup", "disabled").build();
+        }
+        Report done = report.get();
+        if (done == null) {
+            return Health.outOfService().withDetail("warmup", "in progress").build();
+        }
+        return Health.up()
+                .withDetail("loaded", done.loaded())
+                .withDetail("failed", done.failed())
+                .withDetail("skipped", done.skipped())
+                .withDetail("elapsedMs", done.elapsedMillis())
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUpOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        startupTasks.run("warmup", () -> {
+            try {
+                report.set(warmUp());
+            } catch (RuntimeException e) {
+                // Readiness waits for a report, so a failed warm-up must still leave one
+                log.error("Warm-up failed, reporting ready without it", e);
+                report.set(new Report(Map.of(), 0, 0, 0));
+            }
+        });
+    }
+
+    Report warmUp() {
+        long start = System.nanoTime();
+        AtomicInteger planned = new AtomicInteger();
+        List<Outcome> outcomes = Mono.fromFuture(readiness.bootstrap(), true)
+                // A late bucket may still answer, the timeout bounds the rest
+                .onErrorComplete()
+                .thenMany(Mono.fromCallable(this::tasks)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .doOnNext(tasks -> planned.set(tasks.size()))
+                        .flatMapIterable(tasks -> tasks))
+                .flatMap(task -> Mono.fromRunnable(task.work())
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(new Outcome(task.kind(), true))
+                        .onErrorResume(e -> {
+                            log.debug("Warm-up of {} {} failed", task.kind(), task.key(), e);
+                            return Mono.just(new Outcome(task.kind(), false));
+                        }), parallelism)
+                .take(timeout)
+                .collectList()
+                .block();
+
+        Map<String, Integer> loaded = new TreeMap<>();
+        int failed = 0;
+        for (Outcome outcome : outcomes) {
+            if (outcome.ok()) {
+                loaded.merge(outcome.kind(), 1, Integer::sum);
+            } else {
+                failed++;
+            }
+        }
+        Report result = new Report(loaded, failed, planned.get() - outcomes.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Warm-up loaded {} in {} ms, {} failed, {} skipped", result.loaded(), result.elapsedMillis(),
+                result.failed(), result.skipped());
+        return result;
+    }
+
+    private List<Task> tasks() {
+        List<Task> tasks = new ArrayList<>();
+        for (String id : airports.isEmpty() ? learnAirports() : airports) {
+            tasks.add(new Task("airports", id, () -> warmAirport(id)));
+        }
+        for (String id : airlines.isEmpty() ? learnAirlines() : airlines) {
+            tasks.add(new Task("airlines", id, () -> warmAirline(id)));
+        }
+        for (int page = 0; page < routePages; page++) {
+            PageRequest pageable = PageRequest.of(page, PAGE_SIZE);
+            tasks.add(new Task("routePages", String.valueOf(page),
+                    () -> jsonMapper.writeValueAsBytes(routeService.getAllRoutes(pageable, TotalMode.EXACT))));
+        }
+        return tasks;
+    }
+
+    private void warmAirport(String id) {
+        Airport airport = airportService.getAirportById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No airport " + id));
+        jsonMapper.writeValueAsBytes(airport);
+        if (airport.getFaa() != null) {
+            // Serialized the way AirportController answers /direct-connections
+            Slice<Route> connections = airportService.getDirectConnections(airport.getFaa(),
+                    PageRequest.of(0, PAGE_SIZE));
+            jsonMapper.writeValueAsBytes(connections.map(Route::getDestinationAirport));
+        }
+    }
+
+    private void warmAirline(String id) {
+        Airline airline = airlineService.getAirlineById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No airline " + id));
+        jsonMapper.writeValueAsBytes(airline);
+    }
+
+    private List<String> learnAirports() {
+        try {
+            Scope scope = bucket.scope(DocumentWriter.SCOPE);
+            List<String> codes = scope.query(HOT_AIRPORTS_QUERY,
+                    QueryOptions.queryOptions().parameters(JsonArray.from(learned))).rowsAs(String.class);
+            return scope.query(AIRPORT_IDS_QUERY,
+                    QueryOptions.queryOptions().parameters(JsonArray.from(JsonArray.from(codes))))
+                    .rowsAs(String.class);
+        } catch (CouchbaseException e) {
+            log.warn("Could not learn the hot airports, skipping them", e);
+            return List.of();
+        }
+    }
+
+    private List<String> learnAirlines() {
+        try {
+            return bucket.scope(DocumentWriter.SCOPE).query(HOT_AIRLINES_QUERY,
+                    QueryOptions.queryOptions().parameters(JsonArray.from(learned))).rowsAs(String.class);
+        } catch (CouchbaseException e) {
+            log.warn("Could not learn the hot airlines, skipping them", e);
+            return List.of();
+        }
+    }
+
+    private record Task(String kind, String key, Runnable work) {
+    }
+
+    private record Outcome(String kind, boolean ok) {
+    }
+
+    /**
+     * What a warm-up loaded per kind of read, how many reads failed, and how
+     * many were skipped because the timeout had passed.
+     */
+    record Report(Map<String, Integer> loaded, int failed, int skipped, long elapsedMillis) {
+    }
+}
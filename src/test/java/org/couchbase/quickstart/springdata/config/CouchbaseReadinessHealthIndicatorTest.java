@@ -0,0 +1,76 @@
+package org.couchbase.quickstart.springdata.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+import com.couchbase.client.core.diagnostics.EndpointDiagnostics;
+import com.couchbase.client.core.diagnostics.EndpointPingReport;
+import com.couchbase.client.core.diagnostics.PingState;
+import com.couchbase.client.core.endpoint.EndpointState;
+import com.couchbase.client.core.service.ServiceType;
+
+class CouchbaseReadinessHealthIndicatorTest {
+
+        private static final Map<ServiceType, List<EndpointDiagnostics>> CONNECTED = Map.of(
+                        ServiceType.KV, List.of(connection(EndpointState.CONNECTED)),
+                        ServiceType.QUERY, List.of(connection(EndpointState.CONNECTED)));
+
+        @Test
+        void outOfServiceWhileBootstrapping() {
+                Health health = new CouchbaseReadinessHealthIndicator(new CompletableFuture<>(),
+                                () -> {
+                                        throw new AssertionError("pinged before the bucket was ready");
+                                }, () -> CONNECTED).health();
+
+                assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+                assertThat(health.getDetails()).containsEntry("bootstrap", "in progress");
+        }
+
+        @Test
+        void upOnceKvAndQueryAnswerAPing() {
+                Health health = new CouchbaseReadinessHealthIndicator(CompletableFuture.completedFuture(null),
+                                () -> Map.of(ServiceType.KV, List.of(ping(PingState.OK, 2)),
+                                                ServiceType.QUERY, List.of(ping(PingState.OK, 5))),
+                                () -> CONNECTED).health();
+
+                assertThat(health.getStatus()).isEqualTo(Status.UP);
+                assertThat(health.getDetails().get("services")).isEqualTo(Map.of(
+                                "kv", Map.of("ping", "ok", "latencyMs", 2.0, "endpoints", 1, "connected", 1L),
+                                "query", Map.of("ping", "ok", "latencyMs", 5.0, "endpoints", 1, "connected", 1L)));
+        }
+
+        @Test
+        void outOfServiceWhenAServiceDoesNotAnswer() {
+                Health health = new CouchbaseReadinessHealthIndicator(
+                                CompletableFuture.failedFuture(new IllegalStateException("timed out")),
+                                () -> Map.of(ServiceType.KV, List.of(ping(PingState.OK, 2)),
+                                                ServiceType.QUERY, List.of(ping(PingState.TIMEOUT, 2000))),
+                                () -> CONNECTED).health();
+
+                assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+                assertThat(health.getDetails()).containsEntry("bootstrap", "failed");
+        }
+
+        private static EndpointPingReport ping(PingState state, long latencyMillis) {
+                EndpointPingReport report = mock(EndpointPingReport.class);
+                when(report.state()).thenReturn(state);
+                when(report.latency()).thenReturn(Duration.ofMillis(latencyMillis));
+                return report;
+        }
+
+        private static EndpointDiagnostics connection(EndpointState state) {
+                EndpointDiagnostics endpoint = mock(EndpointDiagnostics.class);
+                when(endpoint.state()).thenReturn(state);
+                return endpoint;
+        }
+}
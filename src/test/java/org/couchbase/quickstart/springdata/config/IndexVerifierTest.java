@@ -0,0 +1,117 @@
+package org.couchbase.quickstart.springdata.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.couchbase.quickstart.springdata.config.IndexVerifier.OnMissing;
+import org.couchbase.quickstart.springdata.config.IndexVerifier.Report;
+import org.couchbase.quickstart.springdata.config.IndexVerifier.RequiredIndex;
+import org.couchbase.quickstart.springdata.config.IndexVerifier.UsedBy;
+import org.couchbase.quickstart.springdata.repository.AirlineRepository;
+import org.junit.jupiter.api.Test;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.manager.query.CollectionQueryIndexManager;
+import com.couchbase.client.java.manager.query.CreatePrimaryQueryIndexOptions;
+import com.couchbase.client.java.manager.query.CreateQueryIndexOptions;
+import com.couchbase.client.java.manager.query.QueryIndex;
+
+class IndexVerifierTest {
+
+        private static final RequiredIndex COUNTRY = new RequiredIndex("airline", "idx_airline_country",
+                        List.of("country", "name"), List.of(new UsedBy(AirlineRepository.class, "countByCountry")));
+
+        private static final JsonObject INDEX_SCAN = plan("IndexScan3");
+        private static final JsonObject PRIMARY_SCAN = plan("PrimaryScan3");
+
+        private final CollectionQueryIndexManager manager = mock(CollectionQueryIndexManager.class);
+
+        @Test
+        void existingIndexWithMatchingLeadingKeys() {
+                when(manager.getAllIndexes()).thenReturn(List.of(index("adv_country_name_callsign",
+                                "`country`", "`name`", "`callsign`")));
+
+                Report report = verifier(OnMissing.FAIL, List.of(INDEX_SCAN)).verify(List.of(COUNTRY));
+
+                assertThat(report.missing()).isEmpty();
+                assertThat(report.primaryScans()).isEmpty();
+                verify(manager, never()).createIndex(any(), any(), any(CreateQueryIndexOptions.class));
+        }
+
+        @Test
+        void createsMissingIndexesDeferred() {
+                when(manager.getAllIndexes()).thenReturn(List.of(index("idx_other", "`name`")));
+
+                Report report = verifier(OnMissing.CREATE, List.of(INDEX_SCAN))
+                                .verify(List.of(RequiredIndex.primary("airline"), COUNTRY));
+
+                assertThat(report.created()).hasSize(2);
+                verify(manager).createPrimaryIndex(any(CreatePrimaryQueryIndexOptions.class));
+                verify(manager).createIndex(eq("idx_airline_country"), eq(List.of("country", "name")),
+                                any(CreateQueryIndexOptions.class));
+                verify(manager).buildDeferredIndexes();
+        }
+
+        @Test
+        void failsFastOnMissingIndexes() {
+                when(manager.getAllIndexes()).thenReturn(List.of());
+
+                assertThatThrownBy(() -> verifier(OnMissing.FAIL, List.of(INDEX_SCAN)).verify(List.of(COUNTRY)))
+                                .isInstanceOf(IllegalStateException.class)
+                                .hasMessageContaining("idx_airline_country");
+                verify(manager, never()).buildDeferredIndexes();
+        }
+
+        @Test
+        void reportsQueriesPlannedAsPrimaryScans() {
+                when(manager.getAllIndexes()).thenReturn(List.of());
+
+                Report report = verifier(OnMissing.WARN, List.of(PRIMARY_SCAN)).verify(List.of(COUNTRY));
+
+                assertThat(report.missing()).containsExactly(COUNTRY.describe());
+                assertThat(report.primaryScans()).containsExactly("AirlineRepository.countByCountry");
+        }
+
+        @Test
+        void startsWithoutTheRightsToListIndexesUnlessFailing() {
+                when(manager.getAllIndexes()).thenThrow(new CouchbaseException("User does not have credentials"));
+
+                assertThatCode(() -> verifier(OnMissing.WARN, List.of()).verifyOnStartup()).doesNotThrowAnyException();
+                assertThatThrownBy(() -> verifier(OnMissing.FAIL, List.of()).verifyOnStartup())
+                                .isInstanceOf(CouchbaseException.class);
+        }
+
+        private IndexVerifier verifier(OnMissing onMissing, List<JsonObject> explained) {
+                return new IndexVerifier(collection -> manager, statement -> explained, onMissing, Duration.ZERO);
+        }
+
+        private static QueryIndex index(String name, String... keys) {
+                QueryIndex index = mock(QueryIndex.class);
+                when(index.name()).thenReturn(name);
+                when(index.primary()).thenReturn(false);
+                when(index.condition()).thenReturn(Optional.empty());
+                when(index.indexKey()).thenReturn(JsonArray.from((Object[]) keys));
+                return index;
+        }
+
+        private static JsonObject plan(String scan) {
+                return JsonObject.create().put("plan", JsonObject.create()
+                                .put("#operator", "Sequence")
+                                .put("~children", JsonArray.from(
+                                                JsonObject.create().put("#operator", scan),
+                                                JsonObject.create().put("#operator", "Fetch"))));
+        }
+}
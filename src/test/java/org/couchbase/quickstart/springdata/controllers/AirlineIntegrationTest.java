@@ -2,9 +2,15 @@ package org.couchbase.quickstart.springdata.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
+
 import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
 import org.couchbase.quickstart.springdata.models.RestResponsePage;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.services.AirlineDestinationIndex;
 import org.couchbase.quickstart.springdata.services.AirlineService;
+import org.couchbase.quickstart.springdata.services.ConsistencyContext;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +21,7 @@ import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRe
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -41,6 +48,9 @@ class AirlineIntegrationTest {
         @Autowired
         private AirlineService airlineService;
 
+        @Autowired
+        private AirlineDestinationIndex airlineDestinationIndex;
+
         private void deleteAirline(String baseUri, String airlineId) {
                 try {
                         if (airlineService.getAirlineById(airlineId).isPresent()) {
@@ -58,6 +68,8 @@ class AirlineIntegrationTest {
                 deleteAirline(baseUri, "airline_create");
                 deleteAirline(baseUri, "airline_update");
                 deleteAirline(baseUri, "airline_delete");
+                deleteAirline(baseUri, "airline_batch_1");
+                deleteAirline(baseUri, "airline_batch_2");
         }
 
         private String getBaseUri() {
@@ -123,6 +135,34 @@ class AirlineIntegrationTest {
                 assertThat(createdAirline).isEqualTo(airline);
         }
 
+        @Test
+        void testCreateAirlinesInBatch() {
+                List<Airline> airlines = List.of(
+                                Airline.builder().id("airline_batch_1").type("airline").name("Batch Airline One")
+                                                .iata("B1").icao("BAO").callsign("BATCHONE").country("United States")
+                                                .build(),
+                                Airline.builder().id("airline_batch_2").type("airline").name("Batch Airline Two")
+                                                .iata("B2").icao("BAT").callsign("BATCHTWO").country("United States")
+                                                .build());
+                ResponseEntity<List<BatchItemResult>> response = restTemplate.exchange(
+                                "/api/v1/airline/batch", HttpMethod.POST, new HttpEntity<>(airlines),
+                                new ParameterizedTypeReference<List<BatchItemResult>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getBody()).extracting(BatchItemResult::getStatus)
+                                .containsExactly(BatchItemResult.Status.CREATED, BatchItemResult.Status.CREATED);
+                // Like single writes, a batch hands back the token of its writes for read-your-writes lists
+                assertThat(response.getHeaders().getFirst(ConsistencyContext.HEADER)).isNotBlank();
+
+                response = restTemplate.exchange(
+                                "/api/v1/airline/batch", HttpMethod.POST, new HttpEntity<>(airlines),
+                                new ParameterizedTypeReference<List<BatchItemResult>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getBody()).extracting(BatchItemResult::getStatus)
+                                .containsExactly(BatchItemResult.Status.CONFLICT, BatchItemResult.Status.CONFLICT);
+        }
+
         @Test
         void testUpdateAirline() {
                 Airline airline = Airline.builder()
@@ -241,7 +281,7 @@ class AirlineIntegrationTest {
         void testListAirlinesByDestinationAirport() {
                 String airport = "LAX";
                 ResponseEntity<RestResponsePage<Airline>> response = restTemplate.exchange(
-                                "/api/v1/airline/to-airport?destinationAirport=" + airport,
+                                "/api/v1/airline/to-airport?destinationAirport=" + airport + "&size=100",
                                 HttpMethod.GET, null, new ParameterizedTypeReference<RestResponsePage<Airline>>() {
                                 });
                 assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -265,7 +305,7 @@ class AirlineIntegrationTest {
 
                 airport = "CDG";
                 ResponseEntity<RestResponsePage<Airline>> response2 = restTemplate.exchange(
-                                "/api/v1/airline/to-airport?destinationAirport=" + airport,
+                                "/api/v1/airline/to-airport?destinationAirport=" + airport + "&size=100",
                                 HttpMethod.GET, null, new ParameterizedTypeReference<RestResponsePage<Airline>>() {
                                 });
 
@@ -290,4 +330,68 @@ class AirlineIntegrationTest {
                 assertThat(airline2).isEqualTo(expectedAirline2);
 
         }
+
+        @Test
+        void testExportAirlines() {
+                ResponseEntity<String> response = restTemplate.getForEntity("/api/v1/airline/export", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                String body = response.getBody();
+                assert body != null;
+                List<String> rows = body.lines().filter(line -> line.startsWith("{\"id\":")).toList();
+                List<String> checkpoints = body.lines().filter(line -> line.startsWith("{\"checkpoint\":")).toList();
+                assertThat(rows).anyMatch(row -> row.startsWith("{\"id\":\"airline_10\","));
+                assertThat(rows).doesNotHaveDuplicates();
+                assertThat(checkpoints).isNotEmpty();
+
+                String checkpoint = checkpoints.get(0).replaceAll("^\\{\"checkpoint\":\"(.*)\"}$", "$1");
+                ResponseEntity<String> resumed = restTemplate.getForEntity(
+                                "/api/v1/airline/export?after=" + checkpoint, String.class);
+                assertThat(resumed.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                assert resumed.getBody() != null;
+                List<String> resumedRows = resumed.getBody().lines()
+                                .filter(line -> line.startsWith("{\"id\":")).toList();
+                assertThat(resumedRows).isNotEmpty().hasSizeLessThan(rows.size());
+                assertThat(resumedRows).allMatch(row -> row.substring(7, row.indexOf('"', 7)).compareTo(checkpoint) > 0);
+        }
+
+        @Test
+        void testListAirlinesByDestinationAirportFollowsRouteWrites() {
+                airlineDestinationIndex.rebuild();
+                Route route = Route.builder()
+                                .id("route_destination_index")
+                                .type("route")
+                                .airline("AF")
+                                .airlineId("airline_137")
+                                .sourceAirport("TLV")
+                                .destinationAirport("ZZZ")
+                                .stops(0)
+                                .equipment("320")
+                                .schedule(List.of(new Route.Schedule(0, "AF198", "10:13:00")))
+                                .distance(2881.617376098415)
+                                .build();
+                try {
+                        restTemplate.postForEntity("/api/v1/route/" + route.getId(), route, Route.class);
+                        assertThat(listAirlineIds("ZZZ")).containsExactly("airline_137");
+
+                        route.setAirline("B6");
+                        route.setAirlineId("airline_3029");
+                        restTemplate.put("/api/v1/route/" + route.getId(), route);
+                        assertThat(listAirlineIds("ZZZ")).containsExactly("airline_3029");
+                } finally {
+                        restTemplate.delete("/api/v1/route/" + route.getId());
+                }
+                assertThat(listAirlineIds("ZZZ")).isEmpty();
+        }
+
+        private List<String> listAirlineIds(String airport) {
+                ResponseEntity<RestResponsePage<Airline>> response = restTemplate.exchange(
+                                "/api/v1/airline/to-airport?destinationAirport=" + airport,
+                                HttpMethod.GET, null, new ParameterizedTypeReference<RestResponsePage<Airline>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assert response.getBody() != null;
+                return response.getBody().stream().map(Airline::getId).toList();
+        }
 }
@@ -2,8 +2,14 @@ package org.couchbase.quickstart.springdata.controllers;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
+import java.util.Map;
+
 import org.couchbase.quickstart.springdata.models.Airport;
 import org.couchbase.quickstart.springdata.models.Airport.Geo;
+import org.couchbase.quickstart.springdata.models.Itinerary;
+import org.couchbase.quickstart.springdata.models.MultiGetResult;
+import org.couchbase.quickstart.springdata.models.NearbyAirport;
 import org.couchbase.quickstart.springdata.models.RestResponsePage;
 import org.couchbase.quickstart.springdata.models.RestResponseSlice;
 import org.couchbase.quickstart.springdata.services.AirportService;
@@ -17,14 +23,19 @@ import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRe
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.ResourceAccessException;
 
 import com.couchbase.client.core.error.DocumentNotFoundException;
 
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 @Slf4j
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -59,6 +70,7 @@ class AirportIntegrationTest {
         private void deleteTestAirportData(String baseUri) {
                 deleteAirport(baseUri, "airport_create");
                 deleteAirport(baseUri, "airport_update");
+                deleteAirport(baseUri, "airport_conditional");
                 deleteAirport(baseUri, "airport_delete");
         }
 
@@ -109,6 +121,20 @@ class AirportIntegrationTest {
                 assertThat(airport).isEqualTo(expectedAirport);
         }
 
+        @Test
+        void testGetAirportsByIds() {
+                ResponseEntity<MultiGetResult<Airport>> response = restTemplate.exchange(
+                                "/api/v1/airport?ids=airport_1255,airport_missing", HttpMethod.GET, null,
+                                new ParameterizedTypeReference<MultiGetResult<Airport>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                MultiGetResult<Airport> result = response.getBody();
+                assert result != null;
+                assertThat(result.getFound()).extracting(Airport::getId).containsExactly("airport_1255");
+                assertThat(result.getMissing()).containsExactly("airport_missing");
+        }
+
         @Test
         void testCreateAirport() {
                 Airport airport = Airport.builder().id("airport_create").type("airport").airportName("Test Airport")
@@ -142,6 +168,68 @@ class AirportIntegrationTest {
                 assertThat(updatedAirport).isEqualTo(airport);
         }
 
+        @Test
+        void testListAirportsAsSmile() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setAccept(List.of(MediaType.valueOf("application/x-jackson-smile")));
+                ResponseEntity<byte[]> response = restTemplate.exchange("/api/v1/airport/list?page=0&size=5",
+                                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getHeaders().getContentType())
+                                .isEqualTo(MediaType.valueOf("application/x-jackson-smile"));
+
+                RestResponsePage<Airport> airports = SmileMapper.builder().build().readValue(response.getBody(),
+                                new TypeReference<RestResponsePage<Airport>>() {
+                                });
+                assertThat(airports.getContent()).hasSize(5);
+                assertThat(airports.getTotalElements()).isGreaterThan(5);
+        }
+
+        @Test
+        void testConditionalAirportRequests() {
+                Airport airport = Airport.builder().id("airport_conditional").type("airport")
+                                .airportName("Test Airport").city("Test City").country("Test Country").faa("TST")
+                                .icao("TEST").tz("Test Timezone").geo(new Geo(1.0, 2.0, 3.0)).build();
+                restTemplate.postForEntity("/api/v1/airport/" + airport.getId(), airport, Airport.class);
+
+                ResponseEntity<Airport> response = restTemplate
+                                .getForEntity("/api/v1/airport/" + airport.getId(), Airport.class);
+                String etag = response.getHeaders().getETag();
+                assertThat(etag).isNotNull();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setIfNoneMatch(etag);
+                ResponseEntity<Airport> notModified = restTemplate.exchange("/api/v1/airport/" + airport.getId(),
+                                HttpMethod.GET, new HttpEntity<>(headers), Airport.class);
+                assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+                assertThat(notModified.getBody()).isNull();
+
+                airport.setCity("Updated Test City");
+                headers = new HttpHeaders();
+                headers.setIfMatch(etag);
+                ResponseEntity<Airport> updated = restTemplate.exchange("/api/v1/airport/" + airport.getId(),
+                                HttpMethod.PUT, new HttpEntity<>(airport, headers), Airport.class);
+                assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(updated.getHeaders().getETag()).isNotEqualTo(etag);
+
+                // The ETag is stale now
+                ResponseEntity<Void> deleted = restTemplate.exchange("/api/v1/airport/" + airport.getId(),
+                                HttpMethod.DELETE, new HttpEntity<>(headers), Void.class);
+                assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+                // * matches any version, but only of an existing airport
+                headers = new HttpHeaders();
+                headers.setIfMatch("*");
+                deleted = restTemplate.exchange("/api/v1/airport/" + airport.getId(), HttpMethod.DELETE,
+                                new HttpEntity<>(headers), Void.class);
+                assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+                updated = restTemplate.exchange("/api/v1/airport/" + airport.getId(), HttpMethod.PUT,
+                                new HttpEntity<>(airport, headers), Airport.class);
+                assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+                assertThat(restTemplate.getForEntity("/api/v1/airport/" + airport.getId(), Airport.class)
+                                .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
         @Test
         void testDeleteAirport() {
                 Airport airport = Airport.builder().id("airport_delete").type("airport").airportName("Test Airport")
@@ -169,6 +257,52 @@ class AirportIntegrationTest {
                 assertThat(airports).hasSize(10);
         }
 
+        @Test
+        void testListAirportsWithoutExactTotal() {
+                ResponseEntity<RestResponseSlice<Airport>> slice = restTemplate.exchange(
+                                "/api/v1/airport/list?total=none", HttpMethod.GET, null,
+                                new ParameterizedTypeReference<RestResponseSlice<Airport>>() {
+                                });
+                assertThat(slice.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(slice.getBody()).isNotNull().hasSize(10);
+                assertThat(slice.getBody().hasNext()).isTrue();
+
+                ResponseEntity<RestResponsePage<Airport>> approx = restTemplate.exchange(
+                                "/api/v1/airport/list?total=approx", HttpMethod.GET, null,
+                                new ParameterizedTypeReference<RestResponsePage<Airport>>() {
+                                });
+                assertThat(approx.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(approx.getBody()).isNotNull().hasSize(10);
+                assertThat(approx.getBody().getTotalElements()).isGreaterThan(10);
+
+                ResponseEntity<String> invalid = restTemplate.getForEntity("/api/v1/airport/list?total=some",
+                                String.class);
+                assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        void testGetAirportFields() {
+                ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                                "/api/v1/airport/airport_1255?fields=airportName,country", HttpMethod.GET, null,
+                                new ParameterizedTypeReference<Map<String, Object>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getBody()).containsOnly(Map.entry("id", "airport_1255"),
+                                Map.entry("airportName", "Peronne St Quentin"), Map.entry("country", "France"));
+
+                ResponseEntity<RestResponsePage<Map<String, Object>>> list = restTemplate.exchange(
+                                "/api/v1/airport/list?fields=faa", HttpMethod.GET, null,
+                                new ParameterizedTypeReference<RestResponsePage<Map<String, Object>>>() {
+                                });
+                assertThat(list.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(list.getBody()).isNotNull().hasSize(10)
+                                .allSatisfy(airport -> assertThat(airport).containsOnlyKeys("id", "faa"));
+
+                ResponseEntity<String> unknown = restTemplate.getForEntity(
+                                "/api/v1/airport/airport_1255?fields=schedule", String.class);
+                assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
         @Test
         void testListDirectConnections() {
                 String airportCode = "LAX";
@@ -199,4 +333,56 @@ class AirportIntegrationTest {
                                 "SEA");
 
         }
+
+        @Test
+        void testListPaths() {
+                ResponseEntity<List<Itinerary>> response = restTemplate.exchange(
+                                "/api/v1/airport/paths?from=SFO&to=JFK&maxStops=1&limit=5",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<List<Itinerary>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                List<Itinerary> itineraries = response.getBody();
+                assertThat(itineraries).isNotNull().hasSize(5);
+                assertThat(itineraries.get(0).getAirports()).containsExactly("SFO", "JFK");
+                for (Itinerary itinerary : itineraries) {
+                        assertThat(itinerary.getAirports()).startsWith("SFO").endsWith("JFK").doesNotHaveDuplicates();
+                        assertThat(itinerary.getStops()).isLessThanOrEqualTo(1);
+                        assertThat(itinerary.getRouteIds()).hasSize(itinerary.getStops() + 1);
+                }
+                assertThat(itineraries).extracting(Itinerary::getDistance).isSorted();
+
+                response = restTemplate.exchange("/api/v1/airport/paths?from=SFO&to=XXX",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<List<Itinerary>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        void testListNearbyAirports() {
+                ResponseEntity<List<NearbyAirport>> response = restTemplate.exchange(
+                                "/api/v1/airport/nearby?lat=49.868547&lon=3.029578&limit=3",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<List<NearbyAirport>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                List<NearbyAirport> nearest = response.getBody();
+                assertThat(nearest).isNotNull().hasSize(3);
+                assertThat(nearest.get(0).getId()).isEqualTo("airport_1255");
+                assertThat(nearest.get(0).getDistanceKm()).isLessThan(0.1);
+                assertThat(nearest).extracting(NearbyAirport::getDistanceKm).isSorted();
+
+                double radiusKm = nearest.get(2).getDistanceKm();
+                response = restTemplate.exchange(
+                                "/api/v1/airport/nearby?lat=49.868547&lon=3.029578&radiusKm=" + radiusKm + "&limit=100",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<List<NearbyAirport>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getBody()).isNotNull().hasSizeGreaterThanOrEqualTo(3)
+                                .allSatisfy(airport -> assertThat(airport.getDistanceKm()).isLessThanOrEqualTo(radiusKm));
+
+                response = restTemplate.exchange("/api/v1/airport/nearby?lat=91&lon=0",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<List<NearbyAirport>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
 }
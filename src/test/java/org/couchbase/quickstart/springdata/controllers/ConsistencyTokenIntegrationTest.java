@@ -0,0 +1,97 @@
+package org.couchbase.quickstart.springdata.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.couchbase.quickstart.springdata.models.Airline;
+import org.couchbase.quickstart.springdata.models.RestResponsePage;
+import org.couchbase.quickstart.springdata.services.ConsistencyContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.resttestclient.TestRestTemplate;
+import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRestTemplate;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestRestTemplate
+class ConsistencyTokenIntegrationTest {
+
+        // Only this test's airline flies from here, so the list shows whether the
+        // query saw the write
+        private static final String COUNTRY = "Consistency Token Test";
+        private static final String AIRLINE_ID = "airline_consistency";
+
+        @Autowired
+        private TestRestTemplate restTemplate;
+
+        @AfterEach
+        void tearDown() {
+                restTemplate.delete("/api/v1/airline/" + AIRLINE_ID);
+        }
+
+        @Test
+        void listQueriesWithTheTokenSeeTheWrite() {
+                Airline airline = Airline.builder()
+                                .id(AIRLINE_ID)
+                                .type("airline")
+                                .name("Consistency Air")
+                                .iata("CX")
+                                .icao("CSX")
+                                .callsign("CONSISTENT")
+                                .country(COUNTRY)
+                                .build();
+                ResponseEntity<Airline> created = restTemplate.postForEntity("/api/v1/airline/" + AIRLINE_ID, airline,
+                                Airline.class);
+                assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                String token = created.getHeaders().getFirst(ConsistencyContext.HEADER);
+                assertThat(token).isNotBlank();
+
+                ResponseEntity<RestResponsePage<Airline>> response = listByCountry(token);
+
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getBody()).isNotNull();
+                assertThat(response.getBody().getContent()).extracting(Airline::getId).containsExactly(AIRLINE_ID);
+                // Reads hand back no token of their own
+                assertThat(response.getHeaders().containsHeader(ConsistencyContext.HEADER)).isFalse();
+        }
+
+        @Test
+        void rejectsATokenThatIsNotBase64() {
+                assertThat(statusWith("not a token!")).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        void rejectsATokenWithoutMutationTokens() {
+                String empty = Base64.getUrlEncoder().withoutPadding()
+                                .encodeToString("{}".getBytes(StandardCharsets.UTF_8));
+
+                assertThat(statusWith(empty)).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        private ResponseEntity<RestResponsePage<Airline>> listByCountry(String token) {
+                return restTemplate.exchange("/api/v1/airline/list?country={country}", HttpMethod.GET,
+                                withToken(token), new ParameterizedTypeReference<RestResponsePage<Airline>>() {
+                                }, COUNTRY);
+        }
+
+        private HttpStatusCode statusWith(String token) {
+                return restTemplate.exchange("/api/v1/airline/list?country={country}", HttpMethod.GET,
+                                withToken(token), String.class, COUNTRY).getStatusCode();
+        }
+
+        private static HttpEntity<Void> withToken(String token) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(ConsistencyContext.HEADER, token);
+                return new HttpEntity<>(headers);
+        }
+}
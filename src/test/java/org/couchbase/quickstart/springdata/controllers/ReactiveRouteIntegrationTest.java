@@ -0,0 +1,227 @@
+package org.couchbase.quickstart.springdata.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.couchbase.quickstart.springdata.models.BatchItemResult;
+import org.couchbase.quickstart.springdata.models.CursorPage;
+import org.couchbase.quickstart.springdata.models.RestResponsePage;
+import org.couchbase.quickstart.springdata.models.Route;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the WebFlux controllers of the {@code reactive} profile on Netty against
+ * the travel-sample bucket.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+class ReactiveRouteIntegrationTest {
+
+        private static final String ROUTE_ID = "route_reactive";
+
+        @Value("${local.server.port}")
+        private int port;
+
+        private WebTestClient client;
+
+        @BeforeEach
+        void setUp() {
+                client = WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+                deleteTestRoute();
+        }
+
+        @AfterEach
+        void tearDown() {
+                deleteTestRoute();
+        }
+
+        private void deleteTestRoute() {
+                // 404 if a previous run cleaned up already
+                client.delete().uri("/api/v1/route/{id}", ROUTE_ID).exchange();
+        }
+
+        private static Route testRoute(int stops) {
+                return Route.builder()
+                                .id(ROUTE_ID)
+                                .type("route")
+                                .airline("AF")
+                                .airlineId("airline_137")
+                                .sourceAirport("TLV")
+                                .destinationAirport("MRS")
+                                .stops(stops)
+                                .equipment("320")
+                                .schedule(List.of(new Route.Schedule(0, "AF198", "10:13:00")))
+                                .distance(2881.617376098415)
+                                .build();
+        }
+
+        @Test
+        void getsARouteById() {
+                Route route = client.get().uri("/api/v1/route/route_10001")
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody(Route.class)
+                                .returnResult()
+                                .getResponseBody();
+
+                assertThat(route).isNotNull();
+                assertThat(route.getId()).isEqualTo("route_10001");
+                assertThat(route.getSourceAirport()).isEqualTo("TLV");
+                assertThat(route.getDestinationAirport()).isEqualTo("NCE");
+        }
+
+        @Test
+        void returnsNotFoundForAMissingRoute() {
+                client.get().uri("/api/v1/route/route_missing")
+                                .exchange()
+                                .expectStatus().isNotFound();
+        }
+
+        @Test
+        void createsUpdatesAndDeletesARoute() {
+                Route route = testRoute(0);
+                client.post().uri("/api/v1/route/{id}", ROUTE_ID)
+                                .bodyValue(route)
+                                .exchange()
+                                .expectStatus().isCreated()
+                                .expectBody(Route.class).isEqualTo(route);
+                client.get().uri("/api/v1/route/{id}", ROUTE_ID)
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody(Route.class).isEqualTo(route);
+
+                Route updated = testRoute(1);
+                client.put().uri("/api/v1/route/{id}", ROUTE_ID)
+                                .bodyValue(updated)
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody(Route.class).isEqualTo(updated);
+
+                client.delete().uri("/api/v1/route/{id}", ROUTE_ID)
+                                .exchange()
+                                .expectStatus().isNoContent();
+                client.get().uri("/api/v1/route/{id}", ROUTE_ID)
+                                .exchange()
+                                .expectStatus().isNotFound();
+        }
+
+        @Test
+        void rejectsAnInvalidRoute() {
+                client.post().uri("/api/v1/route/{id}", ROUTE_ID)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue("{\"id\":\"" + ROUTE_ID + "\",\"stops\":\"x\"}")
+                                .exchange()
+                                .expectStatus().isBadRequest();
+        }
+
+        @Test
+        void listsAPageOfRoutes() {
+                RestResponsePage<Route> page = client.get().uri("/api/v1/route/list?page=1&size=5")
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody(new ParameterizedTypeReference<RestResponsePage<Route>>() {
+                                })
+                                .returnResult()
+                                .getResponseBody();
+
+                assertThat(page).isNotNull();
+                assertThat(page.getContent()).hasSize(5);
+                assertThat(page.getNumber()).isEqualTo(1);
+                assertThat(page.getTotalElements()).isGreaterThan(5);
+        }
+
+        @Test
+        void streamsRoutesAsNdjson() {
+                List<Route> routes = client.get().uri("/api/v1/route/list/stream?size=5")
+                                .accept(MediaType.APPLICATION_NDJSON)
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                                .returnResult(Route.class)
+                                .getResponseBody()
+                                .collectList()
+                                .block();
+
+                assertThat(routes).hasSize(5);
+                assertThat(routes).allSatisfy(route -> assertThat(route.getId()).startsWith("route_"));
+        }
+
+        @Test
+        void pagesWithACursor() {
+                CursorPage<Route> firstPage = cursorPage("");
+                assertThat(firstPage.getContent()).hasSize(5);
+                assertThat(firstPage.getNextCursor()).isNotNull();
+
+                CursorPage<Route> secondPage = cursorPage(firstPage.getNextCursor());
+                assertThat(secondPage.getContent()).hasSize(5);
+                assertThat(secondPage.getContent().get(0).getId())
+                                .isGreaterThan(firstPage.getContent().get(4).getId());
+        }
+
+        private CursorPage<Route> cursorPage(String cursor) {
+                return client.get().uri("/api/v1/route/list?cursor={cursor}&size=5", cursor)
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody(new ParameterizedTypeReference<CursorPage<Route>>() {
+                                })
+                                .returnResult()
+                                .getResponseBody();
+        }
+
+        @Test
+        void rejectsAnInvalidCursor() {
+                client.get().uri("/api/v1/route/list?cursor={cursor}", "not a cursor!")
+                                .exchange()
+                                .expectStatus().isBadRequest();
+        }
+
+        @Test
+        void rejectsTooManyIds() {
+                String ids = IntStream.range(0, 101).mapToObj(i -> "route_" + i).collect(Collectors.joining(","));
+
+                client.get().uri("/api/v1/route?ids={ids}", ids)
+                                .exchange()
+                                .expectStatus().isBadRequest();
+        }
+
+        @Test
+        void reportsConflictsInABatch() {
+                Route existing = testRoute(0);
+                existing.setId("route_10001");
+
+                List<BatchItemResult> results = client.post().uri("/api/v1/route/batch")
+                                .bodyValue(Collections.singletonList(existing))
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBodyList(BatchItemResult.class)
+                                .returnResult()
+                                .getResponseBody();
+
+                assertThat(results).singleElement().satisfies(result -> {
+                        assertThat(result.getId()).isEqualTo("route_10001");
+                        assertThat(result.getStatus()).isEqualTo(BatchItemResult.Status.CONFLICT);
+                });
+        }
+
+        @Test
+        void rejectsAMalformedBatch() {
+                client.post().uri("/api/v1/route/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue("[{\"id\":")
+                                .exchange()
+                                .expectStatus().isBadRequest();
+        }
+}
@@ -3,9 +3,12 @@ package org.couchbase.quickstart.springdata.controllers;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Arrays;
+import java.util.List;
 
+import org.couchbase.quickstart.springdata.models.CursorPage;
 import org.couchbase.quickstart.springdata.models.RestResponsePage;
 import org.couchbase.quickstart.springdata.models.Route;
+import org.couchbase.quickstart.springdata.services.DocumentPatcher;
 import org.couchbase.quickstart.springdata.services.RouteService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,8 +20,11 @@ import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRe
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.ResourceAccessException;
 
@@ -59,6 +65,7 @@ class RouteIntegrationTest {
         private void deleteTestRouteData(String baseUri) {
                 deleteRoute(baseUri, "route_create");
                 deleteRoute(baseUri, "route_update");
+                deleteRoute(baseUri, "route_patch");
                 deleteRoute(baseUri, "route_delete");
         }
 
@@ -229,6 +236,134 @@ class RouteIntegrationTest {
                 assertThat(updatedRoute).isEqualTo(route);
         }
 
+        @Test
+        void testPatchRoute() throws Exception {
+
+                Route route = Route.builder()
+                                .id("route_patch")
+                                .type("route")
+                                .airline("AF")
+                                .airlineId("airline_137")
+                                .sourceAirport("TLV")
+                                .destinationAirport("MRS")
+                                .stops(0)
+                                .equipment("320")
+                                .schedule(Arrays.asList(
+                                                new Route.Schedule(0, "AF198", "10:13:00"),
+                                                new Route.Schedule(1, "AF356", "12:40:00")))
+                                .distance(2881.617376098415)
+                                .build();
+                restTemplate.postForEntity("/api/v1/route/" + route.getId(), route, Route.class);
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.valueOf(DocumentPatcher.JSON_PATCH));
+                String patch = "[{\"op\":\"replace\",\"path\":\"/schedule/0/flight\",\"value\":\"AF199\"},"
+                                + "{\"op\":\"add\",\"path\":\"/schedule/-\","
+                                + "\"value\":{\"day\":2,\"flight\":\"AF997\",\"utc\":\"00:31:00\"}}]";
+                ResponseEntity<Void> patched = restTemplate.exchange("/api/v1/route/" + route.getId(),
+                                HttpMethod.PATCH, new HttpEntity<>(patch, headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+                headers.setContentType(MediaType.valueOf(DocumentPatcher.MERGE_PATCH));
+                patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                new HttpEntity<>("{\"equipment\":\"321\"}", headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+                ResponseEntity<Route> response = restTemplate
+                                .getForEntity("/api/v1/route/" + route.getId(), Route.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                Route patchedRoute = response.getBody();
+                assert patchedRoute != null;
+                assertThat(patchedRoute.getEquipment()).isEqualTo("321");
+                assertThat(patchedRoute.getSchedule()).containsExactly(
+                                new Route.Schedule(0, "AF199", "10:13:00"),
+                                new Route.Schedule(1, "AF356", "12:40:00"),
+                                new Route.Schedule(2, "AF997", "00:31:00"));
+
+                patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                new HttpEntity<>("{\"unknown\":1}", headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+                // Values of the wrong type and removals of required fields would leave an unreadable route
+                for (String invalid : List.of("{\"stops\":\"x\"}", "{\"sourceAirport\":null}",
+                                "{\"schedule\":[{\"day\":3}]}")) {
+                        patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                        new HttpEntity<>(invalid, headers), Void.class);
+                        assertThat(patched.getStatusCode()).as(invalid).isEqualTo(HttpStatus.BAD_REQUEST);
+                }
+
+                // A test after a replace of the same field cannot be checked against the old value
+                headers.setContentType(MediaType.valueOf(DocumentPatcher.JSON_PATCH));
+                patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                new HttpEntity<>("[{\"op\":\"replace\",\"path\":\"/equipment\",\"value\":\"738\"},"
+                                                + "{\"op\":\"test\",\"path\":\"/equipment\",\"value\":\"738\"}]",
+                                                headers),
+                                Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                assertThat(restTemplate.getForEntity("/api/v1/route/" + route.getId(), Route.class).getBody())
+                                .extracting(Route::getEquipment, Route::getStops)
+                                .containsExactly("321", 0);
+        }
+
+        @Test
+        void testPatchRouteWithIfMatch() throws Exception {
+
+                Route route = Route.builder()
+                                .id("route_patch")
+                                .type("route")
+                                .airline("AF")
+                                .airlineId("airline_137")
+                                .sourceAirport("TLV")
+                                .destinationAirport("MRS")
+                                .stops(0)
+                                .equipment("320")
+                                .schedule(List.of(new Route.Schedule(0, "AF198", "10:13:00")))
+                                .distance(2881.617376098415)
+                                .build();
+                restTemplate.postForEntity("/api/v1/route/" + route.getId(), route, Route.class);
+                String etag = restTemplate.getForEntity("/api/v1/route/" + route.getId(), Route.class)
+                                .getHeaders().getETag();
+                assertThat(etag).isNotNull();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.valueOf(DocumentPatcher.MERGE_PATCH));
+                headers.setIfMatch(etag);
+                ResponseEntity<Void> patched = restTemplate.exchange("/api/v1/route/" + route.getId(),
+                                HttpMethod.PATCH, new HttpEntity<>("{\"equipment\":\"321\"}", headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+                String patchedEtag = patched.getHeaders().getETag();
+                assertThat(patchedEtag).isNotNull().isNotEqualTo(etag);
+                assertThat(restTemplate.getForEntity("/api/v1/route/" + route.getId(), Route.class)
+                                .getHeaders().getETag()).isEqualTo(patchedEtag);
+
+                // The route has changed since the first ETag, even though the test still holds
+                patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                new HttpEntity<>("{\"equipment\":\"738\"}", headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+                headers.setContentType(MediaType.valueOf(DocumentPatcher.JSON_PATCH));
+                patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                new HttpEntity<>("[{\"op\":\"test\",\"path\":\"/equipment\",\"value\":\"321\"},"
+                                                + "{\"op\":\"replace\",\"path\":\"/equipment\",\"value\":\"738\"}]",
+                                                headers),
+                                Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+                headers.setContentType(MediaType.valueOf(DocumentPatcher.MERGE_PATCH));
+
+                headers.setIfMatch("*");
+                patched = restTemplate.exchange("/api/v1/route/route_missing", HttpMethod.PATCH,
+                                new HttpEntity<>("{\"equipment\":\"738\"}", headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+                headers.set(HttpHeaders.IF_MATCH, "not an etag");
+                patched = restTemplate.exchange("/api/v1/route/" + route.getId(), HttpMethod.PATCH,
+                                new HttpEntity<>("{\"equipment\":\"738\"}", headers), Void.class);
+                assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+                assertThat(restTemplate.getForEntity("/api/v1/route/" + route.getId(), Route.class).getBody())
+                                .extracting(Route::getEquipment)
+                                .isEqualTo("321");
+        }
+
         @Test
         void testDeleteRoute() throws Exception {
 
@@ -289,4 +424,37 @@ class RouteIntegrationTest {
                 assertThat(routes).hasSize(10);
         }
 
+        @Test
+        void testListRoutesWithCursor() {
+                ResponseEntity<CursorPage<Route>> response = restTemplate.exchange(
+                                "/api/v1/route/list?cursor=&size=5",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<CursorPage<Route>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                CursorPage<Route> firstPage = response.getBody();
+                assert firstPage != null;
+                assertThat(firstPage.getContent()).hasSize(5);
+                assertThat(firstPage.getNextCursor()).isNotNull();
+
+                response = restTemplate.exchange(
+                                "/api/v1/route/list?cursor=" + firstPage.getNextCursor() + "&size=5",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<CursorPage<Route>>() {
+                                });
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                CursorPage<Route> secondPage = response.getBody();
+                assert secondPage != null;
+                assertThat(secondPage.getContent()).hasSize(5);
+                assertThat(secondPage.getContent().get(0).getId())
+                                .isGreaterThan(firstPage.getContent().get(4).getId());
+        }
+
+        @Test
+        void testListRoutesWithCursorRejectsFields() {
+                ResponseEntity<String> response = restTemplate.getForEntity(
+                                "/api/v1/route/list?cursor=&size=5&fields=airline", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package org.couchbase.quickstart.springdata.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.Airport.Geo;
+import org.couchbase.quickstart.springdata.models.Suggestion;
+import org.couchbase.quickstart.springdata.services.AirportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.resttestclient.TestRestTemplate;
+import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureTestRestTemplate;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestRestTemplate
+class SearchIntegrationTest {
+
+        @Autowired
+        private TestRestTemplate restTemplate;
+
+        @Autowired
+        private AirportService airportService;
+
+        @AfterEach
+        void tearDown() {
+                try {
+                        if (airportService.getAirportById("airport_suggest").isPresent()) {
+                                airportService.deleteAirport("airport_suggest");
+                        }
+                } catch (Exception e) {
+                        log.debug("Cleanup: Could not delete test airport airport_suggest: {}", e.getMessage());
+                }
+        }
+
+        private ResponseEntity<List<Suggestion>> suggest(String query) {
+                return restTemplate.exchange("/api/v1/search/suggest?q=" + query + "&limit=5",
+                                HttpMethod.GET, null, new ParameterizedTypeReference<List<Suggestion>>() {
+                                });
+        }
+
+        @Test
+        void testSuggest() {
+                ResponseEntity<List<Suggestion>> response = suggest("san fran");
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                List<Suggestion> suggestions = response.getBody();
+                assertThat(suggestions).isNotEmpty();
+                assertThat(suggestions.get(0).getType()).isEqualTo("airport");
+                assertThat(suggestions.get(0).getCode()).isEqualTo("SFO");
+                assertThat(suggestions).extracting(Suggestion::getRoutes).isSortedAccordingTo((a, b) -> b - a);
+
+                response = suggest("");
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        void testSuggestFollowsWrites() {
+                assertThat(suggest("Zyxquarth").getBody()).isEmpty();
+
+                airportService.createAirport(Airport.builder()
+                                .id("airport_suggest")
+                                .type("airport")
+                                .airportName("Zyxquarth Regional")
+                                .city("Test City")
+                                .country("Test Country")
+                                .faa("ZYX")
+                                .icao("ZYXQ")
+                                .tz("Europe/Paris")
+                                .geo(Geo.builder().lat(48.0).lon(2.0).alt(100.0).build())
+                                .build());
+                List<Suggestion> suggestions = suggest("Zyxquarth").getBody();
+                assertThat(suggestions).extracting(Suggestion::getId).containsExactly("airport_suggest");
+
+                airportService.deleteAirport("airport_suggest");
+                assertThat(suggest("Zyxquarth").getBody()).isEmpty();
+        }
+}
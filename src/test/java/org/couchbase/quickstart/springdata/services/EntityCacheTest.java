@@ -0,0 +1,158 @@
+package org.couchbase.quickstart.springdata.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class EntityCacheTest {
+
+        private static final Duration TTL = Duration.ofMinutes(5);
+
+        @Test
+        void loadsOnAMissAndServesTheNextReadFromTheCache() {
+                EntityCache<String> cache = new EntityCache<>(10, TTL);
+                AtomicInteger loads = new AtomicInteger();
+
+                assertThat(cache.get("a", id -> {
+                        loads.incrementAndGet();
+                        return Optional.of("A");
+                })).contains("A");
+                assertThat(cache.get("a", id -> {
+                        throw new AssertionError("loaded a cached entry");
+                })).contains("A");
+
+                assertThat(loads).hasValue(1);
+                assertThat(cache.stats()).isEqualTo(new EntityCache.Stats(1, 1, 0, 1));
+        }
+
+        @Test
+        void doesNotCacheWhatTheLoaderDidNotFind() {
+                EntityCache<String> cache = new EntityCache<>(10, TTL);
+
+                assertThat(cache.get("a", id -> Optional.empty())).isEmpty();
+
+                assertThat(cache.peek("a")).isEmpty();
+                assertThat(cache.stats()).isEqualTo(new EntityCache.Stats(0, 1, 0, 0));
+        }
+
+        @Test
+        void reloadsExpiredEntries() {
+                EntityCache<String> cache = new EntityCache<>(10, Duration.ZERO);
+                cache.put("a", "stale");
+
+                assertThat(cache.peek("a")).isEmpty();
+                assertThat(cache.get("a", id -> Optional.of("fresh"))).contains("fresh");
+                assertThat(cache.stats()).isEqualTo(new EntityCache.Stats(0, 1, 1, 1));
+        }
+
+        @Test
+        void evictsTheEntryWrittenLongestAgo() {
+                EntityCache<String> cache = new EntityCache<>(2, TTL);
+                cache.put("a", "A");
+                cache.put("b", "B");
+                // Reads do not change the eviction order
+                cache.get("a", id -> Optional.empty());
+                cache.put("c", "C");
+
+                assertThat(cache.peek("a")).isEmpty();
+                assertThat(cache.peek("b")).contains("B");
+                assertThat(cache.peek("c")).contains("C");
+                assertThat(cache.stats().evictions()).isEqualTo(1);
+                assertThat(cache.stats().size()).isEqualTo(2);
+        }
+
+        @Test
+        void skipsOverwrittenEntriesWhenEvicting() {
+                EntityCache<String> cache = new EntityCache<>(2, TTL);
+                for (int i = 0; i < 10; i++) {
+                        cache.put("a", "A" + i);
+                        cache.invalidate("b");
+                }
+                cache.put("b", "B");
+                cache.put("c", "C");
+
+                assertThat(cache.peek("a")).isEmpty();
+                assertThat(cache.peek("b")).contains("B");
+                assertThat(cache.peek("c")).contains("C");
+                assertThat(cache.stats().evictions()).isEqualTo(1);
+        }
+
+        @Test
+        void doesNotEvictWhenAPutOverwritesAnEntry() {
+                EntityCache<String> cache = new EntityCache<>(2, TTL);
+                cache.put("a", "A");
+                cache.put("b", "B");
+                cache.put("b", "B2");
+
+                assertThat(cache.peek("a")).contains("A");
+                assertThat(cache.peek("b")).contains("B2");
+                assertThat(cache.stats().evictions()).isZero();
+        }
+
+        @Test
+        void keepsTheNewerVersionWhenWritesFinishOutOfOrder() {
+                EntityCache<Versioned<String>> cache = new EntityCache<>(10, TTL, Versioned::cas);
+                cache.put("a", new Versioned<>("second write", 20));
+                cache.put("a", new Versioned<>("first write", 10));
+
+                assertThat(cache.peek("a")).contains(new Versioned<>("second write", 20));
+
+                cache.put("a", new Versioned<>("third write", 30));
+                assertThat(cache.peek("a")).contains(new Versioned<>("third write", 30));
+        }
+
+        @Test
+        void comparesVersionsAsUnsigned() {
+                EntityCache<Versioned<String>> cache = new EntityCache<>(10, TTL, Versioned::cas);
+                cache.put("a", new Versioned<>("high bit set", 0x8000_0000_0000_0000L));
+                cache.put("a", new Versioned<>("older", 1));
+
+                assertThat(cache.peek("a")).contains(new Versioned<>("high bit set", 0x8000_0000_0000_0000L));
+        }
+
+        @Test
+        void doesNotCacheALoadThatRacedWithAnInvalidation() {
+                EntityCache<String> cache = new EntityCache<>(10, TTL);
+
+                // The document changes while the loader still holds the old version
+                assertThat(cache.get("a", id -> {
+                        cache.invalidate(id);
+                        return Optional.of("before the write");
+                })).contains("before the write");
+
+                assertThat(cache.peek("a")).isEmpty();
+                assertThat(cache.get("a", id -> Optional.of("after the write"))).contains("after the write");
+        }
+
+        @Test
+        void doesNotCacheABatchLoadThatRacedWithAWrite() {
+                EntityCache<String> cache = new EntityCache<>(10, TTL);
+
+                List<String> loaded = cache.getAll(List.of("a", "b"), ids -> {
+                        cache.put("b", "written");
+                        return List.of("a", "b");
+                }, value -> value);
+
+                assertThat(loaded).containsExactly("a", "b");
+                assertThat(cache.peek("a")).isEmpty();
+                assertThat(cache.peek("b")).contains("written");
+        }
+
+        @Test
+        void cachesNothingWithASizeOfZero() {
+                EntityCache<String> cache = new EntityCache<>(0, TTL);
+                AtomicInteger loads = new AtomicInteger();
+
+                cache.put("a", "A");
+                cache.get("a", id -> Optional.of("A" + loads.incrementAndGet()));
+                cache.get("a", id -> Optional.of("A" + loads.incrementAndGet()));
+
+                assertThat(loads).hasValue(2);
+                assertThat(cache.stats().size()).isZero();
+        }
+}
@@ -0,0 +1,89 @@
+package org.couchbase.quickstart.springdata.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.couchbase.quickstart.springdata.models.Suggestion;
+import org.junit.jupiter.api.Test;
+
+class SuggestIndexTest {
+
+        private static final SuggestIndex.Entry SFO = airport("airport_3469", "San Francisco Intl", "San Francisco",
+                        "SFO", 250);
+        private static final SuggestIndex.Entry SJC = airport("airport_3688", "Norman Y Mineta San Jose Intl",
+                        "San Jose", "SJC", 120);
+        private static final SuggestIndex.Entry CDG = airport("airport_1382", "Charles De Gaulle", "Paris", "CDG", 900);
+
+        @Test
+        void matchesTheStartOfAnyWordRankedByRoutes() {
+                SuggestIndex index = SuggestIndex.build(List.of(SFO, SJC, CDG));
+
+                assertThat(ids(index.suggest("san", 10))).containsExactly("airport_3469", "airport_3688");
+                assertThat(ids(index.suggest("fran", 10))).containsExactly("airport_3469");
+                assertThat(ids(index.suggest("san fr", 10))).containsExactly("airport_3469");
+        }
+
+        @Test
+        void addsReplacesAndRemovesEntriesIncrementally() {
+                SuggestIndex index = SuggestIndex.build(List.of(SFO, SJC));
+                SuggestIndex.Entry renamed = airport("airport_3688", "Silicon Valley Intl", "San Jose", "SJC", 120);
+
+                SuggestIndex next = index.apply(List.of(renamed, CDG), List.of("airport_3469"));
+
+                assertThat(next.entryCount()).isEqualTo(2);
+                assertThat(ids(next.suggest("sili", 10))).containsExactly("airport_3688");
+                assertThat(ids(next.suggest("norman", 10))).isEmpty();
+                assertThat(ids(next.suggest("gaul", 10))).containsExactly("airport_1382");
+                assertThat(ids(next.suggest("fran", 10))).isEmpty();
+                // The previous snapshot is unchanged
+                assertThat(ids(index.suggest("norman", 10))).containsExactly("airport_3688");
+                assertThat(index.entryCount()).isEqualTo(2);
+        }
+
+        @Test
+        void updatesMatchAFullRebuild() {
+                Random random = new Random(7);
+                List<SuggestIndex.Entry> entries = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                        entries.add(airport("airport_" + i, word(random) + " " + word(random), word(random), "A" + i,
+                                        random.nextInt(100)));
+                }
+                SuggestIndex index = SuggestIndex.build(entries);
+                for (int step = 0; step < 300; step++) {
+                        int i = random.nextInt(entries.size());
+                        if (random.nextInt(4) == 0) {
+                                index = index.apply(List.of(), List.of(entries.get(i).id()));
+                                entries.remove(i);
+                        } else {
+                                SuggestIndex.Entry entry = airport("airport_new_" + step, word(random),
+                                                word(random), "B" + step, random.nextInt(100));
+                                index = index.apply(List.of(entry), List.of());
+                                entries.add(entry);
+                        }
+                }
+                SuggestIndex rebuilt = SuggestIndex.build(entries);
+
+                assertThat(index.entryCount()).isEqualTo(rebuilt.entryCount());
+                assertThat(index.keyCount()).isEqualTo(rebuilt.keyCount());
+                for (String query : List.of("a", "ka", "ra", "to m", "b1")) {
+                        assertThat(index.suggest(query, 20)).isEqualTo(rebuilt.suggest(query, 20));
+                }
+        }
+
+        private static SuggestIndex.Entry airport(String id, String name, String city, String faa, int routes) {
+                return new SuggestIndex.Entry("airport", id, name, faa, city, "Country", routes,
+                                List.of(name, city, faa));
+        }
+
+        private static String word(Random random) {
+                String[] syllables = { "ka", "ra", "to", "mi", "an", "lo" };
+                return syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)];
+        }
+
+        private static List<String> ids(List<Suggestion> suggestions) {
+                return suggestions.stream().map(Suggestion::getId).toList();
+        }
+}
@@ -0,0 +1,115 @@
+package org.couchbase.quickstart.springdata.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.couchbase.quickstart.springdata.config.CouchbaseReadinessHealthIndicator;
+import org.couchbase.quickstart.springdata.models.Airport;
+import org.couchbase.quickstart.springdata.models.TotalMode;
+import org.couchbase.quickstart.springdata.services.WarmupService.Report;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.Scope;
+import com.couchbase.client.java.query.QueryOptions;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class WarmupServiceTest {
+
+        private final AirportService airportService = mock(AirportService.class);
+        private final AirlineService airlineService = mock(AirlineService.class);
+        private final RouteService routeService = mock(RouteService.class);
+        private final CouchbaseReadinessHealthIndicator readiness = mock(CouchbaseReadinessHealthIndicator.class);
+        private final Bucket bucket = mock(Bucket.class);
+
+        @BeforeEach
+        void setUp() {
+                when(readiness.bootstrap()).thenReturn(CompletableFuture.completedFuture(null));
+        }
+
+        @Test
+        void runsAtMostParallelismReadsAtATime() {
+                AtomicInteger running = new AtomicInteger();
+                AtomicInteger mostRunning = new AtomicInteger();
+                when(airportService.getAirportById(anyString())).thenAnswer(invocation -> {
+                        mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.sleep(20);
+                        running.decrementAndGet();
+                        return Optional.of(airport(invocation.getArgument(0)));
+                });
+                List<String> airports = IntStream.range(0, 12).mapToObj(i -> "airport_" + i).toList();
+
+                Report report = warmup(airports, List.of("airline_10"), 0, 3, Duration.ofSeconds(10)).warmUp();
+
+                assertThat(report.loaded()).isEqualTo(Map.of("airports", 12));
+                // airline_10 is not stubbed, so the read fails and is counted
+                assertThat(report.failed()).isEqualTo(1);
+                assertThat(report.skipped()).isZero();
+                assertThat(mostRunning.get()).isBetween(2, 3);
+        }
+
+        @Test
+        void skipsTheReadsStillWaitingAtTheTimeout() {
+                when(airportService.getAirportById(anyString())).thenAnswer(invocation -> {
+                        if ("airport_slow".equals(invocation.getArgument(0))) {
+                                Thread.sleep(10_000);
+                        }
+                        return Optional.of(airport(invocation.getArgument(0)));
+                });
+
+                Report report = warmup(List.of("airport_1", "airport_2", "airport_slow", "airport_3"),
+                                List.of("airline_10"), 0, 1, Duration.ofMillis(500)).warmUp();
+
+                assertThat(report.loaded()).isEqualTo(Map.of("airports", 2));
+                assertThat(report.failed()).isZero();
+                // The slow read, the airport after it and the airline
+                assertThat(report.skipped()).isEqualTo(3);
+                assertThat(report.elapsedMillis()).isLessThan(5_000);
+        }
+
+        @Test
+        void warmsTheRestWhenTheHotEntitiesCannotBeLearned() {
+                Scope scope = mock(Scope.class);
+                when(bucket.scope(DocumentWriter.SCOPE)).thenReturn(scope);
+                when(scope.query(anyString(), any(QueryOptions.class)))
+                                .thenThrow(new CouchbaseException("Query service unavailable"));
+                when(routeService.getAllRoutes(any(Pageable.class), eq(TotalMode.EXACT)))
+                                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 10), false));
+
+                Report report = warmup(List.of(), List.of(), 2, 4, Duration.ofSeconds(10)).warmUp();
+
+                assertThat(report.loaded()).isEqualTo(Map.of("routePages", 2));
+                assertThat(report.failed()).isZero();
+                assertThat(report.skipped()).isZero();
+        }
+
+        private WarmupService warmup(List<String> airports, List<String> airlines, int routePages, int parallelism,
+                        Duration timeout) {
+                return new WarmupService(airportService, airlineService, routeService, readiness, bucket,
+                                JsonMapper.builder().build(), mock(StartupTasks.class), true, airports, airlines, 50,
+                                routePages, parallelism, timeout);
+        }
+
+        private static Airport airport(String id) {
+                // Without an FAA code the warm-up skips the direct connections
+                return Airport.builder().id(id).type("airport").airportName("Test " + id).build();
+        }
+}